@@ -0,0 +1,86 @@
+package com.koroli.dynamicqueryforge.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.StringJoiner;
+
+/**
+ * Запросы и наборы параметров, общие для бенчмарков.
+ */
+final class BenchmarkQueries {
+
+    /** Поиск с восемью необязательными условиями, типичный для фильтров в интерфейсе */
+    static final String FILTER_QUERY = """
+            SELECT u.id, u.name, u.email, u.age, u.active, u.created_at
+            FROM users u
+            WHERE u.name LIKE :name
+              AND u.email = :email
+              AND u.age >= :minAge
+              AND u.age <= :maxAge
+              AND u.active = :active
+              AND u.created_at BETWEEN :createdFrom AND :createdTo
+              AND u.status IN (:status1, :status2, :status3)
+              AND (u.city = :city OR u.country = :country)
+            ORDER BY u.id
+            LIMIT 50
+            """;
+
+    /** Значения всех параметров {@link #FILTER_QUERY} */
+    static final Map<String, Object> FILTER_VALUES = Map.ofEntries(
+            Map.entry("name", "Ivan%"),
+            Map.entry("email", "ivan@example.com"),
+            Map.entry("minAge", 18),
+            Map.entry("maxAge", 65),
+            Map.entry("active", true),
+            Map.entry("createdFrom", java.time.LocalDate.of(2024, 1, 1)),
+            Map.entry("createdTo", java.time.LocalDate.of(2024, 12, 31)),
+            Map.entry("status1", "NEW"),
+            Map.entry("status2", "ACTIVE"),
+            Map.entry("status3", "BLOCKED"),
+            Map.entry("city", "Moscow"),
+            Map.entry("country", "RU")
+    );
+
+    private BenchmarkQueries() {
+    }
+
+    /**
+     * Строит наборы параметров, в которых каждый параметр присутствует с заданной вероятностью.
+     * Генератор инициализируется фиксированным значением, чтобы наборы совпадали между запусками.
+     *
+     * @param presenceRatio доля присутствующих параметров (от 0 до 1)
+     * @param count         количество наборов
+     * @return наборы параметров
+     */
+    static List<Map<String, Object>> parameterSets(double presenceRatio, int count) {
+        SplittableRandom random = new SplittableRandom(42);
+        List<Map<String, Object>> sets = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> parameters = new HashMap<>();
+            FILTER_VALUES.forEach((name, value) -> {
+                if (random.nextDouble() < presenceRatio) {
+                    parameters.put(name, value);
+                }
+            });
+            sets.add(parameters);
+        }
+        return sets;
+    }
+
+    /**
+     * Строит запрос с заданным количеством условий в WHERE для оценки зависимости от размера дерева.
+     *
+     * @param predicates количество условий
+     * @return SQL-запрос
+     */
+    static String queryWithPredicates(int predicates) {
+        StringJoiner where = new StringJoiner(" AND ", " WHERE ", "");
+        for (int i = 0; i < predicates; i++) {
+            where.add("t.c" + i + " = :p" + i);
+        }
+        return "SELECT t.id, t.name FROM t" + where;
+    }
+}
@@ -0,0 +1,47 @@
+package com.koroli.dynamicqueryforge.benchmark;
+
+import com.koroli.dynamicqueryforge.parser.SqlParser;
+import com.koroli.dynamicqueryforge.template.QueryTemplate;
+import com.koroli.dynamicqueryforge.util.DeepCloningUtils;
+import net.sf.jsqlparser.statement.Statement;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость глубокого копирования дерева запроса в зависимости от его размера
+ * в сравнении с копированием пути при сокращении шаблона.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CloningBenchmark {
+
+    @Param({"1", "4", "16", "64"})
+    public int predicates;
+
+    private Statement statement;
+    private QueryTemplate template;
+
+    @Setup
+    public void setUp() {
+        String sql = BenchmarkQueries.queryWithPredicates(predicates);
+        statement = SqlParser.parse(sql);
+        template = QueryTemplate.compile(sql);
+    }
+
+    /** Глубокое копирование всего дерева */
+    @Benchmark
+    public Statement deepClone() {
+        return DeepCloningUtils.clone(statement);
+    }
+
+    /** Сокращение без кеша форм: удаляется первое условие, копируются только узлы на пути к нему */
+    @Benchmark
+    public Statement prunedStatement() {
+        return template.prunedStatement(name -> !"p0".equals(name));
+    }
+}
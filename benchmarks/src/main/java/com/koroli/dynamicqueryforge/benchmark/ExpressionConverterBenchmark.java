@@ -0,0 +1,64 @@
+package com.koroli.dynamicqueryforge.benchmark;
+
+import com.koroli.dynamicqueryforge.util.ExpressionConverter;
+import net.sf.jsqlparser.expression.Expression;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Преобразование значения параметра в SQL-литерал для каждого поддерживаемого типа.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ExpressionConverterBenchmark {
+
+    @Param({"STRING", "INTEGER", "LONG", "DOUBLE", "BIG_DECIMAL", "BOOLEAN",
+            "LOCAL_DATE", "LOCAL_TIME", "LOCAL_DATE_TIME", "BYTES"})
+    public ValueType type;
+
+    private Object value;
+
+    public enum ValueType {
+        STRING("O'Reilly and sons"),
+        INTEGER(42),
+        LONG(9_000_000_000L),
+        DOUBLE(3.14159),
+        BIG_DECIMAL(new BigDecimal("12345.6789")),
+        BOOLEAN(true),
+        LOCAL_DATE(LocalDate.of(2024, 5, 17)),
+        LOCAL_TIME(LocalTime.of(13, 45, 10)),
+        LOCAL_DATE_TIME(LocalDateTime.of(2024, 5, 17, 13, 45, 10)),
+        BYTES(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16});
+
+        private final Object sample;
+
+        ValueType(Object sample) {
+            this.sample = sample;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        value = type.sample;
+    }
+
+    @Benchmark
+    public Expression convert() {
+        return ExpressionConverter.convertParameterValue(value);
+    }
+
+    /** Преобразование вместе с формированием текста литерала, как при рендеринге запроса */
+    @Benchmark
+    public String render() {
+        return ExpressionConverter.convertParameterValue(value).toString();
+    }
+}
@@ -0,0 +1,52 @@
+package com.koroli.dynamicqueryforge.benchmark;
+
+import com.koroli.dynamicqueryforge.cache.CaffeineQueryCache;
+import com.koroli.dynamicqueryforge.config.DynamicQueryProperties;
+import com.koroli.dynamicqueryforge.config.DynamicQueryProperties.ParameterMode;
+import com.koroli.dynamicqueryforge.processing.ProcessedQuery;
+import com.koroli.dynamicqueryforge.processing.QueryProcessor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Обработка запроса с восемью необязательными условиями при разной доле присутствующих параметров.
+ * Наборы параметров перебираются по кругу, поэтому в каждом замере участвуют разные формы запроса.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProcessQueryBenchmark {
+
+    private static final int PARAMETER_SETS = 256;
+
+    @Param({"0.0", "0.25", "0.5", "0.75", "1.0"})
+    public double presenceRatio;
+
+    @Param({"INLINE", "BIND"})
+    public ParameterMode parameterMode;
+
+    private QueryProcessor queryProcessor;
+    private List<Map<String, Object>> parameterSets;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        DynamicQueryProperties properties = new DynamicQueryProperties();
+        properties.setParameterMode(parameterMode);
+        queryProcessor = new QueryProcessor(new CaffeineQueryCache(properties), properties);
+        parameterSets = BenchmarkQueries.parameterSets(presenceRatio, PARAMETER_SETS);
+    }
+
+    @Benchmark
+    public ProcessedQuery processQuery() {
+        Map<String, Object> parameters = parameterSets.get(next);
+        next = (next + 1) & (PARAMETER_SETS - 1);
+        return queryProcessor.processQuery(BenchmarkQueries.FILTER_QUERY, parameters);
+    }
+}
@@ -0,0 +1,118 @@
+package com.koroli.dynamicqueryforge.benchmark;
+
+import com.koroli.dynamicqueryforge.annotation.Param;
+import com.koroli.dynamicqueryforge.annotation.Query;
+import com.koroli.dynamicqueryforge.benchmark.ResultMappingBenchmark.UserRecord;
+import com.koroli.dynamicqueryforge.cache.CaffeineQueryCache;
+import com.koroli.dynamicqueryforge.cache.ResultCache;
+import com.koroli.dynamicqueryforge.client.HashShardRouter;
+import com.koroli.dynamicqueryforge.client.Shards;
+import com.koroli.dynamicqueryforge.client.postgres.PostgresClient;
+import com.koroli.dynamicqueryforge.config.DynamicQueryProperties;
+import com.koroli.dynamicqueryforge.config.DynamicQueryProperties.ParameterMode;
+import com.koroli.dynamicqueryforge.processing.AsyncQueryExecutor;
+import com.koroli.dynamicqueryforge.processing.QueryProcessor;
+import com.koroli.dynamicqueryforge.processing.RepositoryMethodInterceptor;
+import com.koroli.dynamicqueryforge.processing.ShardedQueryExecutor;
+import com.koroli.dynamicqueryforge.processing.SlowQueryLog;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сквозной вызов метода репозитория: прокси, извлечение параметров, обработка запроса,
+ * выполнение во встроенной базе H2 в режиме совместимости с PostgreSQL и маппинг результата.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RepositoryInvocationBenchmark {
+
+    private static final int USERS = 10_000;
+
+    @org.openjdk.jmh.annotations.Param({"INLINE", "BIND"})
+    public ParameterMode parameterMode;
+
+    private JdbcConnectionPool dataSource;
+    private AsyncQueryExecutor asyncQueryExecutor;
+    private UserRepository repository;
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    public interface UserRepository {
+
+        @Query("SELECT id, name, age, active FROM users WHERE id = :id")
+        UserRecord findById(@Param("id") long id);
+
+        @Query("""
+                SELECT id, name, age, active
+                FROM users
+                WHERE name LIKE :name AND age >= :minAge AND age <= :maxAge AND active = :active
+                ORDER BY id
+                LIMIT 100
+                """)
+        List<UserRecord> search(@Param("name") String name, @Param("minAge") Integer minAge,
+                                @Param("maxAge") Integer maxAge, @Param("active") Boolean active);
+    }
+
+    @Setup
+    public void setUp() throws SQLException {
+        dataSource = JdbcConnectionPool.create("jdbc:h2:mem:benchmark;MODE=PostgreSQL;DB_CLOSE_DELAY=-1", "sa", "");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS users");
+            statement.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, name VARCHAR(255), age INT, active BOOLEAN)");
+            statement.execute("INSERT INTO users SELECT x, 'user-' || x, 20 + MOD(x, 50), MOD(x, 2) = 0 "
+                    + "FROM SYSTEM_RANGE(1, " + USERS + ")");
+        }
+
+        DynamicQueryProperties properties = new DynamicQueryProperties();
+        properties.setParameterMode(parameterMode);
+
+        QueryProcessor queryProcessor = new QueryProcessor(new CaffeineQueryCache(properties), properties);
+        PostgresClient client = new PostgresClient(dataSource, properties);
+        asyncQueryExecutor = new AsyncQueryExecutor(properties, new DefaultListableBeanFactory().getBeanProvider(Executor.class));
+        RepositoryMethodInterceptor interceptor = new RepositoryMethodInterceptor(queryProcessor, client,
+                asyncQueryExecutor, new SlowQueryLog(client, asyncQueryExecutor, properties),
+                new ResultCache(properties), new ShardedQueryExecutor(new DefaultListableBeanFactory().getBeanProvider(Shards.class),
+                new HashShardRouter(), asyncQueryExecutor, properties), properties);
+
+        interceptor.registerRepository(UserRepository.class);
+        repository = (UserRepository) Proxy.newProxyInstance(
+                UserRepository.class.getClassLoader(), new Class<?>[]{UserRepository.class}, interceptor);
+    }
+
+    @TearDown
+    public void tearDown() {
+        asyncQueryExecutor.destroy();
+        dataSource.dispose();
+    }
+
+    /** Выборка одной строки по первичному ключу */
+    @Benchmark
+    public UserRecord findById() {
+        return repository.findById(1 + random.nextInt(USERS));
+    }
+
+    /** Выборка с четырьмя присутствующими условиями */
+    @Benchmark
+    public List<UserRecord> searchAllFilters() {
+        return repository.search("user-1%", 25, 40, true);
+    }
+
+    /** Выборка, в которой половина условий удаляется из-за отсутствующих параметров */
+    @Benchmark
+    public List<UserRecord> searchPartialFilters() {
+        return repository.search(null, 25, 40, null);
+    }
+}
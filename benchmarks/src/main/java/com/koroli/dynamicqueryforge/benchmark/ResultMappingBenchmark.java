@@ -0,0 +1,85 @@
+package com.koroli.dynamicqueryforge.benchmark;
+
+import com.koroli.dynamicqueryforge.util.ResultMappingUtils;
+import org.h2.tools.SimpleResultSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Преобразование строк результата в записи, бины и карты.
+ * Строки хранятся в памяти ({@link SimpleResultSet}), поэтому замер не включает работу драйвера.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultMappingBenchmark {
+
+    @Param({"1", "100", "10000"})
+    public int rows;
+
+    private SimpleResultSet resultSet;
+
+    public record UserRecord(long id, String name, int age, boolean active) {
+    }
+
+    public static class UserBean {
+        private long id;
+        private String name;
+        private int age;
+        private boolean active;
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public void setAge(int age) {
+            this.age = age;
+        }
+
+        public void setActive(boolean active) {
+            this.active = active;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        resultSet = new SimpleResultSet();
+        resultSet.setAutoClose(false);
+        resultSet.addColumn("id", Types.BIGINT, 19, 0);
+        resultSet.addColumn("name", Types.VARCHAR, 255, 0);
+        resultSet.addColumn("age", Types.INTEGER, 10, 0);
+        resultSet.addColumn("active", Types.BOOLEAN, 1, 0);
+        for (int i = 0; i < rows; i++) {
+            resultSet.addRow((long) i, "user-" + i, 20 + i % 50, i % 2 == 0);
+        }
+    }
+
+    @Benchmark
+    public Object mapRecords() throws SQLException {
+        resultSet.beforeFirst();
+        return ResultMappingUtils.mapResult(resultSet, UserRecord.class, false);
+    }
+
+    @Benchmark
+    public Object mapBeans() throws SQLException {
+        resultSet.beforeFirst();
+        return ResultMappingUtils.mapResult(resultSet, UserBean.class, false);
+    }
+
+    @Benchmark
+    public Object mapMaps() throws SQLException {
+        resultSet.beforeFirst();
+        return ResultMappingUtils.mapResult(resultSet, Map.class, false);
+    }
+}
@@ -0,0 +1,25 @@
+package com.koroli.dynamicqueryforge.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Аннотация для выполнения изменяющего запроса пакетом JDBC.
+ * <p>
+ * Метод принимает коллекцию объектов или карт, каждый элемент которой задает параметры одной строки.
+ * Строки группируются по форме запроса после сокращения и выполняются порциями размера {@link #chunkSize()}
+ * в одной транзакции. Метод может возвращать {@code int[]}/{@code long[]} (количество измененных строк
+ * для каждого элемента), {@code int}/{@code long} (суммарное количество), {@code void} или
+ * {@code List<T>} со строками RETURNING.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Batch {
+
+    /**
+     * Размер порции пакета. Если не задан, используется {@code dynamic-query.client.batch-size}.
+     */
+    int chunkSize() default 0;
+}
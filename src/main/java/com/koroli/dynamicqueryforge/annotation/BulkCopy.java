@@ -0,0 +1,32 @@
+package com.koroli.dynamicqueryforge.annotation;
+
+import com.koroli.dynamicqueryforge.client.CopyFormat;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Аннотация для массовой загрузки строк через {@code COPY FROM STDIN} вместо INSERT.
+ * <p>
+ * Запрос метода должен иметь вид {@code INSERT INTO table (col1, col2) VALUES (:param1, :param2)}:
+ * таблица и столбцы берутся из запроса, а значения параметров - из свойств элементов.
+ * Метод принимает {@code Collection}, {@code Iterable}, {@code Iterator}, {@code Stream} или массив
+ * объектов или карт; элементы читаются по одному и не накапливаются в памяти.
+ * Метод может возвращать {@code long}/{@code int} (количество загруженных строк) или {@code void}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface BulkCopy {
+
+    /**
+     * Формат передаваемых данных.
+     */
+    CopyFormat format() default CopyFormat.CSV;
+
+    /**
+     * Размер буфера в байтах. Если не задан, используется {@code dynamic-query.client.copy-buffer-size}.
+     */
+    int bufferSize() default 0;
+}
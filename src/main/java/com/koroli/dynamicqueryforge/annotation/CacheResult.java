@@ -0,0 +1,31 @@
+package com.koroli.dynamicqueryforge.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Аннотация для кеширования результата SELECT-запроса метода репозитория.
+ * <p>
+ * Результат кешируется отдельно для каждого набора значений параметров запроса и удаляется
+ * по истечении {@link #ttlMillis()}, а также при выполнении через библиотеку любого изменяющего запроса
+ * к таблице, из которой читает запрос метода. Изменения, выполненные в обход библиотеки, кеш не отслеживает.
+ * Кешируются методы, возвращающие единичный объект, список или колоночный результат.
+ * Закешированный результат разделяется между вызовами: список и строки-карты возвращаются
+ * неизменяемыми, а строками могут быть только записи (record), карты и неизменяемые значения.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CacheResult {
+
+    /**
+     * Время жизни результата в миллисекундах. Если не задано, используется {@code dynamic-query.result-cache.ttl}.
+     */
+    long ttlMillis() default 0;
+
+    /**
+     * Максимальное количество результатов метода. Если не задано, используется {@code dynamic-query.result-cache.max-size}.
+     */
+    long maxSize() default 0;
+}
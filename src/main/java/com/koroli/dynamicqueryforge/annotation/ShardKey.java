@@ -0,0 +1,19 @@
+package com.koroli.dynamicqueryforge.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Аннотация для обозначения параметра метода, значение которого определяет шард для выполнения запроса.
+ * <p>
+ * Вызов со значением ключа выполняется на одном шарде, выбранном
+ * {@link com.koroli.dynamicqueryforge.client.ShardRouter}. Вызов с null выполняется на всех шардах
+ * параллельно, а результаты объединяются. Параметр остается параметром запроса: его имя задается
+ * через {@link Param} или берется из имени параметра метода.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ShardKey {
+}
@@ -0,0 +1,16 @@
+package com.koroli.dynamicqueryforge.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Аннотация для выполнения SELECT-запросов метода или всех методов репозитория на основной базе данных,
+ * даже если настроены реплики для чтения. Используется для чтения сразу после записи,
+ * когда отставание реплики недопустимо.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface UsePrimary {
+}
@@ -0,0 +1,105 @@
+package com.koroli.dynamicqueryforge.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.koroli.dynamicqueryforge.config.DynamicQueryProperties;
+import com.koroli.dynamicqueryforge.config.DynamicQueryProperties.CacheProperties;
+import com.koroli.dynamicqueryforge.template.QueryTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Fallback;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Реализация кеша шаблонов запросов на основе Caffeine.
+ * <p>
+ * По умолчанию кеш ограничивается количеством шаблонов ({@code max-size}). Если задан {@code max-weight},
+ * кеш ограничивается суммарным весом шаблонов - количеством узлов их деревьев запросов, и крупные запросы
+ * вытесняют больше мелких. Задать оба ограничения нельзя: такая конфигурация отклоняется при запуске.
+ * Скелеты форм, которые шаблон строит по мере вызовов, в вес не входят: их количество в одном шаблоне
+ * ограничено {@link QueryTemplate#MAX_SHAPES}.
+ * Используется, если в контексте нет другого бина {@link QueryCache}.
+ */
+@Component
+@Fallback
+@ConditionalOnClass(name = "com.github.benmanes.caffeine.cache.Caffeine")
+public class CaffeineQueryCache implements QueryCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CaffeineQueryCache.class);
+
+    /** Максимальное количество шаблонов, если ограничения кеша не заданы */
+    private static final int DEFAULT_MAX_SIZE = 100;
+
+    private final Cache<String, QueryTemplate> cache;
+    private final boolean weighted;
+
+    public CaffeineQueryCache(DynamicQueryProperties properties) {
+        CacheProperties cacheProperties = properties.getCache();
+        this.weighted = cacheProperties.getMaxWeight() > 0;
+        if (weighted && cacheProperties.getMaxSize() != null) {
+            throw new IllegalStateException("Заданы оба ограничения кеша запросов: dynamic-query.cache.max-size "
+                    + "и dynamic-query.cache.max-weight; оставьте одно из них");
+        }
+
+        Caffeine<String, QueryTemplate> builder = Caffeine.newBuilder()
+                .scheduler(Scheduler.systemScheduler())
+                .evictionListener((String key, QueryTemplate value, com.github.benmanes.caffeine.cache.RemovalCause cause) -> {
+                    if (cacheProperties.isLogEvictions()) {
+                        LOGGER.debug("Cache: [{}] was deleted due to {}", key, cause);
+                    }
+                })
+                .recordStats();
+
+        if (weighted) {
+            builder.maximumWeight(cacheProperties.getMaxWeight())
+                    .weigher((String key, QueryTemplate template) -> template.getWeight());
+        } else {
+            builder.maximumSize(cacheProperties.getMaxSize() != null ? cacheProperties.getMaxSize() : DEFAULT_MAX_SIZE);
+        }
+
+        Duration expireAfterAccess = cacheProperties.getExpireAfterAccess();
+        if (expireAfterAccess != null && !expireAfterAccess.isZero()) {
+            builder.expireAfterAccess(expireAfterAccess);
+        }
+
+        this.cache = builder.build();
+    }
+
+    @Override
+    public QueryTemplate get(String sql, Function<String, QueryTemplate> loader) {
+        return cache.get(sql, loader);
+    }
+
+    @Override
+    public void invalidate(String sql) {
+        cache.invalidate(sql);
+    }
+
+    @Override
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public QueryCacheStatistics getStatistics() {
+        CacheStats stats = cache.stats();
+        long weightedSize = weighted
+                ? cache.policy().eviction().flatMap(eviction -> eviction.weightedSize().stream().boxed().findFirst()).orElse(-1L)
+                : -1L;
+        return new QueryCacheStatistics(
+                stats.hitCount(),
+                stats.missCount(),
+                stats.loadFailureCount(),
+                Duration.ofNanos(stats.totalLoadTime()),
+                stats.evictionCount(),
+                stats.evictionWeight(),
+                cache.estimatedSize(),
+                weightedSize);
+    }
+}
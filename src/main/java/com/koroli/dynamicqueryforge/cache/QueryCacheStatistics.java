@@ -0,0 +1,43 @@
+package com.koroli.dynamicqueryforge.cache;
+
+import java.time.Duration;
+
+/**
+ * Снимок статистики кеша шаблонов запросов.
+ *
+ * @param hitCount         количество попаданий
+ * @param missCount        количество промахов
+ * @param loadFailureCount количество ошибок компиляции шаблона
+ * @param totalLoadTime    суммарное время компиляции шаблонов
+ * @param evictionCount    количество вытесненных шаблонов
+ * @param evictionWeight   суммарный вес вытесненных шаблонов
+ * @param size             текущее количество шаблонов (приблизительно)
+ * @param weightedSize     текущий суммарный вес шаблонов (-1, если кеш ограничен количеством)
+ */
+public record QueryCacheStatistics(
+        long hitCount,
+        long missCount,
+        long loadFailureCount,
+        Duration totalLoadTime,
+        long evictionCount,
+        long evictionWeight,
+        long size,
+        long weightedSize
+) {
+
+    /**
+     * Возвращает долю попаданий от общего числа обращений.
+     */
+    public double hitRate() {
+        long requests = hitCount + missCount;
+        return requests == 0 ? 1.0 : (double) hitCount / requests;
+    }
+
+    /**
+     * Возвращает среднее время компиляции одного шаблона.
+     */
+    public Duration averageLoadTime() {
+        long loads = missCount;
+        return loads == 0 ? Duration.ZERO : totalLoadTime.dividedBy(loads);
+    }
+}
@@ -0,0 +1,250 @@
+package com.koroli.dynamicqueryforge.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.koroli.dynamicqueryforge.annotation.CacheResult;
+import com.koroli.dynamicqueryforge.config.DynamicQueryProperties;
+import com.koroli.dynamicqueryforge.config.DynamicQueryProperties.ResultCacheProperties;
+import com.koroli.dynamicqueryforge.exception.QueryProcessingException;
+import com.koroli.dynamicqueryforge.processing.MethodDescriptor;
+import com.koroli.dynamicqueryforge.processing.ProcessedQuery;
+import com.koroli.dynamicqueryforge.template.QueryTemplate;
+import com.koroli.dynamicqueryforge.template.StatementType;
+import com.koroli.dynamicqueryforge.util.CollectionParameterUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Кеш результатов методов репозитория с аннотацией {@link CacheResult}.
+ * <p>
+ * У каждого метода свой кеш с ограничением по времени жизни и количеству результатов.
+ * Ключом служит выполненный SQL вместе со значениями параметров, поэтому результат зависит от формы запроса
+ * и значений, но не от способа их передачи. Для каждой таблицы, из которой читает запрос, запоминаются зависящие
+ * от нее кеши; изменяющий запрос, выполненный через библиотеку, очищает кеши всех затронутых таблиц.
+ * <p>
+ * Чтобы результат, прочитанный до изменения, не попал в кеш после очистки, у кеша метода есть счетчик поколений:
+ * результат, во время загрузки которого кеш был очищен, удаляется сразу после сохранения.
+ * <p>
+ * Закешированный результат разделяется между вызовами, поэтому списки и строки-карты сохраняются
+ * неизменяемыми копиями, а типы строк ограничиваются записями и неизменяемыми значениями
+ * (проверяется в {@link MethodDescriptor}). Массивы, коллекции и даты в значениях параметров копируются в ключ,
+ * чтобы ключ сравнивался по содержимому и не менялся после сохранения.
+ */
+@Component
+public class ResultCache {
+
+    /** Значение, которым в кеше представляется пустой результат */
+    private static final Object NULL_RESULT = new Object();
+
+    private final ResultCacheProperties properties;
+
+    /** Кеши результатов по методам */
+    private final Map<Method, MethodCache> caches = new ConcurrentHashMap<>();
+
+    /** Кеши методов, зависящие от таблицы */
+    private final Map<String, Set<MethodCache>> dependents = new ConcurrentHashMap<>();
+
+    @Autowired
+    public ResultCache(DynamicQueryProperties properties) {
+        this.properties = properties.getResultCache();
+    }
+
+    /**
+     * Возвращает результат запроса из кеша метода или выполняет запрос и сохраняет результат.
+     *
+     * @param descriptor описание метода с аннотацией {@link CacheResult}
+     * @param query      обработанный запрос
+     * @param loader     выполнение запроса
+     * @return результат запроса
+     * @throws QueryProcessingException если запрос метода не является SELECT
+     */
+    public Object get(MethodDescriptor descriptor, ProcessedQuery query, Supplier<Object> loader) {
+        return get(descriptor, query, -1, loader);
+    }
+
+    /**
+     * Возвращает результат запроса, выполненного на шарде, из кеша метода
+     * или выполняет запрос и сохраняет результат.
+     *
+     * @param descriptor описание метода с аннотацией {@link CacheResult}
+     * @param query      обработанный запрос
+     * @param shard      номер шарда или -1, если запрос выполняется не на одном шарде
+     * @param loader     выполнение запроса
+     * @return результат запроса
+     * @throws QueryProcessingException если запрос метода не является SELECT
+     */
+    public Object get(MethodDescriptor descriptor, ProcessedQuery query, int shard, Supplier<Object> loader) {
+        MethodCache cache = caches.get(descriptor.method());
+        if (cache == null) {
+            cache = caches.computeIfAbsent(descriptor.method(), method -> createCache(descriptor, query.template()));
+        }
+
+        ResultKey key = new ResultKey(query.sql(), keyValues(query.parameters()), shard);
+        Object cached = cache.results.getIfPresent(key);
+        if (cached != null) {
+            return cached == NULL_RESULT ? null : cached;
+        }
+
+        long generation = cache.generation.get();
+        Object result = freeze(loader.get());
+        cache.results.put(key, result != null ? result : NULL_RESULT);
+        if (cache.generation.get() != generation) {
+            // Кеш очищен во время загрузки: результат мог быть прочитан до изменения
+            cache.results.invalidate(key);
+        }
+        return result;
+    }
+
+    /**
+     * Очищает кеши методов, читающих таблицы изменяющего запроса.
+     * Если таблицы запроса неизвестны, очищаются все кеши.
+     *
+     * @param template шаблон выполненного изменяющего запроса
+     */
+    public void invalidate(QueryTemplate template) {
+        if (caches.isEmpty()) {
+            return;
+        }
+        Set<String> tables = template.getTables();
+        if (tables == null) {
+            invalidateAll();
+        } else {
+            invalidateTables(tables);
+        }
+    }
+
+    /**
+     * Очищает кеши методов, читающих указанные таблицы.
+     *
+     * @param tables имена таблиц, возможно с указанием схемы
+     */
+    public void invalidateTables(Collection<String> tables) {
+        if (caches.isEmpty()) {
+            return;
+        }
+        for (String table : tables) {
+            Set<MethodCache> tableDependents = dependents.get(QueryTemplate.normalizeTableName(table));
+            if (tableDependents != null) {
+                tableDependents.forEach(MethodCache::invalidate);
+            }
+        }
+    }
+
+    /**
+     * Очищает кеши результатов всех методов.
+     */
+    public void invalidateAll() {
+        caches.values().forEach(MethodCache::invalidate);
+    }
+
+    /**
+     * Создает кеш метода и регистрирует его как зависящий от таблиц запроса.
+     */
+    private MethodCache createCache(MethodDescriptor descriptor, QueryTemplate template) {
+        if (template.getStatementType() != StatementType.SELECT || template.getTables() == null) {
+            throw new QueryProcessingException("Аннотация @CacheResult применима только к SELECT-запросам: "
+                    + descriptor.displayName());
+        }
+
+        CacheResult annotation = descriptor.cacheResult();
+        Duration ttl = annotation.ttlMillis() > 0 ? Duration.ofMillis(annotation.ttlMillis()) : properties.getTtl();
+        long maxSize = annotation.maxSize() > 0 ? annotation.maxSize() : properties.getMaxSize();
+
+        MethodCache cache = new MethodCache(Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .build());
+        for (String table : template.getTables()) {
+            dependents.computeIfAbsent(table, key -> ConcurrentHashMap.newKeySet()).add(cache);
+        }
+        return cache;
+    }
+
+    /**
+     * Копирует значения параметров для ключа: массивы и коллекции становятся неизменяемыми списками,
+     * даты копируются. Если таких значений нет, список используется без копирования.
+     */
+    private static List<Object> keyValues(List<Object> parameters) {
+        List<Object> values = null;
+        for (int i = 0; i < parameters.size(); i++) {
+            Object value = parameters.get(i);
+            Object keyValue = keyValue(value);
+            if (keyValue != value && values == null) {
+                values = new ArrayList<>(parameters.subList(0, i));
+            }
+            if (values != null) {
+                values.add(keyValue);
+            }
+        }
+        return values != null ? Collections.unmodifiableList(values) : parameters;
+    }
+
+    private static Object keyValue(Object value) {
+        return switch (value) {
+            case byte[] bytes -> ByteBuffer.wrap(bytes.clone());
+            case Date date -> date.clone();
+            case Object collection when CollectionParameterUtils.isCollection(collection) ->
+                    keyValues(new ArrayList<>(CollectionParameterUtils.toList(collection)));
+            case null, default -> value;
+        };
+    }
+
+    /**
+     * Возвращает результат в виде, безопасном для разделения между вызовами:
+     * список и строки-карты заменяются неизменяемыми копиями.
+     */
+    private static Object freeze(Object result) {
+        return switch (result) {
+            case List<?> rows -> {
+                List<Object> frozen = new ArrayList<>(rows.size());
+                for (Object row : rows) {
+                    frozen.add(freeze(row));
+                }
+                yield Collections.unmodifiableList(frozen);
+            }
+            case Map<?, ?> row -> Collections.unmodifiableMap(new LinkedHashMap<>(row));
+            case null, default -> result;
+        };
+    }
+
+    /**
+     * Ключ результата: выполненный SQL, значения параметров и номер шарда.
+     */
+    private record ResultKey(String sql, List<Object> parameters, int shard) {
+    }
+
+    /**
+     * Кеш результатов одного метода.
+     */
+    private static final class MethodCache {
+
+        private final Cache<ResultKey, Object> results;
+
+        /** Счетчик очисток кеша */
+        private final AtomicLong generation = new AtomicLong();
+
+        private MethodCache(Cache<ResultKey, Object> results) {
+            this.results = results;
+        }
+
+        private void invalidate() {
+            generation.incrementAndGet();
+            results.invalidateAll();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.koroli.dynamicqueryforge.client;
+
+import java.time.Duration;
+
+/**
+ * Снимок счетчиков клиента базы данных.
+ *
+ * @param connectionAcquisitions количество полученных из пула соединений
+ * @param poolWaitTime           суммарное время ожидания соединения из пула
+ * @param statementCacheHits     количество запросов, подготовленный запрос для которых найден в кеше
+ * @param statementCacheMisses   количество запросов, подготовленных заново
+ */
+public record ClientStatistics(
+        long connectionAcquisitions,
+        Duration poolWaitTime,
+        long statementCacheHits,
+        long statementCacheMisses
+) {
+
+    /**
+     * Возвращает среднее время ожидания соединения из пула.
+     */
+    public Duration averagePoolWaitTime() {
+        return connectionAcquisitions == 0
+                ? Duration.ZERO
+                : poolWaitTime.dividedBy(connectionAcquisitions);
+    }
+
+    /**
+     * Возвращает долю запросов, подготовленный запрос для которых найден в кеше.
+     */
+    public double statementCacheHitRate() {
+        long total = statementCacheHits + statementCacheMisses;
+        return total == 0 ? 0.0 : (double) statementCacheHits / total;
+    }
+}
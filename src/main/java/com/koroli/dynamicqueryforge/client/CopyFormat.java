@@ -0,0 +1,12 @@
+package com.koroli.dynamicqueryforge.client;
+
+/**
+ * Формат данных, передаваемых в {@code COPY FROM STDIN}.
+ */
+public enum CopyFormat {
+    /** Текстовый CSV: поддерживает любые типы столбцов, значения передаются в виде строк */
+    CSV,
+
+    /** Двоичный формат PostgreSQL: быстрее CSV, но поддерживает только распространенные типы фиксированного вида */
+    BINARY
+}
@@ -1,17 +1,52 @@
 package com.koroli.dynamicqueryforge.client;
 
-import net.sf.jsqlparser.statement.Statement;
+import com.koroli.dynamicqueryforge.processing.ProcessedBatch;
+import com.koroli.dynamicqueryforge.processing.ProcessedQuery;
+import com.koroli.dynamicqueryforge.result.BatchResult;
+import com.koroli.dynamicqueryforge.result.ColumnarResult;
+import com.koroli.dynamicqueryforge.result.ResultCursor;
 
 public interface DatabaseClient {
 
     /**
      * Выполняет SQL-запрос и возвращает результат.
+     * Для изменяющих запросов без RETURNING результатом является количество измененных строк.
      *
-     * @param statement      SQL-запрос в виде объекта {@link Statement}
+     * @param query          обработанный SQL-запрос
      * @param resultClass    класс, в который нужно мапить результат
      * @param isSingleResult флаг, указывающий, нужно ли вернуть единичный объект
      * @param <T>            тип результата
      * @return список объектов или единичный объект
      */
-    <T> Object execute(Statement statement, Class<T> resultClass, boolean isSingleResult);
-}
\ No newline at end of file
+    <T> Object execute(ProcessedQuery query, Class<T> resultClass, boolean isSingleResult);
+
+    /**
+     * Выполняет SQL-запрос и открывает курсор, читающий строки результата по мере перебора.
+     *
+     * @param query       обработанный SQL-запрос
+     * @param resultClass класс, в который нужно мапить каждую строку
+     * @param <T>         тип элементов результата
+     * @return открытый курсор, удерживающий соединение до своего закрытия
+     */
+    <T> ResultCursor<T> openCursor(ProcessedQuery query, Class<T> resultClass);
+
+    /**
+     * Выполняет SQL-запрос и раскладывает результат по столбцам массивов примитивов.
+     *
+     * @param query обработанный SQL-запрос
+     * @return колоночный результат
+     */
+    ColumnarResult executeColumnar(ProcessedQuery query);
+
+    /**
+     * Выполняет изменяющий запрос пакетами JDBC в одной транзакции.
+     *
+     * @param batch       пакет строк, сгруппированный по форме запроса
+     * @param chunkSize   количество строк в одной порции {@code executeBatch} (не меньше 1)
+     * @param resultClass класс, в который нужно мапить строки RETURNING
+     * @param <T>         тип строк RETURNING
+     * @return количество измененных строк для каждого элемента пакета и строки RETURNING
+     * @throws IllegalArgumentException если размер порции меньше 1
+     */
+    <T> BatchResult<T> executeBatch(ProcessedBatch batch, int chunkSize, Class<T> resultClass);
+}
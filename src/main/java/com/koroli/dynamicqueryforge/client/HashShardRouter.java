@@ -0,0 +1,31 @@
+package com.koroli.dynamicqueryforge.client;
+
+import org.springframework.context.annotation.Fallback;
+import org.springframework.stereotype.Component;
+
+import java.math.BigInteger;
+
+/**
+ * Выбор шарда по остатку от деления хеша ключа на количество шардов.
+ * <p>
+ * Целочисленные ключи разных типов ({@code Integer}, {@code Long}, {@code Short}) с одинаковым
+ * значением попадают на один шард. Хеш остальных ключей берется из {@link Object#hashCode()},
+ * поэтому он должен быть стабилен между запусками (как у {@link String}, {@link java.util.UUID}).
+ */
+@Component
+@Fallback
+public class HashShardRouter implements ShardRouter {
+
+    @Override
+    public int shardFor(Object key, int shardCount) {
+        long hash = switch (key) {
+            case Long value -> value;
+            case Integer value -> value;
+            case Short value -> value;
+            case Byte value -> value;
+            case BigInteger value when value.bitLength() < Long.SIZE -> value.longValue();
+            default -> key.hashCode();
+        };
+        return (int) Math.floorMod(hash, (long) shardCount);
+    }
+}
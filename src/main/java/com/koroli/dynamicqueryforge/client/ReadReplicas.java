@@ -0,0 +1,36 @@
+package com.koroli.dynamicqueryforge.client;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Реплики основной базы данных, на которые направляются SELECT-запросы.
+ * <p>
+ * Чтобы включить маршрутизацию чтения, объявите бин этого типа:
+ * <pre>{@code
+ * @Bean
+ * ReadReplicas readReplicas() {
+ *     return ReadReplicas.of(replicaDataSource1, replicaDataSource2);
+ * }
+ * }</pre>
+ * Изменяющие запросы, запросы внутри транзакции и методы с аннотацией
+ * {@link com.koroli.dynamicqueryforge.annotation.UsePrimary} выполняются на основной базе данных.
+ *
+ * @param dataSources источники соединений реплик
+ */
+public record ReadReplicas(List<DataSource> dataSources) {
+
+    public ReadReplicas {
+        dataSources = List.copyOf(dataSources);
+    }
+
+    /**
+     * Создает описание реплик.
+     *
+     * @param dataSources источники соединений реплик
+     * @return описание реплик
+     */
+    public static ReadReplicas of(DataSource... dataSources) {
+        return new ReadReplicas(List.of(dataSources));
+    }
+}
@@ -0,0 +1,21 @@
+package com.koroli.dynamicqueryforge.client;
+
+/**
+ * Снимок состояния реплики для чтения.
+ *
+ * @param index               порядковый номер реплики в {@link ReadReplicas}
+ * @param available           реплика принимает запросы
+ * @param outstanding         количество выданных и не закрытых соединений
+ * @param consecutiveFailures количество ошибок получения соединения подряд
+ * @param acquisitions        количество выданных соединений
+ * @param failures            общее количество ошибок получения соединения
+ */
+public record ReplicaStatus(
+        int index,
+        boolean available,
+        int outstanding,
+        int consecutiveFailures,
+        long acquisitions,
+        long failures
+) {
+}
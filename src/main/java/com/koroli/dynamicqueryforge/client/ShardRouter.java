@@ -0,0 +1,20 @@
+package com.koroli.dynamicqueryforge.client;
+
+/**
+ * Выбор шарда по значению ключа шардирования.
+ * <p>
+ * Реализация по умолчанию - {@link HashShardRouter}; ее можно заменить собственным бином этого типа,
+ * например для распределения по диапазонам ключей или по справочнику арендаторов.
+ */
+@FunctionalInterface
+public interface ShardRouter {
+
+    /**
+     * Возвращает номер шарда для значения ключа.
+     *
+     * @param key        значение ключа шардирования (не null)
+     * @param shardCount количество шардов
+     * @return номер шарда от 0 до {@code shardCount - 1}
+     */
+    int shardFor(Object key, int shardCount);
+}
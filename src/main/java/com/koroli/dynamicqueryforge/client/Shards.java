@@ -0,0 +1,40 @@
+package com.koroli.dynamicqueryforge.client;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Шарды базы данных, между которыми распределяются запросы методов с параметром
+ * {@link com.koroli.dynamicqueryforge.annotation.ShardKey}.
+ * <p>
+ * Чтобы включить шардирование, объявите бин этого типа:
+ * <pre>{@code
+ * @Bean
+ * Shards shards() {
+ *     return Shards.of(shardDataSource0, shardDataSource1, shardDataSource2);
+ * }
+ * }</pre>
+ * Методы без ключа шардирования выполняются на основной базе данных.
+ * Порядок источников определяет номера шардов и не должен меняться без переноса данных.
+ *
+ * @param dataSources источники соединений шардов в порядке их номеров
+ */
+public record Shards(List<DataSource> dataSources) {
+
+    public Shards {
+        dataSources = List.copyOf(dataSources);
+        if (dataSources.isEmpty()) {
+            throw new IllegalArgumentException("Не задан ни один шард");
+        }
+    }
+
+    /**
+     * Создает описание шардов.
+     *
+     * @param dataSources источники соединений шардов в порядке их номеров
+     * @return описание шардов
+     */
+    public static Shards of(DataSource... dataSources) {
+        return new Shards(List.of(dataSources));
+    }
+}
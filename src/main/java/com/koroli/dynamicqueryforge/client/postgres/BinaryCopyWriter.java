@@ -0,0 +1,195 @@
+package com.koroli.dynamicqueryforge.client.postgres;
+
+import com.koroli.dynamicqueryforge.exception.QueryProcessingException;
+import com.koroli.dynamicqueryforge.exception.UnsupportedParameterTypeException;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.*;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Кодирует строки в двоичный формат команды {@code COPY ... (FORMAT binary)}.
+ * <p>
+ * Кодировщик каждого столбца выбирается по типу столбца в базе данных, поэтому неподдерживаемый тип
+ * обнаруживается до начала загрузки. Поддерживаются {@code int2}, {@code int4}, {@code int8},
+ * {@code float4}, {@code float8}, {@code bool}, строковые типы, {@code uuid}, {@code bytea},
+ * {@code date}, {@code timestamp} и {@code timestamptz}.
+ */
+final class BinaryCopyWriter implements CopyRowWriter {
+
+    private static final byte[] SIGNATURE = {'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0};
+
+    /** Начало отсчета дат и времени в PostgreSQL */
+    private static final LocalDate POSTGRES_EPOCH_DATE = LocalDate.of(2000, 1, 1);
+    private static final LocalDateTime POSTGRES_EPOCH = POSTGRES_EPOCH_DATE.atStartOfDay();
+    private static final Instant POSTGRES_EPOCH_INSTANT = POSTGRES_EPOCH.toInstant(ZoneOffset.UTC);
+
+    private final FieldEncoder[] encoders;
+    private DataOutputStream out;
+
+    /**
+     * @param columns   имена столбцов в порядке их перечисления в команде COPY
+     * @param typeNames имена типов столбцов в базе данных
+     * @throws QueryProcessingException если тип столбца не поддерживается двоичным форматом
+     */
+    BinaryCopyWriter(List<String> columns, List<String> typeNames) {
+        this.encoders = new FieldEncoder[typeNames.size()];
+        for (int i = 0; i < encoders.length; i++) {
+            encoders[i] = encoderFor(columns.get(i), typeNames.get(i));
+        }
+    }
+
+    @Override
+    public void open(OutputStream stream) throws IOException {
+        out = new DataOutputStream(stream);
+        out.write(SIGNATURE);
+        out.writeInt(0); // флаги
+        out.writeInt(0); // длина расширения заголовка
+    }
+
+    @Override
+    public void writeRow(Object[] values) throws IOException {
+        out.writeShort(values.length);
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] == null) {
+                out.writeInt(-1);
+            } else {
+                encoders[i].encode(out, values[i]);
+            }
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        out.writeShort(-1);
+        out.flush();
+    }
+
+    /**
+     * Возвращает кодировщик для типа столбца.
+     */
+    private static FieldEncoder encoderFor(String column, String typeName) {
+        return switch (typeName) {
+            case "int2" -> (out, value) -> {
+                out.writeInt(Short.BYTES);
+                out.writeShort(toShort(value));
+            };
+            case "int4", "serial" -> (out, value) -> {
+                out.writeInt(Integer.BYTES);
+                out.writeInt(Math.toIntExact(asNumber(value).longValue()));
+            };
+            case "int8", "bigserial" -> (out, value) -> {
+                out.writeInt(Long.BYTES);
+                out.writeLong(asNumber(value).longValue());
+            };
+            case "float4" -> (out, value) -> {
+                out.writeInt(Float.BYTES);
+                out.writeFloat(asNumber(value).floatValue());
+            };
+            case "float8" -> (out, value) -> {
+                out.writeInt(Double.BYTES);
+                out.writeDouble(asNumber(value).doubleValue());
+            };
+            case "bool" -> (out, value) -> {
+                out.writeInt(1);
+                out.writeByte(cast(value, Boolean.class) ? 1 : 0);
+            };
+            case "text", "varchar", "bpchar", "name" -> (out, value) -> {
+                byte[] bytes = (value instanceof Enum<?> enumValue ? enumValue.name() : value.toString())
+                        .getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            };
+            case "uuid" -> (out, value) -> {
+                UUID uuid = cast(value, UUID.class);
+                out.writeInt(16);
+                out.writeLong(uuid.getMostSignificantBits());
+                out.writeLong(uuid.getLeastSignificantBits());
+            };
+            case "bytea" -> (out, value) -> {
+                byte[] bytes = cast(value, byte[].class);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            };
+            case "date" -> (out, value) -> {
+                out.writeInt(Integer.BYTES);
+                out.writeInt((int) ChronoUnit.DAYS.between(POSTGRES_EPOCH_DATE, toLocalDate(value)));
+            };
+            case "timestamp" -> (out, value) -> {
+                out.writeInt(Long.BYTES);
+                out.writeLong(ChronoUnit.MICROS.between(POSTGRES_EPOCH, toLocalDateTime(value)));
+            };
+            case "timestamptz" -> (out, value) -> {
+                out.writeInt(Long.BYTES);
+                out.writeLong(ChronoUnit.MICROS.between(POSTGRES_EPOCH_INSTANT, toInstant(value)));
+            };
+            default -> throw new QueryProcessingException(
+                    "Тип столбца " + column + " (" + typeName + ") не поддерживается двоичным форматом COPY, используйте CSV");
+        };
+    }
+
+    private static short toShort(Object value) {
+        long longValue = asNumber(value).longValue();
+        if (longValue < Short.MIN_VALUE || longValue > Short.MAX_VALUE) {
+            throw new ArithmeticException("short overflow: " + longValue);
+        }
+        return (short) longValue;
+    }
+
+    private static Number asNumber(Object value) {
+        return cast(value, Number.class);
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        return switch (value) {
+            case LocalDate localDate -> localDate;
+            case Date sqlDate -> sqlDate.toLocalDate();
+            default -> throw unsupported(value, "date");
+        };
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        return switch (value) {
+            case LocalDateTime localDateTime -> localDateTime;
+            case Timestamp timestamp -> timestamp.toLocalDateTime();
+            default -> throw unsupported(value, "timestamp");
+        };
+    }
+
+    private static Instant toInstant(Object value) {
+        return switch (value) {
+            case Instant instant -> instant;
+            case OffsetDateTime offsetDateTime -> offsetDateTime.toInstant();
+            case ZonedDateTime zonedDateTime -> zonedDateTime.toInstant();
+            case Timestamp timestamp -> timestamp.toInstant();
+            default -> throw unsupported(value, "timestamptz");
+        };
+    }
+
+    private static <T> T cast(Object value, Class<T> type) {
+        if (!type.isInstance(value)) {
+            throw unsupported(value, type.getSimpleName());
+        }
+        return type.cast(value);
+    }
+
+    private static UnsupportedParameterTypeException unsupported(Object value, String target) {
+        return new UnsupportedParameterTypeException(
+                "Значение типа " + value.getClass().getName() + " не может быть записано как " + target);
+    }
+
+    /**
+     * Кодировщик значения столбца: записывает длину и содержимое поля.
+     */
+    @FunctionalInterface
+    private interface FieldEncoder {
+        void encode(DataOutputStream out, Object value) throws IOException;
+    }
+}
@@ -0,0 +1,50 @@
+package com.koroli.dynamicqueryforge.client.postgres;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Iterator;
+
+/**
+ * Передача строк на сервер через {@code COPY FROM STDIN} средствами драйвера PostgreSQL.
+ * <p>
+ * Драйвер - необязательная зависимость, поэтому его классы используются только здесь:
+ * класс загружается при первой загрузке через COPY, и {@link PostgresClient} работает без драйвера
+ * с любым другим источником соединений.
+ */
+final class CopyIn {
+
+    private CopyIn() {
+    }
+
+    /**
+     * Выполняет COPY, записывая строки в буфер ограниченного размера. При ошибке загрузка отменяется.
+     *
+     * @param connection соединение с PostgreSQL
+     * @param copySql    запрос {@code COPY ... FROM STDIN}
+     * @param bufferSize размер буфера в байтах
+     * @param rowWriter  кодировщик строк
+     * @param rows       значения столбцов для каждой строки
+     * @return количество загруженных строк
+     */
+    static long copy(Connection connection, String copySql, int bufferSize, CopyRowWriter rowWriter,
+                     Iterator<Object[]> rows) throws SQLException, IOException {
+        PGCopyOutputStream out = new PGCopyOutputStream(connection.unwrap(PGConnection.class), copySql, bufferSize);
+        try {
+            rowWriter.open(out);
+            while (rows.hasNext()) {
+                rowWriter.writeRow(rows.next());
+            }
+            rowWriter.finish();
+            return out.endCopy();
+        } catch (IOException | SQLException | RuntimeException e) {
+            if (out.isActive()) {
+                out.cancelCopy();
+            }
+            throw e;
+        }
+    }
+}
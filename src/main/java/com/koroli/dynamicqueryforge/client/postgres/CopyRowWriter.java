@@ -0,0 +1,33 @@
+package com.koroli.dynamicqueryforge.client.postgres;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Кодировщик строк для потока {@code COPY FROM STDIN}.
+ */
+interface CopyRowWriter {
+
+    /**
+     * Начинает запись в поток данных COPY, записывая служебный заголовок формата.
+     *
+     * @param out поток данных COPY
+     * @throws IOException если не удалось записать данные в поток
+     */
+    void open(OutputStream out) throws IOException;
+
+    /**
+     * Записывает одну строку.
+     *
+     * @param values значения столбцов в порядке их перечисления в команде COPY
+     * @throws IOException если не удалось записать данные в поток
+     */
+    void writeRow(Object[] values) throws IOException;
+
+    /**
+     * Завершает поток данных, записывая служебный хвост формата.
+     *
+     * @throws IOException если не удалось записать данные в поток
+     */
+    void finish() throws IOException;
+}
@@ -0,0 +1,69 @@
+package com.koroli.dynamicqueryforge.client.postgres;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+
+/**
+ * Кодирует строки в CSV-формат команды {@code COPY ... (FORMAT csv)}.
+ * <p>
+ * NULL передается пустым полем без кавычек, строки всегда заключаются в кавычки,
+ * поэтому пустая строка отличается от NULL. Массив байт передается в виде {@code \x...}.
+ */
+final class CsvCopyWriter implements CopyRowWriter {
+
+    private Writer writer;
+
+    @Override
+    public void open(OutputStream out) {
+        writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void writeRow(Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeValue(values[i]);
+        }
+        writer.write('\n');
+    }
+
+    @Override
+    public void finish() throws IOException {
+        writer.flush();
+    }
+
+    /**
+     * Записывает значение одного поля.
+     */
+    private void writeValue(Object value) throws IOException {
+        switch (value) {
+            case null -> { }
+            case Number number -> writer.write(number.toString());
+            case Boolean bool -> writer.write(bool ? "t" : "f");
+            case byte[] bytes -> writer.write("\\x" + HexFormat.of().formatHex(bytes));
+            case Enum<?> enumValue -> writeQuoted(enumValue.name());
+            default -> writeQuoted(value.toString());
+        }
+    }
+
+    /**
+     * Записывает значение в кавычках, удваивая кавычки внутри него.
+     */
+    private void writeQuoted(String text) throws IOException {
+        writer.write('"');
+        int start = 0;
+        for (int i = text.indexOf('"'); i >= 0; i = text.indexOf('"', start)) {
+            writer.write(text, start, i - start + 1);
+            writer.write('"');
+            start = i + 1;
+        }
+        writer.write(text, start, text.length() - start);
+        writer.write('"');
+    }
+}
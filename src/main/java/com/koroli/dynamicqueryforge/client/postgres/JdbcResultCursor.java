@@ -0,0 +1,143 @@
+package com.koroli.dynamicqueryforge.client.postgres;
+
+import com.koroli.dynamicqueryforge.exception.QueryProcessingException;
+import com.koroli.dynamicqueryforge.mapping.RowMapper;
+import com.koroli.dynamicqueryforge.result.ResultCursor;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.NoSuchElementException;
+
+/**
+ * Курсор, читающий строки из открытого {@link ResultSet} по мере перебора.
+ * Запрос выполняется в транзакции с отключенным автокоммитом, чтобы драйвер
+ * получал строки порциями размера {@code fetchSize}, а не загружал весь результат.
+ *
+ * @param <T> тип элементов результата
+ */
+final class JdbcResultCursor<T> implements ResultCursor<T> {
+
+    private final Connection connection;
+    private final StatementLease lease;
+    private final ResultSet resultSet;
+    private final RowMapper<T> rowMapper;
+
+    private boolean advanced;
+    private boolean hasNext;
+    private boolean closed;
+
+    JdbcResultCursor(Connection connection, StatementLease lease, ResultSet resultSet, RowMapper<T> rowMapper) {
+        this.connection = connection;
+        this.lease = lease;
+        this.resultSet = resultSet;
+        this.rowMapper = rowMapper;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            return false;
+        }
+        if (!advanced) {
+            try {
+                hasNext = resultSet.next();
+                advanced = true;
+            } catch (SQLException e) {
+                ReplicaRouter.reportFailure(connection, e);
+                fail();
+                throw new QueryProcessingException("Ошибка при чтении результата SQL-запроса", e);
+            }
+            if (!hasNext) {
+                close();
+            }
+        }
+        return hasNext;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        advanced = false;
+        try {
+            return rowMapper.mapRow(resultSet);
+        } catch (SQLException e) {
+            ReplicaRouter.reportFailure(connection, e);
+            fail();
+            throw new QueryProcessingException("Ошибка при чтении результата SQL-запроса", e);
+        } catch (RuntimeException e) {
+            fail();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            resultSet.close();
+        } catch (SQLException e) {
+            lease.markFailed();
+        }
+        release(connection, lease, false);
+    }
+
+    /**
+     * Закрывает курсор после ошибки, откатывая транзакцию.
+     */
+    private void fail() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            resultSet.close();
+        } catch (SQLException ignored) {
+            // Соединение в любом случае будет освобождено
+        }
+        lease.markFailed();
+        release(connection, lease, true);
+    }
+
+    /**
+     * Завершает транзакцию курсора, возвращает соединению автокоммит и освобождает его.
+     *
+     * @param connection соединение курсора
+     * @param lease      подготовленный запрос (может быть null)
+     * @param failed     признак ошибки: транзакция откатывается вместо фиксации
+     */
+    static void release(Connection connection, StatementLease lease, boolean failed) {
+        SQLException failure = null;
+        try {
+            if (lease != null) {
+                lease.statement().setFetchSize(0);
+                lease.close();
+            }
+        } catch (SQLException e) {
+            failure = e;
+        }
+        try {
+            if (failed || failure != null) {
+                connection.rollback();
+            } else {
+                connection.commit();
+            }
+            connection.setAutoCommit(true);
+        } catch (SQLException e) {
+            failure = failure == null ? e : failure;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            failure = failure == null ? e : failure;
+        }
+        if (failure != null && !failed) {
+            throw new QueryProcessingException("Ошибка при закрытии курсора SQL-запроса", failure);
+        }
+    }
+}
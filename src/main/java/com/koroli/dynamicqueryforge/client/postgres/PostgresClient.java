@@ -1,62 +1,560 @@
 package com.koroli.dynamicqueryforge.client.postgres;
 
+import com.koroli.dynamicqueryforge.client.ClientStatistics;
+import com.koroli.dynamicqueryforge.client.CopyFormat;
 import com.koroli.dynamicqueryforge.client.DatabaseClient;
+import com.koroli.dynamicqueryforge.client.ReadReplicas;
+import com.koroli.dynamicqueryforge.client.ReplicaStatus;
+import com.koroli.dynamicqueryforge.config.DynamicQueryProperties;
 import com.koroli.dynamicqueryforge.exception.QueryProcessingException;
+import com.koroli.dynamicqueryforge.jfr.QueryEvents;
+import com.koroli.dynamicqueryforge.jfr.QueryExecutionEvent;
+import com.koroli.dynamicqueryforge.mapping.RowMapper;
+import com.koroli.dynamicqueryforge.mapping.RowMappers;
+import com.koroli.dynamicqueryforge.processing.ProcessedBatch;
+import com.koroli.dynamicqueryforge.processing.ProcessedQuery;
+import com.koroli.dynamicqueryforge.result.BatchResult;
+import com.koroli.dynamicqueryforge.result.ColumnarResult;
+import com.koroli.dynamicqueryforge.result.ResultCursor;
+import com.koroli.dynamicqueryforge.template.CopyTarget;
+import com.koroli.dynamicqueryforge.util.ParameterBindingUtils;
 import com.koroli.dynamicqueryforge.util.ResultMappingUtils;
-import net.sf.jsqlparser.statement.Statement;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import javax.sql.DataSource;
+import java.io.IOException;
 import java.sql.*;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Клиент для выполнения SQL-запросов к базе данных PostgreSQL.
+ * <p>
+ * Соединение берется из пула на время одного запроса и всегда возвращается обратно.
+ * Подготовленные запросы кешируются отдельно для каждого физического соединения
+ * (LRU по тексту SQL-запроса), поэтому повторные вызовы не подготавливают запрос заново.
+ * <p>
+ * Если в контексте есть бин {@link ReadReplicas}, SELECT-запросы вне транзакции выполняются на репликах;
+ * при недоступности всех реплик запрос выполняется на основной базе данных.
  */
 @Component
 public class PostgresClient implements DatabaseClient {
 
     private final DataSource dataSource;
+    private final int statementCacheSize;
+    private final int fetchSize;
+
+    /** Кеши подготовленных запросов по физическим соединениям */
+    private final Map<Connection, StatementCache> statementCaches = new ConcurrentHashMap<>();
+
+    private final LongAdder connectionAcquisitions = new LongAdder();
+    private final LongAdder poolWaitNanos = new LongAdder();
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+
+    /** Маршрутизация SELECT-запросов на реплики (null, если реплики не настроены) */
+    private final ReplicaRouter replicaRouter;
+
+    public PostgresClient(DataSource dataSource, DynamicQueryProperties properties) {
+        this(dataSource, properties, null);
+    }
 
     @Autowired
-    public PostgresClient(DataSource dataSource) {
+    public PostgresClient(DataSource dataSource, DynamicQueryProperties properties,
+                          ObjectProvider<ReadReplicas> replicasProvider) {
         this.dataSource = dataSource;
+        this.statementCacheSize = properties.getClient().getStatementCacheSize();
+        this.fetchSize = properties.getClient().getFetchSize();
+
+        ReadReplicas replicas = replicasProvider != null ? replicasProvider.getIfAvailable() : null;
+        this.replicaRouter = replicas != null && !replicas.dataSources().isEmpty()
+                ? new ReplicaRouter(replicas, properties.getReplicas())
+                : null;
+    }
+
+    @Override
+    public <T> Object execute(ProcessedQuery query, Class<T> resultClass, boolean isSingleResult) {
+        QueryExecutionEvent event = new QueryExecutionEvent();
+        event.begin();
+        boolean statementCacheHit = false;
+        long rowCount = 0;
+
+        try (Connection connection = acquireConnection(query)) {
+            try (StatementLease lease = prepareStatement(connection, query.sql())) {
+                statementCacheHit = lease.cacheHit();
+                try {
+                    PreparedStatement statement = lease.statement();
+                    ParameterBindingUtils.bindAll(statement, query.parameters());
+                    if (!query.returnsRows()) {
+                        rowCount = statement.executeLargeUpdate();
+                        return ResultMappingUtils.mapUpdateCount(rowCount, resultClass);
+                    }
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        Object result = ResultMappingUtils.mapResult(resultSet, resultClass, isSingleResult);
+                        rowCount = result instanceof List<?> rows ? rows.size() : result != null ? 1 : 0;
+                        return result;
+                    }
+                } catch (SQLException | RuntimeException e) {
+                    lease.markFailed();
+                    throw e;
+                }
+            } catch (SQLException e) {
+                ReplicaRouter.reportFailure(connection, e);
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new QueryProcessingException("Ошибка при выполнении SQL-запроса", e);
+        } finally {
+            commitExecution(event, "execute", query.template().getFingerprint(), statementCacheHit, rowCount);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Запрос выполняется с отключенным автокоммитом и размером выборки {@code fetchSize},
+     * поэтому драйвер читает строки порциями через серверный курсор.
+     */
+    @Override
+    public <T> ResultCursor<T> openCursor(ProcessedQuery query, Class<T> resultClass) {
+        QueryExecutionEvent event = new QueryExecutionEvent();
+        event.begin();
+
+        Connection connection;
+        try {
+            connection = acquireConnection(query);
+        } catch (SQLException e) {
+            throw new QueryProcessingException("Ошибка при выполнении SQL-запроса", e);
+        }
+
+        StatementLease lease = null;
+        try {
+            connection.setAutoCommit(false);
+            lease = prepareStatement(connection, query.sql());
+
+            ResultSet resultSet = executeWithFetchSize(lease, query);
+            RowMapper<T> rowMapper = RowMappers.forLayout(resultClass, resultSet.getMetaData());
+
+            commitExecution(event, "cursor", query.template().getFingerprint(), lease.cacheHit(), -1);
+            return new JdbcResultCursor<>(connection, lease, resultSet, rowMapper);
+        } catch (SQLException | RuntimeException e) {
+            if (e instanceof SQLException sqlException) {
+                ReplicaRouter.reportFailure(connection, sqlException);
+            }
+            if (lease != null) {
+                lease.markFailed();
+            }
+            JdbcResultCursor.release(connection, lease, true);
+            if (e instanceof SQLException sqlException) {
+                throw new QueryProcessingException("Ошибка при выполнении SQL-запроса", sqlException);
+            }
+            throw (RuntimeException) e;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Строки читаются порциями через серверный курсор и сразу раскладываются по столбцам,
+     * поэтому в памяти не накапливаются ни строки драйвера, ни упакованные значения.
+     */
+    @Override
+    public ColumnarResult executeColumnar(ProcessedQuery query) {
+        QueryExecutionEvent event = new QueryExecutionEvent();
+        event.begin();
+
+        Connection connection;
+        try {
+            connection = acquireConnection(query);
+        } catch (SQLException e) {
+            throw new QueryProcessingException("Ошибка при выполнении SQL-запроса", e);
+        }
+
+        StatementLease lease = null;
+        boolean failed = true;
+        try {
+            connection.setAutoCommit(false);
+            lease = prepareStatement(connection, query.sql());
+
+            ColumnarResult result;
+            try (ResultSet resultSet = executeWithFetchSize(lease, query)) {
+                result = ColumnarResult.from(resultSet);
+            }
+            failed = false;
+            commitExecution(event, "columnar", query.template().getFingerprint(), lease.cacheHit(), result.rowCount());
+            return result;
+        } catch (SQLException e) {
+            ReplicaRouter.reportFailure(connection, e);
+            throw new QueryProcessingException("Ошибка при выполнении SQL-запроса", e);
+        } finally {
+            if (failed && lease != null) {
+                lease.markFailed();
+            }
+            JdbcResultCursor.release(connection, lease, failed);
+        }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Пакетные запросы подготавливаются без кеша: для запросов с RETURNING драйвер возвращает
+     * строки через {@link Statement#getGeneratedKeys()}. Строки RETURNING возвращаются в порядке
+     * исходных элементов, если каждый элемент вернул ровно одну строку, иначе - в порядке выполнения.
+     * При ошибке транзакция откатывается целиком.
+     */
     @Override
-    public <T> Object execute(Statement queryStatement, Class<T> resultClass, boolean isSingleResult) {
-        List<Map<String, Object>> resultSetData;
-        try (PreparedStatement statement = dataSource.getConnection()
-                .prepareStatement(queryStatement.toString());
+    public <T> BatchResult<T> executeBatch(ProcessedBatch batch, int chunkSize, Class<T> resultClass) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Размер порции пакетного выполнения должен быть положительным: " + chunkSize);
+        }
+        boolean returnsRows = batch.template().returnsRows();
+        int[] updateCounts = new int[batch.rowCount()];
+        Object[] rowsByIndex = returnsRows ? new Object[batch.rowCount()] : null;
+        List<T> rowsInExecutionOrder = returnsRows ? new ArrayList<>(batch.rowCount()) : null;
+        boolean ordered = true;
+
+        QueryExecutionEvent event = new QueryExecutionEvent();
+        event.begin();
+
+        try (Connection connection = acquireConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                for (ProcessedBatch.Group group : batch.groups()) {
+                    int[] rowIndexes = group.rowIndexes();
+                    try (PreparedStatement statement = returnsRows
+                            ? connection.prepareStatement(group.sql(), Statement.RETURN_GENERATED_KEYS)
+                            : connection.prepareStatement(group.sql())
+                    ) {
+                        for (int from = 0; from < rowIndexes.length; from += chunkSize) {
+                            int to = Math.min(rowIndexes.length, from + chunkSize);
+                            for (int i = from; i < to; i++) {
+                                ParameterBindingUtils.bindAll(statement, group.parameters().get(i));
+                                statement.addBatch();
+                            }
+
+                            int[] chunkCounts = statement.executeBatch();
+                            for (int i = 0; i < chunkCounts.length && from + i < to; i++) {
+                                updateCounts[rowIndexes[from + i]] = chunkCounts[i];
+                            }
+
+                            if (returnsRows) {
+                                List<T> chunkRows = readGeneratedRows(statement, resultClass);
+                                rowsInExecutionOrder.addAll(chunkRows);
+                                if (chunkRows.size() == to - from) {
+                                    for (int i = 0; i < chunkRows.size(); i++) {
+                                        rowsByIndex[rowIndexes[from + i]] = chunkRows.get(i);
+                                    }
+                                } else {
+                                    ordered = false;
+                                }
+                            }
+                        }
+                    }
+                }
+                connection.commit();
+                connection.setAutoCommit(autoCommit);
+            } catch (SQLException | RuntimeException e) {
+                // Ошибки отката и восстановления автокоммита не должны скрыть ошибку пакета
+                try {
+                    connection.rollback();
+                    connection.setAutoCommit(autoCommit);
+                } catch (SQLException rollbackError) {
+                    e.addSuppressed(rollbackError);
+                }
+                throw e;
+            }
+        } catch (SQLException e) {
+            throw new QueryProcessingException("Ошибка при пакетном выполнении SQL-запроса", e);
+        }
+        commitExecution(event, "batch", batch.template().getFingerprint(), false, Arrays.stream(updateCounts).asLongStream().sum());
+
+        if (!returnsRows) {
+            return new BatchResult<>(updateCounts, null);
+        }
+        @SuppressWarnings("unchecked")
+        List<T> rows = ordered ? (List<T>) Arrays.asList(rowsByIndex) : rowsInExecutionOrder;
+        return new BatchResult<>(updateCounts, rows);
+    }
+
+    /**
+     * Загружает строки в таблицу через {@code COPY FROM STDIN}.
+     * <p>
+     * Строки кодируются по одной в буфер ограниченного размера, который отправляется на сервер
+     * по мере заполнения, поэтому загружаемые данные целиком в памяти не накапливаются.
+     * Для двоичного формата типы столбцов запрашиваются до начала загрузки, и неподдерживаемый тип
+     * приводит к ошибке до отправки данных. При ошибке загрузка отменяется.
+     *
+     * @param target     целевая таблица и столбцы
+     * @param rows       значения столбцов для каждой строки
+     * @param format     формат передаваемых данных
+     * @param bufferSize размер буфера в байтах
+     * @return количество загруженных строк
+     */
+    public long copyIn(CopyTarget target, Iterator<Object[]> rows, CopyFormat format, int bufferSize) {
+        QueryExecutionEvent event = new QueryExecutionEvent();
+        event.begin();
+
+        try (Connection connection = acquireConnection()) {
+            CopyRowWriter rowWriter = switch (format) {
+                case CSV -> new CsvCopyWriter();
+                case BINARY -> new BinaryCopyWriter(target.columns(), columnTypeNames(connection, target));
+            };
+
+            String copySql = target.copySql(format.name().toLowerCase(Locale.ROOT));
+            long copied = CopyIn.copy(connection, copySql, bufferSize, rowWriter, rows);
+            commitExecution(event, "copy", QueryEvents.fingerprint(), false, copied);
+            return copied;
+        } catch (SQLException | IOException e) {
+            throw new QueryProcessingException("Ошибка при загрузке данных через COPY", e);
+        }
+    }
+
+    /**
+     * Запрашивает план выполнения запроса через {@code EXPLAIN (ANALYZE off, FORMAT JSON)}.
+     * Запрос не выполняется; план строится с теми же значениями параметров на отдельном соединении.
+     *
+     * @param query обработанный запрос
+     * @return план выполнения в формате JSON
+     */
+    public String explain(ProcessedQuery query) {
+        try (Connection connection = acquireConnection(query);
+             PreparedStatement statement = connection.prepareStatement("EXPLAIN (ANALYZE off, FORMAT JSON) " + query.sql())
         ) {
+            ParameterBindingUtils.bindAll(statement, query.parameters());
+            StringBuilder plan = new StringBuilder();
             try (ResultSet resultSet = statement.executeQuery()) {
-                resultSetData = processResultSet(resultSet);
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1));
+                }
             }
+            return plan.toString();
         } catch (SQLException e) {
-            throw new QueryProcessingException("Ошибка при выполнении SQL-запроса", e);
+            throw new QueryProcessingException("Ошибка при получении плана SQL-запроса", e);
+        }
+    }
+
+    /**
+     * Подготавливает запросы на одном соединении, проверяя их на сервере.
+     * Подготовленные запросы остаются в кеше физического соединения.
+     *
+     * @param sqlQueries SQL-запросы с плейсхолдерами {@code ?}
+     * @return ошибки подготовки по текстам запросов (пустая карта, если все запросы корректны)
+     */
+    public Map<String, SQLException> prepareAll(Collection<String> sqlQueries) {
+        Map<String, SQLException> failures = new LinkedHashMap<>();
+        try (Connection connection = acquireConnection()) {
+            for (String sql : sqlQueries) {
+                try (StatementLease lease = prepareStatement(connection, sql)) {
+                    try {
+                        // Драйвер отправляет запрос на сервер только при запросе метаданных или выполнении
+                        lease.statement().getMetaData();
+                    } catch (SQLException e) {
+                        lease.markFailed();
+                        failures.put(sql, e);
+                    }
+                } catch (SQLException e) {
+                    failures.put(sql, e);
+                }
+            }
+        } catch (SQLException e) {
+            throw new QueryProcessingException("Ошибка при получении соединения для подготовки запросов", e);
+        }
+        return failures;
+    }
+
+    /**
+     * Возвращает снимок счетчиков клиента.
+     *
+     * @return статистика пула соединений и кеша подготовленных запросов
+     */
+    public ClientStatistics getStatistics() {
+        return new ClientStatistics(
+                connectionAcquisitions.sum(),
+                Duration.ofNanos(poolWaitNanos.sum()),
+                statementCacheHits.sum(),
+                statementCacheMisses.sum());
+    }
+
+    /**
+     * Завершает событие JFR выполнения запроса и добавляет строки к текущему вызову метода репозитория.
+     */
+    private static void commitExecution(QueryExecutionEvent event, String operation, String fingerprint,
+                                        boolean statementCacheHit, long rowCount) {
+        event.end();
+        if (rowCount > 0) {
+            QueryEvents.recordRows(rowCount);
+        }
+        if (event.shouldCommit()) {
+            event.setRepositoryMethod(QueryEvents.repositoryMethod());
+            event.setFingerprint(fingerprint);
+            event.setOperation(operation);
+            event.setStatementCacheHit(statementCacheHit);
+            event.setRowCount(rowCount);
+            event.commit();
         }
-        return ResultMappingUtils.mapResult(resultSetData, resultClass, isSingleResult);
     }
 
     /**
-     * Обрабатывает ResultSet и возвращает список строк в виде мап.
+     * Привязывает параметры и выполняет запрос с размером выборки {@code fetchSize}.
+     * Соединение должно быть переведено в режим без автокоммита.
      */
-    private List<Map<String, Object>> processResultSet(ResultSet resultSet) throws SQLException {
-        List<Map<String, Object>> results = new ArrayList<>();
-        ResultSetMetaData metaData = resultSet.getMetaData();
-        int columnCount = metaData.getColumnCount();
-        while (resultSet.next()) {
-            Map<String, Object> row = new HashMap<>();
-            for (int i = 1; i <= columnCount; i++) {
-                String columnName = metaData.getColumnLabel(i);
-                row.put(columnName, resultSet.getObject(i));
+    private ResultSet executeWithFetchSize(StatementLease lease, ProcessedQuery query) throws SQLException {
+        PreparedStatement statement = lease.statement();
+        statement.setFetchSize(fetchSize);
+        ParameterBindingUtils.bindAll(statement, query.parameters());
+        return statement.executeQuery();
+    }
+
+    /**
+     * Читает строки RETURNING последней порции пакета.
+     */
+    private <T> List<T> readGeneratedRows(PreparedStatement statement, Class<T> resultClass) throws SQLException {
+        try (ResultSet generated = statement.getGeneratedKeys()) {
+            List<T> rows = new ArrayList<>();
+            if (generated.next()) {
+                RowMapper<T> rowMapper = RowMappers.forLayout(resultClass, generated.getMetaData());
+                do {
+                    rows.add(rowMapper.mapRow(generated));
+                } while (generated.next());
             }
-            results.add(row);
+            return rows;
+        }
+    }
+
+    /**
+     * Запрашивает имена типов целевых столбцов загрузки без выполнения запроса.
+     */
+    private List<String> columnTypeNames(Connection connection, CopyTarget target) throws SQLException {
+        String sql = "SELECT " + String.join(", ", target.columns()) + " FROM " + target.table() + " WHERE false";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            ResultSetMetaData metaData = statement.getMetaData();
+            List<String> typeNames = new ArrayList<>(metaData.getColumnCount());
+            for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                typeNames.add(metaData.getColumnTypeName(i));
+            }
+            return typeNames;
+        }
+    }
+
+    /**
+     * Возвращает состояние реплик для чтения.
+     *
+     * @return состояние каждой реплики (пустой список, если реплики не настроены)
+     */
+    public List<ReplicaStatus> getReplicaStatuses() {
+        return replicaRouter != null ? replicaRouter.statuses() : List.of();
+    }
+
+    /**
+     * Проверяет, выполняется ли текущий поток внутри транзакции Spring.
+     */
+    public boolean isTransactionActive() {
+        return ReplicaRouter.isTransactionActive();
+    }
+
+    /**
+     * Выбирает базу данных для запроса в текущем потоке и закрепляет ее за запросом: основную базу данных,
+     * если запрос изменяет данные, выполняется в транзакции или доступных реплик нет, иначе одну из реплик.
+     * Нужен, когда связанные запросы выполняются в разных потоках и должны читать одну и ту же базу данных.
+     * Если закрепленная реплика станет недоступна до выполнения, запрос выполнится на другой реплике.
+     *
+     * @param query обработанный запрос
+     * @return запрос с закрепленной базой данных
+     */
+    public ProcessedQuery pinRoute(ProcessedQuery query) {
+        if (!query.isReplicaEligible()) {
+            return query.onPrimary();
+        }
+        if (query.replica() != ProcessedQuery.ANY_REPLICA) {
+            return query;
+        }
+        if (replicaRouter == null || ReplicaRouter.isTransactionActive()) {
+            return query.onPrimary();
+        }
+        int replica = replicaRouter.choose();
+        return replica >= 0 ? query.onReplica(replica) : query.onPrimary();
+    }
+
+    /**
+     * Получает соединение для выполнения запроса.
+     * Запрос только на чтение вне транзакции выполняется на реплике, если она доступна
+     * (на закрепленной за запросом, если она выбрана заранее), остальные запросы - на основной базе данных.
+     */
+    private Connection acquireConnection(ProcessedQuery query) throws SQLException {
+        if (replicaRouter == null || !query.isReplicaEligible() || ReplicaRouter.isTransactionActive()) {
+            return acquireConnection();
+        }
+
+        long start = System.nanoTime();
+        Connection connection = replicaRouter.acquire(query.replica());
+        if (connection == null) {
+            // Доступных реплик нет: запрос выполняется на основной базе данных
+            return acquireConnection();
+        }
+        poolWaitNanos.add(System.nanoTime() - start);
+        connectionAcquisitions.increment();
+        return connection;
+    }
+
+    /**
+     * Получает соединение из пула, учитывая время ожидания.
+     */
+    private Connection acquireConnection() throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = dataSource.getConnection();
+        poolWaitNanos.add(System.nanoTime() - start);
+        connectionAcquisitions.increment();
+        return connection;
+    }
+
+    /**
+     * Возвращает подготовленный запрос из кеша физического соединения или подготавливает его заново.
+     */
+    private StatementLease prepareStatement(Connection connection, String sql) throws SQLException {
+        if (statementCacheSize <= 0) {
+            statementCacheMisses.increment();
+            return new StatementLease(connection.prepareStatement(sql), null, sql, false);
+        }
+
+        StatementCache cache = statementCacheFor(connection);
+        PreparedStatement statement = cache.get(sql);
+        boolean cacheHit = statement != null;
+        if (cacheHit) {
+            statementCacheHits.increment();
+        } else {
+            statementCacheMisses.increment();
+            statement = cache.prepare(sql);
+        }
+        return new StatementLease(statement, cache, sql, cacheHit);
+    }
+
+    /**
+     * Возвращает кеш подготовленных запросов физического соединения, скрытого за прокси пула.
+     * Кеши закрытых соединений удаляются при появлении нового физического соединения.
+     */
+    private StatementCache statementCacheFor(Connection connection) throws SQLException {
+        Connection physical = connection.isWrapperFor(Connection.class)
+                ? connection.unwrap(Connection.class)
+                : connection;
+
+        StatementCache cache = statementCaches.get(physical);
+        if (cache == null) {
+            statementCaches.values().removeIf(StatementCache::isConnectionClosed);
+            cache = new StatementCache(physical, statementCacheSize);
+            statementCaches.put(physical, cache);
         }
-        return results;
+        return cache;
     }
 }
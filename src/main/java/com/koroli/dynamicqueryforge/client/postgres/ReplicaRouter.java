@@ -0,0 +1,313 @@
+package com.koroli.dynamicqueryforge.client.postgres;
+
+import com.koroli.dynamicqueryforge.client.ReadReplicas;
+import com.koroli.dynamicqueryforge.client.ReplicaStatus;
+import com.koroli.dynamicqueryforge.config.DynamicQueryProperties.ReplicaBalancing;
+import com.koroli.dynamicqueryforge.config.DynamicQueryProperties.ReplicaProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.ClassUtils;
+
+import javax.sql.DataSource;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Выбор реплики для SELECT-запроса с учетом доступности реплик.
+ * <p>
+ * Реплика, на которой подряд {@code failureThreshold} раз не удалось получить соединение или соединение
+ * завершилось ошибкой связи (SQLSTATE класса 08), исключается на {@code retryInterval}. По истечении интервала
+ * реплика снова получает запросы; первое успешное соединение возвращает ее в работу.
+ * Если доступных реплик нет, запрос выполняется на основной базе данных.
+ */
+final class ReplicaRouter {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReplicaRouter.class);
+
+    private static final String TRANSACTION_MANAGER_CLASS =
+            "org.springframework.transaction.support.TransactionSynchronizationManager";
+
+    /** Проверка активной транзакции Spring (null, если spring-tx отсутствует) */
+    private static final MethodHandle TRANSACTION_ACTIVE = findTransactionActive();
+
+    private final List<Route> routes;
+    private final ReplicaBalancing balancing;
+    private final int failureThreshold;
+    private final long retryIntervalNanos;
+    private final AtomicInteger nextRoute = new AtomicInteger();
+
+    ReplicaRouter(ReadReplicas replicas, ReplicaProperties properties) {
+        List<Route> created = new ArrayList<>(replicas.dataSources().size());
+        for (int i = 0; i < replicas.dataSources().size(); i++) {
+            created.add(new Route(i, replicas.dataSources().get(i)));
+        }
+        this.routes = List.copyOf(created);
+        this.balancing = properties.getBalancing();
+        this.failureThreshold = Math.max(1, properties.getFailureThreshold());
+        this.retryIntervalNanos = properties.getRetryInterval().toNanos();
+    }
+
+    /**
+     * Проверяет, выполняется ли текущий поток внутри транзакции Spring.
+     * Запросы внутри транзакции должны видеть ее изменения, поэтому выполняются на основной базе данных.
+     */
+    static boolean isTransactionActive() {
+        if (TRANSACTION_ACTIVE == null) {
+            return false;
+        }
+        try {
+            return (boolean) TRANSACTION_ACTIVE.invokeExact();
+        } catch (Throwable e) {
+            return false;
+        }
+    }
+
+    /**
+     * Выбирает доступную реплику, не получая соединения. Позволяет закрепить реплику за запросом
+     * в вызывающем потоке, а соединение получить позже в другом.
+     *
+     * @return номер реплики или -1, если доступных реплик нет
+     */
+    int choose() {
+        Route route = select();
+        return route != null ? route.index : -1;
+    }
+
+    /**
+     * Получает соединение с доступной реплики. Реплики перебираются, пока одна из них не выдаст соединение.
+     *
+     * @return соединение с репликой или null, если доступных реплик нет
+     */
+    Connection acquire() {
+        return acquire(-1);
+    }
+
+    /**
+     * Получает соединение с указанной реплики, а если она недоступна - с любой другой доступной реплики.
+     *
+     * @param preferred номер реплики, выбранной заранее (-1 - любая реплика)
+     * @return соединение с репликой или null, если доступных реплик нет
+     */
+    Connection acquire(int preferred) {
+        if (preferred >= 0 && preferred < routes.size()) {
+            Route route = routes.get(preferred);
+            if (route.isAvailable(System.nanoTime())) {
+                Connection connection = connect(route);
+                if (connection != null) {
+                    return connection;
+                }
+            }
+        }
+
+        int attempts = routes.size();
+        for (int attempt = 0; attempt < attempts; attempt++) {
+            Route route = select();
+            if (route == null) {
+                return null;
+            }
+            Connection connection = connect(route);
+            if (connection != null) {
+                return connection;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Учитывает ошибку выполнения запроса на соединении, полученном из маршрутизатора.
+     * Запросы выполняются на физическом соединении в обход обертки, поэтому ошибки связи
+     * (SQLSTATE класса 08) из них передаются сюда явно. Для других соединений ничего не делает.
+     *
+     * @param connection соединение, на котором выполнялся запрос
+     * @param error      ошибка выполнения запроса
+     */
+    static void reportFailure(Connection connection, SQLException error) {
+        if (connection != null && Proxy.isProxyClass(connection.getClass())
+                && Proxy.getInvocationHandler(connection) instanceof TrackedConnection tracked) {
+            tracked.report(error);
+        }
+    }
+
+    /**
+     * Возвращает состояние всех реплик.
+     */
+    List<ReplicaStatus> statuses() {
+        long now = System.nanoTime();
+        return routes.stream()
+                .map(route -> new ReplicaStatus(route.index, route.isAvailable(now), route.outstanding.get(),
+                        route.consecutiveFailures.get(), route.acquisitions.sum(), route.failures.sum()))
+                .toList();
+    }
+
+    /**
+     * Получает соединение с реплики, учитывая успех или ошибку.
+     *
+     * @return отслеживаемое соединение или null, если соединение получить не удалось
+     */
+    private Connection connect(Route route) {
+        try {
+            Connection connection = route.dataSource.getConnection();
+            route.recordSuccess();
+            route.outstanding.incrementAndGet();
+            route.acquisitions.increment();
+            return route.track(connection);
+        } catch (SQLException | RuntimeException e) {
+            route.recordFailure(e);
+            return null;
+        }
+    }
+
+    /**
+     * Выбирает доступную реплику согласно способу балансировки.
+     */
+    private Route select() {
+        long now = System.nanoTime();
+        return switch (balancing) {
+            case ROUND_ROBIN -> {
+                int start = nextRoute.getAndIncrement();
+                for (int i = 0; i < routes.size(); i++) {
+                    Route route = routes.get(Math.floorMod(start + i, routes.size()));
+                    if (route.isAvailable(now)) {
+                        yield route;
+                    }
+                }
+                yield null;
+            }
+            case LEAST_OUTSTANDING -> {
+                Route best = null;
+                for (Route route : routes) {
+                    if (route.isAvailable(now) && (best == null || route.outstanding.get() < best.outstanding.get())) {
+                        best = route;
+                    }
+                }
+                yield best;
+            }
+        };
+    }
+
+    /**
+     * Проверяет, является ли ошибка ошибкой связи с базой данных (SQLSTATE класса 08).
+     */
+    private static boolean isConnectionFailure(SQLException error) {
+        return error.getSQLState() != null && error.getSQLState().startsWith("08");
+    }
+
+    private static MethodHandle findTransactionActive() {
+        ClassLoader classLoader = ReplicaRouter.class.getClassLoader();
+        if (!ClassUtils.isPresent(TRANSACTION_MANAGER_CLASS, classLoader)) {
+            return null;
+        }
+        try {
+            Class<?> manager = ClassUtils.forName(TRANSACTION_MANAGER_CLASS, classLoader);
+            return MethodHandles.publicLookup()
+                    .findStatic(manager, "isActualTransactionActive", MethodType.methodType(boolean.class));
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+
+    /**
+     * Реплика и ее состояние.
+     */
+    private final class Route {
+
+        private final int index;
+        private final DataSource dataSource;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        private final LongAdder acquisitions = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+
+        /** Момент, до которого реплика исключена (0 - реплика доступна) */
+        private volatile long excludedUntil;
+
+        private Route(int index, DataSource dataSource) {
+            this.index = index;
+            this.dataSource = dataSource;
+        }
+
+        private boolean isAvailable(long now) {
+            long until = excludedUntil;
+            return until == 0 || now - until >= 0;
+        }
+
+        private void recordSuccess() {
+            consecutiveFailures.set(0);
+            if (excludedUntil != 0) {
+                excludedUntil = 0;
+                LOGGER.info("Реплика #{} снова доступна", index);
+            }
+        }
+
+        private void recordFailure(Exception error) {
+            failures.increment();
+            if (consecutiveFailures.incrementAndGet() >= failureThreshold) {
+                excludedUntil = System.nanoTime() + retryIntervalNanos;
+                LOGGER.warn("Реплика #{} исключена на {} мс после {} ошибок подряд: {}", index,
+                        retryIntervalNanos / 1_000_000, consecutiveFailures.get(), error.getMessage());
+            }
+        }
+
+        /**
+         * Оборачивает соединение, чтобы при закрытии уменьшить счетчик незакрытых соединений
+         * и учитывать ошибки связи с репликой.
+         */
+        private Connection track(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, new TrackedConnection(this, connection));
+        }
+    }
+
+    /**
+     * Соединение с репликой, выданное маршрутизатором. Помнит свою реплику, поэтому ошибки связи,
+     * возникшие в запросах на физическом соединении, тоже учитываются в состоянии реплики.
+     */
+    private static final class TrackedConnection implements InvocationHandler {
+
+        private final Route route;
+        private final Connection connection;
+        private boolean closed;
+
+        /** Последняя учтенная ошибка: не дает учесть одну ошибку дважды */
+        private volatile SQLException reported;
+
+        private TrackedConnection(Route route, Connection connection) {
+            this.route = route;
+            this.connection = connection;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if ("close".equals(method.getName()) && !closed) {
+                closed = true;
+                route.outstanding.decrementAndGet();
+            }
+            try {
+                return method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                if (e.getCause() instanceof SQLException sqlException) {
+                    report(sqlException);
+                }
+                throw e.getCause();
+            }
+        }
+
+        private void report(SQLException error) {
+            if (isConnectionFailure(error) && reported != error) {
+                reported = error;
+                route.recordFailure(error);
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.koroli.dynamicqueryforge.client.postgres;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU-кеш подготовленных запросов одного физического соединения.
+ * Ключом служит текст SQL-запроса, то есть его отрендеренная форма.
+ * <p>
+ * Физическое соединение одновременно используется только одним потоком,
+ * поэтому кеш не синхронизируется.
+ */
+class StatementCache {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StatementCache.class);
+
+    private final Connection connection;
+    private final Map<String, PreparedStatement> statements;
+
+    StatementCache(Connection connection, int maxSize) {
+        this.connection = connection;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() <= maxSize) {
+                    return false;
+                }
+                closeQuietly(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Возвращает закешированный подготовленный запрос.
+     *
+     * @param sql текст SQL-запроса
+     * @return подготовленный запрос или null, если его нет в кеше или он уже закрыт
+     * @throws SQLException если не удалось проверить состояние запроса
+     */
+    PreparedStatement get(String sql) throws SQLException {
+        PreparedStatement statement = statements.get(sql);
+        if (statement != null && statement.isClosed()) {
+            statements.remove(sql);
+            return null;
+        }
+        return statement;
+    }
+
+    /**
+     * Подготавливает запрос на физическом соединении и помещает его в кеш.
+     *
+     * @param sql текст SQL-запроса
+     * @return подготовленный запрос
+     * @throws SQLException если не удалось подготовить запрос
+     */
+    PreparedStatement prepare(String sql) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql);
+        statements.put(sql, statement);
+        return statement;
+    }
+
+    /**
+     * Удаляет запрос из кеша и закрывает его.
+     *
+     * @param sql текст SQL-запроса
+     */
+    void evict(String sql) {
+        PreparedStatement statement = statements.remove(sql);
+        if (statement != null) {
+            closeQuietly(statement);
+        }
+    }
+
+    /**
+     * Проверяет, закрыто ли физическое соединение, которому принадлежит кеш.
+     */
+    boolean isConnectionClosed() {
+        try {
+            return connection.isClosed();
+        } catch (SQLException e) {
+            return true;
+        }
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            LOGGER.debug("Failed to close cached statement", e);
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.koroli.dynamicqueryforge.client.postgres;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Подготовленный запрос, выданный на время одного выполнения.
+ * При закрытии закешированный запрос очищается и остается в кеше,
+ * а незакешированный или завершившийся ошибкой запрос закрывается.
+ */
+final class StatementLease implements AutoCloseable {
+
+    private final PreparedStatement statement;
+    private final StatementCache cache;
+    private final String sql;
+    private final boolean cacheHit;
+    private boolean failed;
+
+    StatementLease(PreparedStatement statement, StatementCache cache, String sql, boolean cacheHit) {
+        this.statement = statement;
+        this.cache = cache;
+        this.sql = sql;
+        this.cacheHit = cacheHit;
+    }
+
+    PreparedStatement statement() {
+        return statement;
+    }
+
+    /**
+     * Проверяет, был ли подготовленный запрос найден в кеше соединения.
+     */
+    boolean cacheHit() {
+        return cacheHit;
+    }
+
+    /**
+     * Помечает запрос как завершившийся ошибкой: он будет удален из кеша при закрытии.
+     */
+    void markFailed() {
+        failed = true;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        if (cache == null) {
+            statement.close();
+        } else if (failed) {
+            cache.evict(sql);
+        } else {
+            statement.clearParameters();
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.koroli.dynamicqueryforge.config;
 
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Positive;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -7,6 +9,10 @@ import org.springframework.boot.context.properties.NestedConfigurationProperty;
 import org.springframework.stereotype.Component;
 import org.springframework.validation.annotation.Validated;
 
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
 @Getter
 @Setter
 @Component
@@ -18,19 +24,199 @@ public class DynamicQueryProperties {
     @NestedConfigurationProperty
     private CacheProperties cache = new CacheProperties();
 
+    /** Настройки клиента базы данных */
+    @Valid
+    @NestedConfigurationProperty
+    private ClientProperties client = new ClientProperties();
+
+    /** Настройки асинхронного выполнения методов репозитория */
+    @NestedConfigurationProperty
+    private AsyncProperties async = new AsyncProperties();
+
+    /** Настройки разбора запросов при запуске приложения */
+    @NestedConfigurationProperty
+    private WarmupProperties warmup = new WarmupProperties();
+
+    /** Настройки кеша результатов методов с аннотацией @CacheResult */
+    @NestedConfigurationProperty
+    private ResultCacheProperties resultCache = new ResultCacheProperties();
+
+    /** Настройки маршрутизации чтения на реплики */
+    @NestedConfigurationProperty
+    private ReplicaProperties replicas = new ReplicaProperties();
+
+    /** Настройки шардирования */
+    @NestedConfigurationProperty
+    private ShardingProperties sharding = new ShardingProperties();
+
+    /** Настройки журнала медленных запросов */
+    @NestedConfigurationProperty
+    private SlowQueryProperties slowQuery = new SlowQueryProperties();
+
     /** Включение логирования выполняемых запросов */
     private boolean logQueries = false;
 
+    /** Способ передачи значений параметров в SQL-запрос */
+    private ParameterMode parameterMode = ParameterMode.INLINE;
+
+    /**
+     * Максимальное количество плейсхолдеров, в которые разворачивается параметр-коллекция в IN
+     * (коллекция большего размера передается одним массивом через {@code = ANY(...)})
+     */
+    private int inListMaxExpansion = 64;
+
     /**
      * Настройки кеширования
      */
     @Getter
     @Setter
     public static class CacheProperties {
-        /** Максимальное количество элементов */
-        private int maxSize = 100;
+        /** Максимальное количество элементов (по умолчанию 100; не задается вместе с max-weight) */
+        private Integer maxSize;
+
+        /**
+         * Максимальный суммарный вес шаблонов - количество узлов деревьев запросов
+         * (0 - не задан, кеш ограничивается max-size)
+         */
+        private long maxWeight = 0;
+
+        /** Время хранения шаблона после последнего обращения (null - без ограничения) */
+        private Duration expireAfterAccess;
 
         /** Флаг включения/отключения логирования удаления элемента из кэша */
         private boolean logEvictions = false;
     }
-}
\ No newline at end of file
+
+    /**
+     * Настройки клиента базы данных
+     */
+    @Getter
+    @Setter
+    public static class ClientProperties {
+        /** Максимальное количество подготовленных запросов в кеше одного соединения (0 - кеш отключен) */
+        private int statementCacheSize = 64;
+
+        /** Количество строк, получаемых за одно обращение к базе данных при потоковом чтении результата */
+        private int fetchSize = 1000;
+
+        /** Количество строк в одной порции пакетного выполнения ({@code executeBatch}) */
+        @Positive
+        private int batchSize = 500;
+
+        /** Размер буфера в байтах для загрузки данных через {@code COPY FROM STDIN} */
+        @Positive
+        private int copyBufferSize = 65536;
+    }
+
+    /**
+     * Настройки асинхронного выполнения
+     */
+    @Getter
+    @Setter
+    public static class AsyncProperties {
+        /** Максимальное количество одновременно выполняемых асинхронных запросов (по умолчанию равно размеру пула HikariCP) */
+        private int maxConcurrency = 10;
+    }
+
+    /**
+     * Настройки разбора запросов при запуске
+     */
+    @Getter
+    @Setter
+    public static class WarmupProperties {
+        /** Разбор всех запросов репозиториев при запуске приложения */
+        private boolean enabled = false;
+
+        /** Подготовка каждого запроса на соединении с базой данных при запуске (проверяет запросы по схеме) */
+        private boolean prepareStatements = false;
+
+        /** Количество потоков для разбора запросов (0 - по количеству процессоров) */
+        private int parallelism = 0;
+
+        /** Количество самых медленных запросов в итоговом отчете */
+        private int reportSlowest = 10;
+    }
+
+    /**
+     * Настройки кеша результатов
+     */
+    @Getter
+    @Setter
+    public static class ResultCacheProperties {
+        /** Время жизни результата по умолчанию */
+        private Duration ttl = Duration.ofMinutes(1);
+
+        /** Максимальное количество результатов одного метода по умолчанию */
+        private long maxSize = 1000;
+    }
+
+    /**
+     * Настройки маршрутизации чтения на реплики
+     */
+    @Getter
+    @Setter
+    public static class ReplicaProperties {
+        /** Способ выбора реплики для запроса */
+        private ReplicaBalancing balancing = ReplicaBalancing.ROUND_ROBIN;
+
+        /** Количество ошибок получения соединения подряд, после которого реплика исключается */
+        private int failureThreshold = 3;
+
+        /** Время, через которое исключенная реплика снова получает запрос для проверки */
+        private Duration retryInterval = Duration.ofSeconds(10);
+    }
+
+    /**
+     * Настройки шардирования
+     */
+    @Getter
+    @Setter
+    public static class ShardingProperties {
+        /** Выполнение запросов без ключа шардирования на всех шардах с объединением результатов */
+        private boolean scatterEnabled = true;
+    }
+
+    /**
+     * Способ выбора реплики для запроса
+     */
+    public enum ReplicaBalancing {
+        /** Реплики выбираются по очереди */
+        ROUND_ROBIN,
+
+        /** Выбирается реплика с наименьшим количеством незакрытых соединений */
+        LEAST_OUTSTANDING
+    }
+
+    /**
+     * Настройки журнала медленных запросов
+     */
+    @Getter
+    @Setter
+    public static class SlowQueryProperties {
+        /** Порог времени выполнения метода для всех репозиториев (null - журнал выключен) */
+        private Duration threshold;
+
+        /**
+         * Пороги для отдельных методов. Ключ - {@code Repository.method} или полное имя интерфейса с методом,
+         * например {@code method-thresholds[UserRepository.findAll]=200ms}
+         */
+        private Map<String, Duration> methodThresholds = new HashMap<>();
+
+        /** Получение плана медленного запроса через {@code EXPLAIN (FORMAT JSON)} на отдельном соединении */
+        private boolean explain = false;
+
+        /** Максимальное количество планов в минуту */
+        private int explainsPerMinute = 6;
+    }
+
+    /**
+     * Способ передачи значений параметров в SQL-запрос
+     */
+    public enum ParameterMode {
+        /** Значения подставляются в текст запроса в виде SQL-литералов */
+        INLINE,
+
+        /** Значения передаются через плейсхолдеры {@code ?} и привязываются к {@code PreparedStatement} */
+        BIND
+    }
+}
@@ -2,235 +2,361 @@ package com.koroli.dynamicqueryforge.expression;
 
 import net.sf.jsqlparser.expression.Expression;
 
-import com.koroli.dynamicqueryforge.util.ExpressionConverter;
-import lombok.AllArgsConstructor;
+import com.koroli.dynamicqueryforge.util.DeepCloningUtils;
 import net.sf.jsqlparser.expression.BinaryExpression;
+import net.sf.jsqlparser.expression.Function;
 import net.sf.jsqlparser.expression.JdbcNamedParameter;
 import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
 import net.sf.jsqlparser.expression.operators.conditional.OrExpression;
 import net.sf.jsqlparser.expression.operators.relational.*;
 
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.function.BiFunction;
-import java.util.function.Consumer;
+import java.util.Set;
 import java.util.function.Predicate;
-import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
 
 /**
  * Класс для редактирования дерева выражений {@code Expression}.
- * Позволяет модифицировать выражения с учётом значений параметров.
+ * Удаляет из выражения предикаты, зависящие от отсутствующих параметров.
+ * Сами параметры {@link JdbcNamedParameter} остаются в дереве и заполняются значениями при рендеринге.
+ * <p>
+ * Исходное дерево не изменяется: новые узлы создаются только на пути к изменённым выражениям,
+ * а все нетронутые поддеревья разделяются с исходным деревом.
+ * <p>
+ * Параметр-коллекция в списке IN разворачивается в несколько параметров-элементов
+ * с именами {@link #elementParameter(String, int)} либо выносится из списка в сравнение
+ * {@code = ANY(:param)} ({@code <> ALL(:param)} для NOT IN) с одним параметром-массивом.
  */
-@AllArgsConstructor
 public class ExpressionModifier {
 
-    private final Map<String, Object> paramNameToValue;
+    /** Разделитель имени параметра-коллекции и номера элемента */
+    public static final char ELEMENT_SEPARATOR = '#';
+
+    /** Размер разворачивания параметра, не являющегося коллекцией */
+    public static final int NOT_EXPANDED = -1;
+
+    /** Размер разворачивания коллекции, передаваемой одним параметром-массивом */
+    public static final int ARRAY_PARAMETER = 0;
+
+    /** Проверка наличия значения у именованного параметра */
+    private final Predicate<String> parameterPresent;
+
+    /** Количество параметров-элементов, в которые разворачивается параметр в списке IN */
+    private final ToIntFunction<String> expansion;
+
+    public ExpressionModifier(Predicate<String> parameterPresent) {
+        this(parameterPresent, name -> NOT_EXPANDED);
+    }
+
+    /**
+     * @param parameterPresent проверка наличия значения у именованного параметра
+     * @param expansion        количество параметров-элементов для параметра в списке IN:
+     *                         {@link #NOT_EXPANDED}, {@link #ARRAY_PARAMETER} или положительное число
+     */
+    public ExpressionModifier(Predicate<String> parameterPresent, ToIntFunction<String> expansion) {
+        this.parameterPresent = parameterPresent;
+        this.expansion = expansion;
+    }
 
     /**
      * Рекурсивно обходит дерево {@code Expression} и возвращает новое модифицированное выражение.
      *
      * @param expression исходное выражение
-     * @return модифицированное выражение или исходное, если оно не требует изменений
+     * @return модифицированное выражение, исходное, если оно не требует изменений, или null, если оно удалено
      */
     public Expression modify(Expression expression) {
         return switch (expression) {
-            case AndExpression andExpr          -> handleLogicalExpression(andExpr, AndExpression::new);
-            case OrExpression orExpr            -> handleLogicalExpression(orExpr, OrExpression::new);
-            case LikeExpression likeExpr        -> handleLikeExpression(likeExpr);
-            case Between betweenExpr            -> handleBetweenExpression(betweenExpr);
-            case BinaryExpression binaryExpr    -> handleBinaryExpression(binaryExpr);
+            case AndExpression andExpr          -> handleLogicalExpression(andExpr);
+            case OrExpression orExpr            -> handleLogicalExpression(orExpr);
+            case LikeExpression likeExpr        -> handleOperands(likeExpr, likeExpr.getLeftExpression(), likeExpr.getRightExpression());
+            case Between betweenExpr            -> handleOperands(betweenExpr, betweenExpr.getBetweenExpressionStart(), betweenExpr.getBetweenExpressionEnd());
+            case BinaryExpression binaryExpr    -> handleOperands(binaryExpr, binaryExpr.getLeftExpression(), binaryExpr.getRightExpression());
             case InExpression inExpr            -> handleInExpression(inExpr);
 
-            case ExpressionList exprList        -> modifyExpressionList(exprList);
-            case JdbcNamedParameter jdbcParam   -> replaceParameter(jdbcParam);
+            case ExpressionList<?> exprList     -> modifyExpressionList(exprList);
+            case JdbcNamedParameter jdbcParam   -> isPresent(jdbcParam) ? jdbcParam : null;
             default -> expression;
         };
     }
 
     /**
-     * Обрабатывает логическое выражение (AND или OR).
+     * Собирает имена параметров, от наличия которых зависит форма выражения.
+     * Обход повторяет {@link #modify(Expression)}, но не изменяет дерево.
      *
-     * @param expr        логическое выражение
-     * @param constructor функция для создания нового выражения
-     * @return модифицированное выражение или одно из подвыражений, если другое равно null
-     */
-    private Expression handleLogicalExpression(
-            BinaryExpression expr,
-            BiFunction<Expression, Expression, BinaryExpression> constructor
-    ) {
-        Expression left = modify(expr.getLeftExpression());
-        Expression right = modify(expr.getRightExpression());
-
-        if (left == null && right == null) return null;
-
-        if (left == null) return right;
-        if (right == null) return left;
-
-        return constructor.apply(left, right);
+     * @param expression исходное выражение
+     * @param collector  множество, в которое добавляются имена параметров
+     */
+    public static void collectPrunableParameters(Expression expression, Set<String> collector) {
+        switch (expression) {
+            case AndExpression andExpr -> {
+                collectPrunableParameters(andExpr.getLeftExpression(), collector);
+                collectPrunableParameters(andExpr.getRightExpression(), collector);
+            }
+            case OrExpression orExpr -> {
+                collectPrunableParameters(orExpr.getLeftExpression(), collector);
+                collectPrunableParameters(orExpr.getRightExpression(), collector);
+            }
+            case LikeExpression likeExpr -> collectOperands(collector, likeExpr.getLeftExpression(), likeExpr.getRightExpression());
+            case Between betweenExpr -> collectOperands(collector, betweenExpr.getBetweenExpressionStart(), betweenExpr.getBetweenExpressionEnd());
+            case BinaryExpression binaryExpr -> collectOperands(collector, binaryExpr.getLeftExpression(), binaryExpr.getRightExpression());
+            case InExpression inExpr -> {
+                if (inExpr.getRightExpression() instanceof ExpressionList<?> exprList) {
+                    exprList.forEach(expr -> collectOperands(collector, expr));
+                }
+            }
+            case ExpressionList<?> exprList -> exprList.forEach(expr -> collectPrunableParameters(expr, collector));
+            case JdbcNamedParameter jdbcParam -> collector.add(jdbcParam.getName());
+            case null, default -> { }
+        }
     }
 
     /**
-     * Обрабатывает выражение типа LIKE.
+     * Собирает имена параметров, непосредственно входящих в списки IN: такие параметры
+     * могут передаваться коллекциями.
      *
-     * @param likeExpr LIKE выражение
-     * @return модифицированное выражение или null, если параметры отсутствуют
-     */
-    private Expression handleLikeExpression(LikeExpression likeExpr) {
-        try {
-            processParameter(
-                    likeExpr::getRightExpression,
-                    likeExpr::setRightExpression,
-                    null);
-
-            processParameter(
-                    likeExpr::getLeftExpression,
-                    likeExpr::setLeftExpression,
-                    null);
-
-        } catch (IllegalArgumentException e) {
-            return null;
+     * @param expression исходное выражение
+     * @param collector  множество, в которое добавляются имена параметров
+     */
+    public static void collectInListParameters(Expression expression, Set<String> collector) {
+        switch (expression) {
+            case AndExpression andExpr -> {
+                collectInListParameters(andExpr.getLeftExpression(), collector);
+                collectInListParameters(andExpr.getRightExpression(), collector);
+            }
+            case OrExpression orExpr -> {
+                collectInListParameters(orExpr.getLeftExpression(), collector);
+                collectInListParameters(orExpr.getRightExpression(), collector);
+            }
+            case InExpression inExpr -> {
+                if (inExpr.getRightExpression() instanceof ExpressionList<?> exprList && isCopyable(exprList)) {
+                    exprList.forEach(expr -> collectOperands(collector, expr));
+                }
+            }
+            case ExpressionList<?> exprList when isCopyable(exprList) ->
+                    exprList.forEach(expr -> collectInListParameters(expr, collector));
+            case null, default -> { }
         }
-        return likeExpr;
     }
 
     /**
-     * Обрабатывает выражение типа BETWEEN.
+     * Собирает имена параметров, переданных аргументом {@code ANY(:param)} или {@code ALL(:param)}
+     * в сравнениях условия: такие параметры принимают коллекции как массивы SQL.
      *
-     * @param betweenExpr BETWEEN выражение
-     * @return модифицированное выражение или null, если параметры отсутствуют
-     */
-    private Expression handleBetweenExpression(Between betweenExpr) {
-        try {
-            processParameter(
-                    betweenExpr::getBetweenExpressionStart,
-                    betweenExpr::setBetweenExpressionStart,
-                    null);
-
-            processParameter(
-                    betweenExpr::getBetweenExpressionEnd,
-                    betweenExpr::setBetweenExpressionEnd,
-                    null);
-
-        } catch (IllegalArgumentException e) {
-            return null;
+     * @param expression исходное выражение
+     * @param collector  множество, в которое добавляются имена параметров
+     */
+    public static void collectArrayParameters(Expression expression, Set<String> collector) {
+        switch (expression) {
+            case AndExpression andExpr -> {
+                collectArrayParameters(andExpr.getLeftExpression(), collector);
+                collectArrayParameters(andExpr.getRightExpression(), collector);
+            }
+            case OrExpression orExpr -> {
+                collectArrayParameters(orExpr.getLeftExpression(), collector);
+                collectArrayParameters(orExpr.getRightExpression(), collector);
+            }
+            case ComparisonOperator comparison -> {
+                collectArrayArgument(comparison.getLeftExpression(), collector);
+                collectArrayArgument(comparison.getRightExpression(), collector);
+            }
+            case ExpressionList<?> exprList -> exprList.forEach(expr -> collectArrayParameters(expr, collector));
+            case null, default -> { }
         }
-        return betweenExpr;
     }
 
     /**
-     * Обрабатывает бинарное выражение (=, >, < и т.п.).
+     * Возвращает имя параметра-элемента развернутой коллекции.
      *
-     * @param binaryExpr бинарное выражение
-     * @return модифицированное выражение или null, если параметры отсутствуют
-     */
-    private Expression handleBinaryExpression(BinaryExpression binaryExpr) {
-        try {
-            processParameter(
-                    binaryExpr::getRightExpression,
-                    binaryExpr::setRightExpression,
-                    this::isSupportedBinaryExpression);
-
-            processParameter(
-                    binaryExpr::getLeftExpression,
-                    binaryExpr::setLeftExpression,
-                    this::isSupportedBinaryExpression);
-
-        } catch (IllegalArgumentException e) {
-            return null;
-        }
-        return binaryExpr;
+     * @param name  имя параметра-коллекции
+     * @param index номер элемента (начиная с 0)
+     * @return имя параметра-элемента
+     */
+    public static String elementParameter(String name, int index) {
+        return name + ELEMENT_SEPARATOR + index;
     }
 
     /**
-     * Проверяет, относится ли бинарное выражение к поддерживаемым типам (=, >, < и т.п.).
+     * Обрабатывает логическое выражение (AND или OR).
      *
-     * @param expression бинарное выражение
-     * @return true, если выражение поддерживается, иначе false
+     * @param expr логическое выражение
+     * @return исходное выражение, его копия с новыми операндами или одно из подвыражений, если другое равно null
      */
-    private boolean isSupportedBinaryExpression(Expression expression) {
-        return expression instanceof EqualsTo
-                || expression instanceof GreaterThan
-                || expression instanceof GreaterThanEquals
-                || expression instanceof MinorThan
-                || expression instanceof MinorThanEquals;
+    private Expression handleLogicalExpression(BinaryExpression expr) {
+        Expression left = modify(expr.getLeftExpression());
+        Expression right = modify(expr.getRightExpression());
+
+        if (left == null && right == null) return null;
+
+        if (left == null) return right;
+        if (right == null) return left;
+
+        if (left == expr.getLeftExpression() && right == expr.getRightExpression()) return expr;
+
+        BinaryExpression copy = DeepCloningUtils.shallowClone(expr);
+        copy.setLeftExpression(left);
+        copy.setRightExpression(right);
+        return copy;
+    }
+
+    /**
+     * Обрабатывает предикат с операндами-параметрами (LIKE, BETWEEN, =, >, < и т.п.).
+     *
+     * @param predicate предикат
+     * @param operands  операнды предиката, которые могут быть параметрами
+     * @return исходный предикат или null, если хотя бы один параметр отсутствует
+     */
+    private Expression handleOperands(Expression predicate, Expression... operands) {
+        for (Expression operand : operands) {
+            if (operand instanceof JdbcNamedParameter param && !isPresent(param)) {
+                return null;
+            }
+        }
+        return predicate;
     }
 
     /**
      * Обрабатывает выражение типа IN.
      *
      * @param inExpr IN выражение
-     * @return модифицированное выражение или null, если параметры отсутствуют
+     * @return исходное выражение, его копия с сокращённым или развернутым списком,
+     *         сравнение с {@code ANY}/{@code ALL} или null, если параметры отсутствуют
      */
     private Expression handleInExpression(InExpression inExpr) {
-        if (inExpr.getRightExpression() instanceof ExpressionList exprList) {
-            List<Expression> expressions = exprList.getExpressions();
-
-            if (expressions != null) {
-                expressions.removeIf(expr -> expr instanceof JdbcNamedParameter param
-                        && paramNameToValue.get(param.getName()) == null);
-
-                if (expressions.isEmpty()) return null;
+        if (inExpr.getRightExpression() instanceof ExpressionList<?> exprList && isCopyable(exprList)) {
+            List<Expression> expressions = new ArrayList<>(exprList.size());
+            List<JdbcNamedParameter> arrays = new ArrayList<>();
+            boolean changed = false;
+            for (Expression expr : exprList) {
+                if (!(expr instanceof JdbcNamedParameter param)) {
+                    expressions.add(expr);
+                    continue;
+                }
+                if (!isPresent(param)) {
+                    changed = true;
+                    continue;
+                }
+
+                int size = expansion.applyAsInt(param.getName());
+                if (size == ARRAY_PARAMETER) {
+                    arrays.add(param);
+                    changed = true;
+                } else if (size > 0) {
+                    for (int i = 0; i < size; i++) {
+                        expressions.add(new JdbcNamedParameter(elementParameter(param.getName(), i)));
+                    }
+                    changed = true;
+                } else {
+                    expressions.add(expr);
+                }
+            }
 
-                exprList.setExpressions(expressions);
+            if (expressions.isEmpty() && arrays.isEmpty()) return null;
+
+            if (changed) {
+                Expression result = null;
+                if (!expressions.isEmpty()) {
+                    InExpression copy = DeepCloningUtils.shallowClone(inExpr);
+                    copy.setRightExpression(copyExpressionList(exprList, expressions));
+                    result = copy;
+                }
+                // x IN (:a, :ids) -> (x IN (:a) OR x = ANY(:ids)); x NOT IN (...) -> (... AND x <> ALL(:ids))
+                for (JdbcNamedParameter array : arrays) {
+                    Expression comparison = toArrayComparison(inExpr, array);
+                    result = result == null ? comparison
+                            : inExpr.isNot() ? new AndExpression(result, comparison) : new OrExpression(result, comparison);
+                }
+                return result instanceof InExpression || result instanceof ComparisonOperator
+                        ? result
+                        : new ParenthesedExpressionList<>(result);
             }
         }
         return inExpr;
     }
 
+    /**
+     * Заменяет {@code x IN (:param)} на {@code x = ANY(:param)}, а {@code x NOT IN (:param)}
+     * на {@code x <> ALL(:param)}: текст запроса не зависит от размера коллекции.
+     */
+    private static Expression toArrayComparison(InExpression inExpr, JdbcNamedParameter param) {
+        ComparisonOperator comparison = inExpr.isNot() ? new NotEqualsTo() : new EqualsTo();
+        comparison.setLeftExpression(inExpr.getLeftExpression());
+        comparison.setRightExpression(new Function(inExpr.isNot() ? "ALL" : "ANY", param));
+        return comparison;
+    }
+
     /**
      * Обрабатывает список выражений, модифицируя каждое из них.
      *
      * @param exprList список выражений
-     * @return модифицированный список выражений
+     * @return исходный список, его копия с модифицированными элементами или null, если все элементы удалены
      */
-    private Expression modifyExpressionList(ExpressionList exprList) {
-        List<Expression> expressions = (List<Expression>) exprList.getExpressions();
+    private Expression modifyExpressionList(ExpressionList<?> exprList) {
+        if (!isCopyable(exprList)) return exprList;
+
+        List<Expression> modifiedExpressions = new ArrayList<>(exprList.size());
+        boolean changed = false;
+        for (Expression expression : exprList) {
+            Expression modified = modify(expression);
+            if (modified != null) {
+                modifiedExpressions.add(modified);
+            }
+            changed |= modified != expression;
+        }
 
-        List<Expression> modifiedExpressions = expressions.stream()
-                .map(this::modify)
-                .toList();
+        if (!changed) return exprList;
+        if (modifiedExpressions.isEmpty()) return null;
 
-        exprList.setExpressions(modifiedExpressions);
-        return exprList;
+        return copyExpressionList(exprList, modifiedExpressions);
     }
 
     /**
-     * Заменяет параметр {@code JdbcNamedParameter} на его значение.
-     *
-     * @param jdbcParam параметр
-     * @return выражение с подставленным значением или null, если значение отсутствует
+     * Проверяет, может ли список выражений быть пересоздан без потери информации.
+     * Специализированные списки (конструкторы строк, именованные списки) не сокращаются.
      */
-    private Expression replaceParameter(JdbcNamedParameter jdbcParam) {
-        Object paramValue = paramNameToValue.get(jdbcParam.getName());
-        return paramValue != null
-                ? ExpressionConverter.convertParameterValue(paramValue)
-                : null;
+    private static boolean isCopyable(ExpressionList<?> exprList) {
+        return exprList.getClass() == ExpressionList.class || exprList.getClass() == ParenthesedExpressionList.class;
     }
 
     /**
-     * Универсальный метод для обработки параметров в выражениях с дополнительной проверкой.
-     *
-     * @param getter      функция для получения текущего выражения
-     * @param setter      функция для установки нового значения выражения
-     * @param checkMethod функция для проверки выражения (может быть null)
-     * @throws IllegalArgumentException если параметр отсутствует
-     */
-    private void processParameter(
-            Supplier<Expression> getter,
-            Consumer<Expression> setter,
-            Predicate<Expression> checkMethod
-    ) throws IllegalArgumentException {
-
-        Expression expr = getter.get();
-        if (expr instanceof JdbcNamedParameter param) {
-            Object paramValue = paramNameToValue.get(param.getName());
-            if (paramValue == null) {
-                throw new IllegalArgumentException("paramValue is empty");
-            }
+     * Создает новый список выражений того же вида, что и исходный.
+     */
+    private static ExpressionList<Expression> copyExpressionList(ExpressionList<?> original, List<Expression> expressions) {
+        ExpressionList<Expression> copy = original instanceof ParenthesedExpressionList<?>
+                ? new ParenthesedExpressionList<>()
+                : new ExpressionList<>();
+        copy.addAll(expressions);
+        return copy;
+    }
 
-            if (checkMethod == null || checkMethod.test((Expression) param.getParent())) {
-                setter.accept(ExpressionConverter.convertParameterValue(paramValue));
+    /**
+     * Добавляет имена операндов-параметров в множество.
+     */
+    private static void collectOperands(Set<String> collector, Expression... operands) {
+        for (Expression operand : operands) {
+            if (operand instanceof JdbcNamedParameter param) {
+                collector.add(param.getName());
             }
         }
     }
+
+    /**
+     * Добавляет имя параметра, если выражение - {@code ANY(:param)} или {@code ALL(:param)}.
+     */
+    private static void collectArrayArgument(Expression operand, Set<String> collector) {
+        if (operand instanceof Function function
+                && ("ANY".equalsIgnoreCase(function.getName()) || "ALL".equalsIgnoreCase(function.getName()))
+                && function.getParameters() != null
+                && function.getParameters().size() == 1
+                && function.getParameters().getFirst() instanceof JdbcNamedParameter param) {
+            collector.add(param.getName());
+        }
+    }
+
+    /**
+     * Проверяет, передано ли значение параметра.
+     */
+    private boolean isPresent(JdbcNamedParameter param) {
+        return parameterPresent.test(param.getName());
+    }
 }
@@ -0,0 +1,26 @@
+package com.koroli.dynamicqueryforge.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+/**
+ * Событие JFR: извлечение параметров запроса из аргументов метода репозитория.
+ */
+@Name("com.koroli.dynamicqueryforge.ParameterExtraction")
+@Label("Parameter Extraction")
+@Description("Извлечение параметров запроса из аргументов метода")
+@Category({"Dynamic Query Forge"})
+@StackTrace(false)
+@Setter
+public class ParameterExtractionEvent extends jdk.jfr.Event {
+
+    @Label("Repository Method")
+    String repositoryMethod;
+
+    @Label("Parameter Count")
+    int parameterCount;
+}
@@ -0,0 +1,33 @@
+package com.koroli.dynamicqueryforge.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+/**
+ * Событие JFR: разбор SQL-запроса и компиляция шаблона при промахе кеша запросов.
+ */
+@Name("com.koroli.dynamicqueryforge.QueryCompilation")
+@Label("Query Compilation")
+@Description("Разбор SQL-запроса и компиляция шаблона")
+@Category({"Dynamic Query Forge"})
+@StackTrace(false)
+@Setter
+public class QueryCompilationEvent extends jdk.jfr.Event {
+
+    @Label("Repository Method")
+    String repositoryMethod;
+
+    @Label("SQL Fingerprint")
+    String fingerprint;
+
+    @Label("Weight")
+    @Description("Количество узлов дерева запроса")
+    int weight;
+
+    @Label("Parameter Count")
+    int parameterCount;
+}
@@ -0,0 +1,78 @@
+package com.koroli.dynamicqueryforge.jfr;
+
+import lombok.experimental.UtilityClass;
+
+/**
+ * Связь событий JFR конвейера с вызовом метода репозитория.
+ * <p>
+ * Пока записывается событие {@link RepositoryInvocationEvent}, оно доступно в текущем потоке,
+ * и события обработки, выполнения и маппинга берут из него имя метода и отпечаток запроса.
+ * Если запись событий JFR выключена, вызов в поток не помещается, и методы класса ничего не делают.
+ */
+@UtilityClass
+public class QueryEvents {
+
+    private static final ThreadLocal<RepositoryInvocationEvent> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Делает событие вызова текущим для потока, если оно записывается.
+     *
+     * @param event событие вызова метода репозитория
+     */
+    public static void enter(RepositoryInvocationEvent event) {
+        if (event.isEnabled()) {
+            CURRENT.set(event);
+        }
+    }
+
+    /**
+     * Завершает вызов метода репозитория в текущем потоке.
+     *
+     * @param event событие вызова метода репозитория
+     */
+    public static void exit(RepositoryInvocationEvent event) {
+        if (event.isEnabled()) {
+            CURRENT.remove();
+        }
+    }
+
+    /**
+     * Возвращает имя метода репозитория, выполняемого в текущем потоке, или null.
+     */
+    public static String repositoryMethod() {
+        RepositoryInvocationEvent current = CURRENT.get();
+        return current != null ? current.repositoryMethod : null;
+    }
+
+    /**
+     * Возвращает отпечаток запроса, выполняемого в текущем потоке, или null.
+     */
+    public static String fingerprint() {
+        RepositoryInvocationEvent current = CURRENT.get();
+        return current != null ? current.fingerprint : null;
+    }
+
+    /**
+     * Запоминает отпечаток запроса текущего вызова.
+     *
+     * @param fingerprint отпечаток запроса
+     */
+    public static void recordFingerprint(String fingerprint) {
+        RepositoryInvocationEvent current = CURRENT.get();
+        if (current != null) {
+            current.fingerprint = fingerprint;
+        }
+    }
+
+    /**
+     * Добавляет прочитанные или измененные строки к текущему вызову.
+     *
+     * @param rowCount количество строк
+     */
+    public static void recordRows(long rowCount) {
+        RepositoryInvocationEvent current = CURRENT.get();
+        if (current != null && current.rowCount >= 0) {
+            current.rowCount += rowCount;
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.koroli.dynamicqueryforge.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+/**
+ * Событие JFR: выполнение запроса через JDBC, включая получение соединения и чтение результата.
+ */
+@Name("com.koroli.dynamicqueryforge.QueryExecution")
+@Label("Query Execution")
+@Description("Выполнение SQL-запроса через JDBC")
+@Category({"Dynamic Query Forge"})
+@StackTrace(false)
+@Setter
+public class QueryExecutionEvent extends jdk.jfr.Event {
+
+    @Label("Repository Method")
+    String repositoryMethod;
+
+    @Label("SQL Fingerprint")
+    String fingerprint;
+
+    @Label("Operation")
+    @Description("Способ выполнения: execute, cursor, columnar, batch или copy")
+    String operation;
+
+    @Label("Statement Cache Hit")
+    @Description("Подготовленный запрос найден в кеше соединения")
+    boolean statementCacheHit;
+
+    @Label("Row Count")
+    @Description("Количество прочитанных или измененных строк (-1 для курсора)")
+    long rowCount;
+}
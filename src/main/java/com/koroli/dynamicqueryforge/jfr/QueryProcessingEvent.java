@@ -0,0 +1,42 @@
+package com.koroli.dynamicqueryforge.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+/**
+ * Событие JFR: получение шаблона, сокращение запроса по отсутствующим параметрам и рендеринг SQL.
+ */
+@Name("com.koroli.dynamicqueryforge.QueryProcessing")
+@Label("Query Processing")
+@Description("Получение шаблона, сокращение и рендеринг SQL-запроса")
+@Category({"Dynamic Query Forge"})
+@StackTrace(false)
+@Setter
+public class QueryProcessingEvent extends jdk.jfr.Event {
+
+    @Label("Repository Method")
+    String repositoryMethod;
+
+    @Label("SQL Fingerprint")
+    String fingerprint;
+
+    @Label("Template Cache Hit")
+    @Description("Шаблон найден в кеше запросов без компиляции")
+    boolean templateCacheHit = true;
+
+    @Label("Shape Cache Hit")
+    @Description("Форма запроса для маски присутствия параметров уже была построена")
+    boolean shapeCacheHit;
+
+    @Label("Presence Mask")
+    @Description("Маска присутствия параметров, определяющая форму запроса")
+    long presenceMask;
+
+    @Label("Bind Count")
+    @Description("Количество значений, передаваемых через плейсхолдеры")
+    int bindCount;
+}
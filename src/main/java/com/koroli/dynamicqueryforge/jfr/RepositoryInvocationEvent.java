@@ -0,0 +1,35 @@
+package com.koroli.dynamicqueryforge.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+/**
+ * Событие JFR: вызов метода репозитория от извлечения параметров до возврата результата.
+ * Остальные события конвейера, записанные в том же потоке во время вызова,
+ * получают из него имя метода и отпечаток запроса.
+ */
+@Name("com.koroli.dynamicqueryforge.RepositoryInvocation")
+@Label("Repository Invocation")
+@Description("Вызов метода репозитория с аннотацией @Query")
+@Category({"Dynamic Query Forge"})
+@StackTrace(false)
+@Setter
+public class RepositoryInvocationEvent extends jdk.jfr.Event {
+
+    @Label("Repository Method")
+    String repositoryMethod;
+
+    @Label("SQL Fingerprint")
+    String fingerprint;
+
+    @Label("Return Kind")
+    String returnKind;
+
+    @Label("Row Count")
+    @Description("Количество прочитанных или измененных строк (-1 для потокового результата)")
+    long rowCount;
+}
@@ -0,0 +1,32 @@
+package com.koroli.dynamicqueryforge.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import lombok.Setter;
+
+/**
+ * Событие JFR: чтение строк результата и преобразование их в объекты.
+ */
+@Name("com.koroli.dynamicqueryforge.ResultMapping")
+@Label("Result Mapping")
+@Description("Преобразование строк результата в объекты")
+@Category({"Dynamic Query Forge"})
+@StackTrace(false)
+@Setter
+public class ResultMappingEvent extends jdk.jfr.Event {
+
+    @Label("Repository Method")
+    String repositoryMethod;
+
+    @Label("SQL Fingerprint")
+    String fingerprint;
+
+    @Label("Result Type")
+    Class<?> resultType;
+
+    @Label("Row Count")
+    long rowCount;
+}
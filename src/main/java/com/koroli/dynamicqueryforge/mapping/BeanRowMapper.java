@@ -0,0 +1,127 @@
+package com.koroli.dynamicqueryforge.mapping;
+
+import com.koroli.dynamicqueryforge.exception.ResultMappingException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Преобразует строку результата в JavaBean: объект создается конструктором без аргументов,
+ * значения столбцов устанавливаются через сеттеры, а при их отсутствии - напрямую в поля.
+ * Столбцы, для которых нет свойства, пропускаются.
+ *
+ * @param <T> тип объекта
+ */
+final class BeanRowMapper<T> implements RowMapper<T> {
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final Class<T> beanClass;
+
+    /** Конструктор без аргументов с сигнатурой {@code ()Object} */
+    private final MethodHandle constructor;
+
+    /** Индексы сопоставленных столбцов и соответствующие им читатели и сеттеры */
+    private final int[] columnIndexes;
+    private final ColumnReader[] readers;
+    private final MethodHandle[] setters;
+
+    BeanRowMapper(Class<T> beanClass, String[] labels) {
+        this.beanClass = beanClass;
+
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            Constructor<T> noArgs = beanClass.getDeclaredConstructor();
+            noArgs.setAccessible(true);
+            this.constructor = lookup.unreflectConstructor(noArgs).asType(MethodType.methodType(Object.class));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new ResultMappingException("Класс результата " + beanClass.getName() + " должен иметь конструктор без аргументов", e);
+        }
+
+        Map<String, Property> properties = collectProperties(beanClass, lookup);
+
+        List<Integer> indexes = new ArrayList<>();
+        List<ColumnReader> columnReaders = new ArrayList<>();
+        List<MethodHandle> columnSetters = new ArrayList<>();
+        for (int i = 0; i < labels.length; i++) {
+            Property property = properties.get(RowMappers.normalizeName(labels[i]));
+            if (property != null) {
+                indexes.add(i + 1);
+                columnReaders.add(ColumnReaders.forType(property.type()));
+                columnSetters.add(property.setter());
+            }
+        }
+
+        this.columnIndexes = indexes.stream().mapToInt(Integer::intValue).toArray();
+        this.readers = columnReaders.toArray(ColumnReader[]::new);
+        this.setters = columnSetters.toArray(MethodHandle[]::new);
+    }
+
+    @Override
+    public T mapRow(ResultSet resultSet) throws SQLException {
+        try {
+            Object bean = (Object) constructor.invokeExact();
+            for (int i = 0; i < columnIndexes.length; i++) {
+                setters[i].invokeExact(bean, readers[i].read(resultSet, columnIndexes[i]));
+            }
+            return beanClass.cast(bean);
+        } catch (SQLException | ResultMappingException e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new ResultMappingException("Ошибка при заполнении объекта " + beanClass.getName(), e);
+        }
+    }
+
+    /**
+     * Собирает записываемые свойства класса: сеттеры имеют приоритет над полями.
+     */
+    private static Map<String, Property> collectProperties(Class<?> beanClass, MethodHandles.Lookup lookup) {
+        Map<String, Property> properties = new HashMap<>();
+        try {
+            for (Class<?> type = beanClass; type != null && type != Object.class; type = type.getSuperclass()) {
+                for (Field field : type.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (Modifier.isStatic(modifiers) || Modifier.isFinal(modifiers) || field.isSynthetic()) {
+                        continue;
+                    }
+                    field.setAccessible(true);
+                    properties.putIfAbsent(
+                            RowMappers.propertyName(field, field.getName()),
+                            new Property(field.getType(), lookup.unreflectSetter(field).asType(SETTER_TYPE)));
+                }
+            }
+
+            for (Method method : beanClass.getMethods()) {
+                if (Modifier.isStatic(method.getModifiers())
+                        || method.getParameterCount() != 1
+                        || method.getName().length() <= 3
+                        || !method.getName().startsWith("set")) {
+                    continue;
+                }
+                properties.put(
+                        RowMappers.propertyName(method, method.getName().substring(3)),
+                        new Property(method.getParameterTypes()[0], lookup.unreflect(method).asType(SETTER_TYPE)));
+            }
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new ResultMappingException("Не удалось получить свойства класса " + beanClass.getName(), e);
+        }
+        return properties;
+    }
+
+    /**
+     * Записываемое свойство: тип значения и сеттер с сигнатурой {@code (Object, Object)void}.
+     */
+    private record Property(Class<?> type, MethodHandle setter) {
+    }
+}
@@ -0,0 +1,21 @@
+package com.koroli.dynamicqueryforge.mapping;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Читает значение одного столбца текущей строки {@link ResultSet} в значение заданного типа.
+ */
+@FunctionalInterface
+interface ColumnReader {
+
+    /**
+     * Читает значение столбца.
+     *
+     * @param resultSet результат запроса, установленный на нужную строку
+     * @param index     индекс столбца (начиная с 1)
+     * @return значение столбца; для примитивных типов вместо null возвращается значение по умолчанию
+     * @throws SQLException если не удалось прочитать значение
+     */
+    Object read(ResultSet resultSet, int index) throws SQLException;
+}
@@ -0,0 +1,128 @@
+package com.koroli.dynamicqueryforge.mapping;
+
+import lombok.experimental.UtilityClass;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.*;
+import java.util.UUID;
+
+/**
+ * Фабрика типизированных читателей столбцов.
+ * Значения читаются методами {@code getLong}, {@code getString} и т.п. без промежуточной упаковки в карту.
+ */
+@UtilityClass
+class ColumnReaders {
+
+    /**
+     * Возвращает читателя столбца для указанного типа значения.
+     *
+     * @param type тип, в который нужно прочитать значение
+     * @return читатель столбца
+     */
+    static ColumnReader forType(Class<?> type) {
+        ColumnReader reader = simpleReader(type);
+        if (reader != null) {
+            return reader;
+        }
+        return (rs, i) -> {
+            Object value = rs.getObject(i);
+            return value == null || type.isInstance(value) ? value : rs.getObject(i, type);
+        };
+    }
+
+    /**
+     * Проверяет, читается ли значение типа из одного столбца (число, строка, дата и т.п.).
+     *
+     * @param type проверяемый тип
+     * @return true, если для типа есть специализированный читатель столбца
+     */
+    static boolean isSimpleType(Class<?> type) {
+        return type != Object.class && simpleReader(type) != null;
+    }
+
+    /**
+     * Возвращает специализированного читателя столбца или null, если тип не является простым.
+     */
+    private static ColumnReader simpleReader(Class<?> type) {
+        // === Примитивы: null превращается в значение по умолчанию ===
+        if (type == long.class)    return (rs, i) -> rs.getLong(i);
+        if (type == int.class)     return (rs, i) -> rs.getInt(i);
+        if (type == short.class)   return (rs, i) -> rs.getShort(i);
+        if (type == byte.class)    return (rs, i) -> rs.getByte(i);
+        if (type == double.class)  return (rs, i) -> rs.getDouble(i);
+        if (type == float.class)   return (rs, i) -> rs.getFloat(i);
+        if (type == boolean.class) return (rs, i) -> rs.getBoolean(i);
+
+        // === Обертки над примитивами ===
+        if (type == Long.class)    return (rs, i) -> nullable(rs, rs.getLong(i));
+        if (type == Integer.class) return (rs, i) -> nullable(rs, rs.getInt(i));
+        if (type == Short.class)   return (rs, i) -> nullable(rs, rs.getShort(i));
+        if (type == Byte.class)    return (rs, i) -> nullable(rs, rs.getByte(i));
+        if (type == Double.class)  return (rs, i) -> nullable(rs, rs.getDouble(i));
+        if (type == Float.class)   return (rs, i) -> nullable(rs, rs.getFloat(i));
+        if (type == Boolean.class) return (rs, i) -> nullable(rs, rs.getBoolean(i));
+
+        // === Строки и числа произвольной точности ===
+        if (type == String.class)     return (rs, i) -> rs.getString(i);
+        if (type == BigDecimal.class) return (rs, i) -> rs.getBigDecimal(i);
+        if (type == BigInteger.class) return (rs, i) -> {
+            BigDecimal value = rs.getBigDecimal(i);
+            return value != null ? value.toBigInteger() : null;
+        };
+
+        // === Дата и время ===
+        // java.sql
+        if (type == Date.class)      return (rs, i) -> rs.getDate(i);
+        if (type == Time.class)      return (rs, i) -> rs.getTime(i);
+        if (type == Timestamp.class) return (rs, i) -> rs.getTimestamp(i);
+        if (type == java.util.Date.class) return (rs, i) -> rs.getTimestamp(i);
+
+        // java.time
+        if (type == LocalDate.class
+                || type == LocalTime.class
+                || type == LocalDateTime.class
+                || type == OffsetDateTime.class) {
+            return (rs, i) -> rs.getObject(i, type);
+        }
+        if (type == Instant.class) return (rs, i) -> {
+            Timestamp value = rs.getTimestamp(i);
+            return value != null ? value.toInstant() : null;
+        };
+
+        // === Прочие типы ===
+        if (type == byte[].class) return (rs, i) -> rs.getBytes(i);
+        if (type == UUID.class)   return (rs, i) -> rs.getObject(i, UUID.class);
+        if (type.isEnum())        return enumReader(type);
+        if (type == Object.class) return (rs, i) -> rs.getObject(i);
+
+        return null;
+    }
+
+    /**
+     * Возвращает null, если прочитанное значение было SQL NULL.
+     */
+    private static Object nullable(ResultSet resultSet, Object value) throws SQLException {
+        return resultSet.wasNull() ? null : value;
+    }
+
+    /**
+     * Создает читателя, преобразующего строковое значение столбца в константу перечисления.
+     */
+    private static ColumnReader enumReader(Class<?> type) {
+        return (rs, i) -> {
+            String value = rs.getString(i);
+            return value != null ? toEnum(type, value) : null;
+        };
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object toEnum(Class<?> type, String value) {
+        return Enum.valueOf((Class<? extends Enum>) type, value);
+    }
+}
@@ -0,0 +1,27 @@
+package com.koroli.dynamicqueryforge.mapping;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Преобразует строку результата в карту "метка столбца - значение" с сохранением порядка столбцов.
+ */
+final class MapRowMapper implements RowMapper<Map<String, Object>> {
+
+    private final String[] labels;
+
+    MapRowMapper(String[] labels) {
+        this.labels = labels;
+    }
+
+    @Override
+    public Map<String, Object> mapRow(ResultSet resultSet) throws SQLException {
+        Map<String, Object> row = new LinkedHashMap<>(labels.length * 4 / 3 + 1);
+        for (int i = 0; i < labels.length; i++) {
+            row.put(labels[i], resultSet.getObject(i + 1));
+        }
+        return row;
+    }
+}
@@ -0,0 +1,84 @@
+package com.koroli.dynamicqueryforge.mapping;
+
+import com.koroli.dynamicqueryforge.exception.ResultMappingException;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.RecordComponent;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Преобразует строку результата в запись ({@code record}) через канонический конструктор.
+ * Компоненты записи, для которых нет столбца, получают значение по умолчанию.
+ *
+ * @param <T> тип записи
+ */
+final class RecordRowMapper<T> implements RowMapper<T> {
+
+    private final Class<T> recordClass;
+
+    /** Канонический конструктор с сигнатурой {@code (Object[])Object} */
+    private final MethodHandle constructor;
+
+    /** Индекс столбца для каждого компонента записи (0 - столбца нет) */
+    private final int[] columnIndexes;
+    private final ColumnReader[] readers;
+    private final Object[] defaults;
+
+    RecordRowMapper(Class<T> recordClass, String[] labels) {
+        this.recordClass = recordClass;
+
+        RecordComponent[] components = recordClass.getRecordComponents();
+        Class<?>[] componentTypes = new Class<?>[components.length];
+        this.columnIndexes = new int[components.length];
+        this.readers = new ColumnReader[components.length];
+        this.defaults = new Object[components.length];
+
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = labels.length - 1; i >= 0; i--) {
+            columns.put(RowMappers.normalizeName(labels[i]), i + 1);
+        }
+
+        for (int i = 0; i < components.length; i++) {
+            RecordComponent component = components[i];
+            componentTypes[i] = component.getType();
+            columnIndexes[i] = columns.getOrDefault(RowMappers.propertyName(component, component.getName()), 0);
+            readers[i] = ColumnReaders.forType(component.getType());
+            defaults[i] = component.getType().isPrimitive()
+                    ? Array.get(Array.newInstance(component.getType(), 1), 0)
+                    : null;
+        }
+
+        try {
+            Constructor<T> canonical = recordClass.getDeclaredConstructor(componentTypes);
+            canonical.setAccessible(true);
+            MethodHandle handle = MethodHandles.lookup().unreflectConstructor(canonical);
+            this.constructor = handle
+                    .asType(handle.type().generic())
+                    .asSpreader(Object[].class, components.length)
+                    .asType(MethodType.methodType(Object.class, Object[].class));
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new ResultMappingException("Не удалось получить канонический конструктор записи " + recordClass.getName(), e);
+        }
+    }
+
+    @Override
+    public T mapRow(ResultSet resultSet) throws SQLException {
+        Object[] arguments = new Object[columnIndexes.length];
+        for (int i = 0; i < columnIndexes.length; i++) {
+            int columnIndex = columnIndexes[i];
+            arguments[i] = columnIndex > 0 ? readers[i].read(resultSet, columnIndex) : defaults[i];
+        }
+        try {
+            return recordClass.cast((Object) constructor.invokeExact(arguments));
+        } catch (Throwable e) {
+            throw new ResultMappingException("Ошибка при создании записи " + recordClass.getName(), e);
+        }
+    }
+}
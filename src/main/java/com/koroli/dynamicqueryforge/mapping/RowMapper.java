@@ -0,0 +1,23 @@
+package com.koroli.dynamicqueryforge.mapping;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Преобразует текущую строку {@link ResultSet} в объект результата.
+ *
+ * @param <T> тип результата
+ */
+@FunctionalInterface
+public interface RowMapper<T> {
+
+    /**
+     * Преобразует текущую строку результата запроса.
+     * Реализация не должна перемещать курсор.
+     *
+     * @param resultSet результат запроса, установленный на нужную строку
+     * @return объект результата
+     * @throws SQLException если не удалось прочитать значения столбцов
+     */
+    T mapRow(ResultSet resultSet) throws SQLException;
+}
@@ -0,0 +1,100 @@
+package com.koroli.dynamicqueryforge.mapping;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.koroli.dynamicqueryforge.exception.ResultMappingException;
+import lombok.experimental.UtilityClass;
+
+import java.lang.reflect.AnnotatedElement;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Фабрика преобразователей строк результата.
+ * <p>
+ * Преобразователь компилируется один раз для пары (класс результата, набор столбцов):
+ * индексы столбцов заранее сопоставляются компонентам записи или сеттерам,
+ * а значения читаются типизированными методами {@code ResultSet} без промежуточной карты или JSON.
+ */
+@UtilityClass
+public class RowMappers {
+
+    /** Скомпилированные преобразователи по классу результата и списку меток столбцов */
+    private static final ClassValue<ConcurrentMap<List<String>, RowMapper<?>>> MAPPERS = new ClassValue<>() {
+        @Override
+        protected ConcurrentMap<List<String>, RowMapper<?>> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    /**
+     * Возвращает преобразователь строк для указанного класса и набора столбцов результата.
+     *
+     * @param resultClass класс, в который нужно мапить строки
+     * @param metaData    метаданные результата запроса
+     * @param <T>         тип результата
+     * @return скомпилированный преобразователь строк
+     * @throws SQLException           если не удалось прочитать метаданные
+     * @throws ResultMappingException если класс результата не может быть создан из строки
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> RowMapper<T> forLayout(Class<T> resultClass, ResultSetMetaData metaData) throws SQLException {
+        String[] labels = new String[metaData.getColumnCount()];
+        for (int i = 0; i < labels.length; i++) {
+            labels[i] = metaData.getColumnLabel(i + 1);
+        }
+        return (RowMapper<T>) MAPPERS.get(resultClass)
+                .computeIfAbsent(List.of(labels), layout -> compile(resultClass, labels));
+    }
+
+    /**
+     * Компилирует преобразователь строк для класса результата.
+     */
+    private static RowMapper<?> compile(Class<?> resultClass, String[] labels) {
+        if (Map.class.isAssignableFrom(resultClass)) {
+            return new MapRowMapper(labels);
+        }
+        if (resultClass.isPrimitive() || ColumnReaders.isSimpleType(resultClass)) {
+            return new ScalarRowMapper<>(ColumnReaders.forType(resultClass));
+        }
+        if (resultClass.isRecord()) {
+            return new RecordRowMapper<>(resultClass, labels);
+        }
+        return new BeanRowMapper<>(resultClass, labels);
+    }
+
+    /**
+     * Приводит имя столбца или свойства к виду для сопоставления:
+     * {@code first_name}, {@code FIRST_NAME} и {@code firstName} совпадают.
+     *
+     * @param name имя столбца или свойства
+     * @return нормализованное имя
+     */
+    static String normalizeName(String name) {
+        StringBuilder normalized = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c != '_') {
+                normalized.append(Character.toLowerCase(c));
+            }
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Возвращает нормализованное имя свойства с учетом аннотации {@link JsonProperty}.
+     *
+     * @param element     поле, сеттер или компонент записи
+     * @param defaultName имя свойства по умолчанию
+     * @return нормализованное имя свойства
+     */
+    static String propertyName(AnnotatedElement element, String defaultName) {
+        JsonProperty jsonProperty = element.getAnnotation(JsonProperty.class);
+        return jsonProperty != null && !jsonProperty.value().isEmpty()
+                ? normalizeName(jsonProperty.value())
+                : normalizeName(defaultName);
+    }
+}
@@ -0,0 +1,24 @@
+package com.koroli.dynamicqueryforge.mapping;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Преобразует первый столбец строки результата в значение простого типа (число, строка, дата и т.п.).
+ *
+ * @param <T> тип результата
+ */
+final class ScalarRowMapper<T> implements RowMapper<T> {
+
+    private final ColumnReader reader;
+
+    ScalarRowMapper(ColumnReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T mapRow(ResultSet resultSet) throws SQLException {
+        return (T) reader.read(resultSet, 1);
+    }
+}
@@ -0,0 +1,20 @@
+package com.koroli.dynamicqueryforge.page;
+
+import java.util.List;
+
+/**
+ * Страница результата постраничной навигации по ключу.
+ *
+ * @param content строки страницы
+ * @param next    запрос следующей страницы или null, если страница последняя
+ * @param <T>     тип строк
+ */
+public record KeysetPage<T>(List<T> content, KeysetPageRequest next) {
+
+    /**
+     * Проверяет, есть ли следующая страница.
+     */
+    public boolean hasNext() {
+        return next != null;
+    }
+}
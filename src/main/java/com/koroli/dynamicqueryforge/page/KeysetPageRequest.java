@@ -0,0 +1,72 @@
+package com.koroli.dynamicqueryforge.page;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Запрос страницы с постраничной навигацией по ключу (keyset, seek): вместо OFFSET запрос
+ * продолжается с последней прочитанной строки условием на столбцы сортировки, поэтому
+ * чтение любой страницы стоит столько же, сколько чтение первой.
+ * <p>
+ * Передается аргументом метода репозитория, возвращающего {@link KeysetPage}. ORDER BY, LIMIT и OFFSET
+ * запроса метода заменяются сортировкой и размером страницы. Столбцы сортировки должны однозначно
+ * упорядочивать строки (последним обычно указывается первичный ключ) и не содержать NULL.
+ *
+ * @param size  размер страницы
+ * @param sort  столбцы сортировки
+ * @param after значения столбцов сортировки последней строки предыдущей страницы
+ *              или пустой список для первой страницы
+ */
+public record KeysetPageRequest(int size, List<SortOrder> sort, List<Object> after) {
+
+    public KeysetPageRequest {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Размер страницы должен быть положительным: " + size);
+        }
+        if (sort == null || sort.isEmpty()) {
+            throw new IllegalArgumentException("Не заданы столбцы сортировки страницы");
+        }
+        sort = List.copyOf(sort);
+        if (after == null) {
+            after = List.of();
+        } else if (!after.isEmpty() && after.size() != sort.size()) {
+            throw new IllegalArgumentException("Количество значений ключа (" + after.size()
+                    + ") не совпадает с количеством столбцов сортировки (" + sort.size() + ")");
+        } else if (after.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("Значения ключа страницы не могут быть null: " + after);
+        } else {
+            after = Collections.unmodifiableList(new ArrayList<>(after));
+        }
+    }
+
+    /**
+     * Создает запрос первой страницы.
+     *
+     * @param size размер страницы
+     * @param sort столбцы сортировки
+     * @return запрос первой страницы
+     */
+    public static KeysetPageRequest first(int size, SortOrder... sort) {
+        return new KeysetPageRequest(size, Arrays.asList(sort), List.of());
+    }
+
+    /**
+     * Создает запрос страницы, следующей за строкой с указанными значениями столбцов сортировки.
+     *
+     * @param values значения столбцов сортировки в порядке {@link #sort()}
+     * @return запрос следующей страницы с теми же размером и сортировкой
+     */
+    public KeysetPageRequest after(List<?> values) {
+        return new KeysetPageRequest(size, sort, new ArrayList<>(values));
+    }
+
+    /**
+     * Проверяет, запрашивается ли первая страница.
+     */
+    public boolean isFirst() {
+        return after.isEmpty();
+    }
+}
@@ -0,0 +1,27 @@
+package com.koroli.dynamicqueryforge.page;
+
+import java.util.List;
+
+/**
+ * Страница результата постраничной навигации по смещению.
+ *
+ * @param content       строки страницы
+ * @param request       запрос страницы
+ * @param totalElements общее количество строк (не больше ограничения подсчета) или -1, если подсчет отключен
+ * @param totalExact    общее количество строк точное: подсчет не отключен и не достиг ограничения
+ * @param hasNext       есть следующая страница
+ * @param <T>           тип строк
+ */
+public record Page<T>(List<T> content, PageRequest request, long totalElements, boolean totalExact, boolean hasNext) {
+
+    /**
+     * Возвращает количество страниц или -1, если общее количество строк не подсчитано.
+     * При ограниченном подсчете значение не превышает количество страниц в пределах ограничения.
+     */
+    public long totalPages() {
+        if (totalElements < 0) {
+            return -1L;
+        }
+        return (totalElements + request.size() - 1) / request.size();
+    }
+}
@@ -0,0 +1,86 @@
+package com.koroli.dynamicqueryforge.page;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Запрос страницы с постраничной навигацией по смещению (LIMIT/OFFSET) и подсчетом общего количества строк.
+ * <p>
+ * Передается аргументом метода репозитория, возвращающего {@link Page}. В сокращенный запрос метода
+ * подставляются LIMIT и OFFSET страницы, а из того же запроса строится {@code SELECT count(*)} без ORDER BY,
+ * который выполняется параллельно с запросом страницы. Для больших таблиц подсчет можно ограничить
+ * или отключить: {@link #withCountLimit(long)}, {@link #withoutCount()}.
+ *
+ * @param page       номер страницы, начиная с 0
+ * @param size       размер страницы
+ * @param sort       столбцы сортировки (пустой список - сохраняется ORDER BY запроса)
+ * @param countLimit максимальное количество подсчитываемых строк: -1 - точный подсчет, 0 - без подсчета
+ */
+public record PageRequest(int page, int size, List<SortOrder> sort, long countLimit) {
+
+    public PageRequest {
+        if (page < 0) {
+            throw new IllegalArgumentException("Номер страницы не может быть отрицательным: " + page);
+        }
+        if (size <= 0) {
+            throw new IllegalArgumentException("Размер страницы должен быть положительным: " + size);
+        }
+        if (countLimit < -1) {
+            throw new IllegalArgumentException("Недопустимое ограничение подсчета строк: " + countLimit);
+        }
+        sort = sort != null ? List.copyOf(sort) : List.of();
+    }
+
+    /**
+     * Создает запрос страницы с точным подсчетом строк.
+     *
+     * @param page номер страницы, начиная с 0
+     * @param size размер страницы
+     * @param sort столбцы сортировки
+     * @return запрос страницы
+     */
+    public static PageRequest of(int page, int size, SortOrder... sort) {
+        return new PageRequest(page, size, Arrays.asList(sort), -1L);
+    }
+
+    /**
+     * Возвращает тот же запрос без подсчета общего количества строк.
+     */
+    public PageRequest withoutCount() {
+        return new PageRequest(page, size, sort, 0L);
+    }
+
+    /**
+     * Возвращает тот же запрос, подсчитывающий не более указанного количества строк.
+     *
+     * @param countLimit максимальное количество подсчитываемых строк
+     * @return запрос страницы
+     */
+    public PageRequest withCountLimit(long countLimit) {
+        if (countLimit <= 0) {
+            throw new IllegalArgumentException("Ограничение подсчета строк должно быть положительным: " + countLimit);
+        }
+        return new PageRequest(page, size, sort, countLimit);
+    }
+
+    /**
+     * Возвращает запрос следующей страницы с теми же параметрами.
+     */
+    public PageRequest next() {
+        return new PageRequest(page + 1, size, sort, countLimit);
+    }
+
+    /**
+     * Возвращает смещение первой строки страницы.
+     */
+    public long offset() {
+        return (long) page * size;
+    }
+
+    /**
+     * Проверяет, подсчитывается ли общее количество строк.
+     */
+    public boolean isCounted() {
+        return countLimit != 0;
+    }
+}
@@ -0,0 +1,50 @@
+package com.koroli.dynamicqueryforge.page;
+
+import java.util.regex.Pattern;
+
+/**
+ * Столбец сортировки страницы и направление.
+ * <p>
+ * Имя столбца подставляется в текст запроса, поэтому допускаются только идентификаторы
+ * вида {@code created_at} или {@code o.created_at}: сортировку можно принимать из параметров HTTP-запроса.
+ *
+ * @param column     имя столбца, возможно с именем или псевдонимом таблицы
+ * @param descending сортировка по убыванию
+ */
+public record SortOrder(String column, boolean descending) {
+
+    private static final Pattern IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_$]*(\\.[A-Za-z_][A-Za-z0-9_$]*)?");
+
+    public SortOrder {
+        if (column == null || !IDENTIFIER.matcher(column).matches()) {
+            throw new IllegalArgumentException("Недопустимое имя столбца сортировки: " + column);
+        }
+    }
+
+    /**
+     * Создает сортировку по возрастанию.
+     *
+     * @param column имя столбца
+     * @return сортировка
+     */
+    public static SortOrder asc(String column) {
+        return new SortOrder(column, false);
+    }
+
+    /**
+     * Создает сортировку по убыванию.
+     *
+     * @param column имя столбца
+     * @return сортировка
+     */
+    public static SortOrder desc(String column) {
+        return new SortOrder(column, true);
+    }
+
+    /**
+     * Возвращает имя столбца в строке результата: без имени таблицы.
+     */
+    public String resultColumn() {
+        return column.substring(column.lastIndexOf('.') + 1);
+    }
+}
@@ -0,0 +1,84 @@
+package com.koroli.dynamicqueryforge.processing;
+
+import com.koroli.dynamicqueryforge.config.DynamicQueryProperties;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Исполнитель асинхронных методов репозитория.
+ * <p>
+ * По умолчанию каждый вызов выполняется в отдельном виртуальном потоке; исполнитель можно заменить
+ * бином {@code dynamicQueryExecutor}. Количество одновременно выполняемых запросов ограничено
+ * {@code dynamic-query.async.max-concurrency}: значение должно соответствовать размеру пула соединений,
+ * чтобы лишние вызовы ждали разрешения, а не соединения из пула.
+ */
+@Component
+public class AsyncQueryExecutor implements DisposableBean {
+
+    private final Executor executor;
+
+    /** Исполнитель по умолчанию, созданный этим компонентом (null, если используется внешний) */
+    private final ExecutorService ownedExecutor;
+
+    private final Semaphore permits;
+
+    @Autowired
+    public AsyncQueryExecutor(DynamicQueryProperties properties,
+                              @Qualifier("dynamicQueryExecutor") ObjectProvider<Executor> executorProvider) {
+        Executor configured = executorProvider.getIfAvailable();
+        this.ownedExecutor = configured == null ? Executors.newVirtualThreadPerTaskExecutor() : null;
+        this.executor = configured != null ? configured : ownedExecutor;
+        this.permits = new Semaphore(properties.getAsync().getMaxConcurrency(), true);
+    }
+
+    /**
+     * Выполняет задачу асинхронно, дожидаясь свободного разрешения на выполнение запроса.
+     *
+     * @param task задача (обработка, выполнение и маппинг запроса)
+     * @param <T>  тип результата
+     * @return future с результатом задачи
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+            try {
+                return task.get();
+            } finally {
+                permits.release();
+            }
+        }, executor);
+    }
+
+    /**
+     * Возвращает исполнитель асинхронных методов без ограничения количества одновременных запросов.
+     * Используется для доставки строк подписчикам, удерживающим курсор неограниченное время.
+     *
+     * @return исполнитель
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    @Override
+    public void destroy() {
+        if (ownedExecutor != null) {
+            ownedExecutor.close();
+        }
+    }
+}
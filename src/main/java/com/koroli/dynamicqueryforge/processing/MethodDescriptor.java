@@ -0,0 +1,331 @@
+package com.koroli.dynamicqueryforge.processing;
+
+import com.koroli.dynamicqueryforge.annotation.Batch;
+import com.koroli.dynamicqueryforge.annotation.BulkCopy;
+import com.koroli.dynamicqueryforge.annotation.CacheResult;
+import com.koroli.dynamicqueryforge.annotation.Param;
+import com.koroli.dynamicqueryforge.annotation.Query;
+import com.koroli.dynamicqueryforge.annotation.ShardKey;
+import com.koroli.dynamicqueryforge.annotation.UsePrimary;
+import com.koroli.dynamicqueryforge.page.KeysetPage;
+import com.koroli.dynamicqueryforge.page.KeysetPageRequest;
+import com.koroli.dynamicqueryforge.page.Page;
+import com.koroli.dynamicqueryforge.page.PageRequest;
+import com.koroli.dynamicqueryforge.result.ColumnarResult;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Неизменяемое описание метода репозитория, вычисляемое один раз при создании прокси.
+ * Содержит все, что при вызове метода иначе пришлось бы получать через рефлексию.
+ *
+ * @param method           метод репозитория
+ * @param sql              исходный SQL-запрос из аннотации {@link Query}
+ * @param parameterNames   имена параметров запроса по индексам аргументов
+ *                         (null для аргументов, не являющихся параметрами запроса)
+ * @param returnKind       способ выполнения запроса и возврата результата
+ * @param async            признак асинхронного метода ({@code CompletableFuture}, {@code CompletionStage}, {@code Future})
+ * @param returnType       тип результата (для асинхронных методов - тип значения future)
+ * @param resultType       класс, в который мапится каждая строка результата
+ * @param rowCallbackIndex индекс аргумента-обработчика строк или -1
+ * @param batch            аннотация {@link Batch} или null
+ * @param bulkCopy         аннотация {@link BulkCopy} или null
+ * @param cacheResult      аннотация {@link CacheResult} или null
+ * @param usePrimary       SELECT-запрос метода выполняется на основной базе данных ({@link UsePrimary})
+ * @param shardKeyIndex    индекс аргумента-ключа шардирования ({@link ShardKey}) или -1
+ * @param pageRequestIndex индекс аргумента-запроса страницы ({@link KeysetPageRequest} или {@link PageRequest}) или -1
+ */
+public record MethodDescriptor(
+        Method method,
+        String sql,
+        List<String> parameterNames,
+        ReturnKind returnKind,
+        boolean async,
+        Class<?> returnType,
+        Class<?> resultType,
+        int rowCallbackIndex,
+        Batch batch,
+        BulkCopy bulkCopy,
+        CacheResult cacheResult,
+        boolean usePrimary,
+        int shardKeyIndex,
+        int pageRequestIndex
+) {
+
+    /**
+     * Возвращает имя метода вместе с простым именем интерфейса репозитория.
+     */
+    public String displayName() {
+        return method.getDeclaringClass().getSimpleName() + "." + method.getName();
+    }
+
+    /**
+     * Способ выполнения запроса и возврата результата.
+     */
+    public enum ReturnKind {
+        /** Единичный объект или null */
+        SINGLE,
+        /** Список объектов */
+        LIST,
+        /** Поток строк, читаемых через курсор */
+        STREAM,
+        /** Итератор строк, читаемых через курсор */
+        ITERATOR,
+        /** Издатель строк с обратным давлением */
+        PUBLISHER,
+        /** Передача строк обработчику-аргументу */
+        CALLBACK,
+        /** Колоночный результат */
+        COLUMNAR,
+        /** Пакетное выполнение изменяющего запроса */
+        BATCH,
+        /** Массовая загрузка через COPY */
+        BULK_COPY,
+        /** Страница с постраничной навигацией по ключу */
+        KEYSET_PAGE,
+        /** Страница с постраничной навигацией по смещению и подсчетом строк */
+        PAGE
+    }
+
+    /**
+     * Строит описание метода репозитория.
+     *
+     * @param method метод с аннотацией {@link Query}
+     * @return описание метода
+     * @throws IllegalArgumentException если метод не аннотирован {@link Query}
+     */
+    public static MethodDescriptor of(Method method) {
+        return of(method, null);
+    }
+
+    /**
+     * Строит описание метода репозитория с именами параметров, известными на этапе компиляции.
+     * Используется сгенерированными реализациями репозиториев: имена параметров из исходного кода
+     * доступны даже без флага компилятора {@code -parameters}.
+     *
+     * @param method               метод с аннотацией {@link Query}
+     * @param sourceParameterNames имена параметров метода в исходном коде (null - взять из рефлексии)
+     * @return описание метода
+     * @throws IllegalArgumentException если метод не аннотирован {@link Query}
+     */
+    public static MethodDescriptor of(Method method, List<String> sourceParameterNames) {
+        Query query = method.getAnnotation(Query.class);
+        if (query == null) {
+            throw new IllegalArgumentException("Метод " + method + " не аннотирован @Query");
+        }
+
+        Class<?> returnType = method.getReturnType();
+        Type genericReturnType = method.getGenericReturnType();
+        boolean async = returnType == CompletableFuture.class
+                || returnType == CompletionStage.class
+                || returnType == Future.class;
+        if (async) {
+            genericReturnType = getTypeArgument(genericReturnType);
+            returnType = toClass(genericReturnType);
+        }
+
+        Batch batch = method.getAnnotation(Batch.class);
+        BulkCopy bulkCopy = method.getAnnotation(BulkCopy.class);
+        int rowCallbackIndex = getRowCallbackIndex(method);
+        ReturnKind returnKind = getReturnKind(returnType, batch, bulkCopy, rowCallbackIndex);
+
+        int keysetRequestIndex = getParameterIndex(method, KeysetPageRequest.class);
+        int pageRequestIndex = getParameterIndex(method, PageRequest.class);
+        if ((returnKind == ReturnKind.KEYSET_PAGE) != (keysetRequestIndex >= 0)
+                || (returnKind == ReturnKind.PAGE) != (pageRequestIndex >= 0)) {
+            throw new IllegalArgumentException("Метод " + method + " должен возвращать KeysetPage и принимать"
+                    + " KeysetPageRequest или возвращать Page и принимать PageRequest");
+        }
+
+        int shardKeyIndex = getShardKeyIndex(method);
+        if (shardKeyIndex >= 0 && (batch != null || bulkCopy != null)) {
+            throw new IllegalArgumentException("Аннотация @ShardKey неприменима к методу " + method
+                    + ": пакетные запросы и загрузка через COPY выполняются на основной базе данных");
+        }
+
+        Class<?> resultType = switch (returnKind) {
+            case CALLBACK -> resolveTypeArgument(method.getGenericParameterTypes()[rowCallbackIndex]);
+            case LIST, STREAM, ITERATOR, PUBLISHER, KEYSET_PAGE, PAGE -> resolveTypeArgument(genericReturnType);
+            case BATCH -> List.class.isAssignableFrom(returnType) ? resolveTypeArgument(genericReturnType) : Map.class;
+            default -> returnType;
+        };
+
+        CacheResult cacheResult = method.getAnnotation(CacheResult.class);
+        if (cacheResult != null && returnKind != ReturnKind.SINGLE && returnKind != ReturnKind.LIST
+                && returnKind != ReturnKind.COLUMNAR) {
+            throw new IllegalArgumentException("Аннотация @CacheResult неприменима к методу " + method
+                    + ": кешируются только единичный объект, список или колоночный результат");
+        }
+        if (cacheResult != null && !isImmutableResult(resultType)) {
+            throw new IllegalArgumentException("Аннотация @CacheResult неприменима к методу " + method
+                    + ": закешированный результат разделяется между вызовами, поэтому строки должны быть"
+                    + " записями (record), картами или неизменяемыми значениями, а не " + resultType.getName());
+        }
+
+        return new MethodDescriptor(
+                method,
+                query.value(),
+                getParameterNames(method, sourceParameterNames),
+                returnKind,
+                async,
+                returnType,
+                resultType,
+                rowCallbackIndex,
+                batch,
+                bulkCopy,
+                cacheResult,
+                method.isAnnotationPresent(UsePrimary.class)
+                        || method.getDeclaringClass().isAnnotationPresent(UsePrimary.class),
+                shardKeyIndex,
+                Math.max(keysetRequestIndex, pageRequestIndex));
+    }
+
+    /**
+     * Проверяет, можно ли разделять строки результата между вызовами: записи, перечисления
+     * и неизменяемые значения из {@code java.*}. Карты кешируются неизменяемыми копиями.
+     */
+    private static boolean isImmutableResult(Class<?> type) {
+        if (type.isPrimitive() || type.isRecord() || type.isEnum()
+                || type == ColumnarResult.class || Map.class.isAssignableFrom(type)) {
+            return true;
+        }
+        return type.getPackageName().startsWith("java.")
+                && !type.isArray()
+                && type != Object.class
+                && !java.util.Date.class.isAssignableFrom(type)
+                && !java.util.Collection.class.isAssignableFrom(type);
+    }
+
+    /**
+     * Определяет способ выполнения запроса по типу результата и аннотациям метода.
+     */
+    private static ReturnKind getReturnKind(Class<?> returnType, Batch batch, BulkCopy bulkCopy, int rowCallbackIndex) {
+        if (batch != null) return ReturnKind.BATCH;
+        if (bulkCopy != null) return ReturnKind.BULK_COPY;
+        if (ColumnarResult.class == returnType) return ReturnKind.COLUMNAR;
+        if (KeysetPage.class == returnType) return ReturnKind.KEYSET_PAGE;
+        if (Page.class == returnType) return ReturnKind.PAGE;
+        if (Stream.class.isAssignableFrom(returnType)) return ReturnKind.STREAM;
+        if (Iterator.class.isAssignableFrom(returnType)) return ReturnKind.ITERATOR;
+        if (Flow.Publisher.class == returnType) return ReturnKind.PUBLISHER;
+        if (rowCallbackIndex >= 0) return ReturnKind.CALLBACK;
+        if (List.class.isAssignableFrom(returnType)) return ReturnKind.LIST;
+        return ReturnKind.SINGLE;
+    }
+
+    /**
+     * Возвращает имена параметров запроса по индексам аргументов: значение {@link Param}
+     * или имя параметра метода. Обработчик строк и запрос страницы параметрами запроса не являются.
+     */
+    private static List<String> getParameterNames(Method method, List<String> sourceParameterNames) {
+        Parameter[] parameters = method.getParameters();
+        String[] names = new String[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            Parameter parameter = parameters[i];
+            if (Consumer.class.isAssignableFrom(parameter.getType())
+                    || parameter.getType() == KeysetPageRequest.class || parameter.getType() == PageRequest.class) {
+                continue;
+            }
+            Param param = parameter.getAnnotation(Param.class);
+            if (param != null) {
+                names[i] = param.value();
+            } else {
+                names[i] = sourceParameterNames != null ? sourceParameterNames.get(i) : parameter.getName();
+            }
+        }
+        return Collections.unmodifiableList(Arrays.asList(names));
+    }
+
+    /**
+     * Возвращает индекс параметра-обработчика строк ({@link Consumer}) или -1, если его нет.
+     */
+    private static int getRowCallbackIndex(Method method) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (Consumer.class.isAssignableFrom(parameterTypes[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Возвращает индекс первого параметра указанного типа или -1, если его нет.
+     */
+    private static int getParameterIndex(Method method, Class<?> type) {
+        Class<?>[] parameterTypes = method.getParameterTypes();
+        for (int i = 0; i < parameterTypes.length; i++) {
+            if (parameterTypes[i] == type) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Возвращает индекс параметра с аннотацией {@link ShardKey} или -1, если его нет.
+     *
+     * @throws IllegalArgumentException если аннотацией отмечено несколько параметров
+     */
+    private static int getShardKeyIndex(Method method) {
+        int index = -1;
+        Parameter[] parameters = method.getParameters();
+        for (int i = 0; i < parameters.length; i++) {
+            if (parameters[i].isAnnotationPresent(ShardKey.class)) {
+                if (index >= 0) {
+                    throw new IllegalArgumentException("Метод " + method + " содержит несколько параметров с аннотацией @ShardKey");
+                }
+                index = i;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Извлекает класс первого параметра обобщенного типа.
+     */
+    private static Class<?> resolveTypeArgument(Type genericType) {
+        return toClass(getTypeArgument(genericType));
+    }
+
+    /**
+     * Возвращает первый параметр обобщенного типа, раскрывая wildcard до его границы.
+     */
+    private static Type getTypeArgument(Type genericType) {
+        if (!(genericType instanceof ParameterizedType parameterizedType)) {
+            return Object.class;
+        }
+        Type argument = parameterizedType.getActualTypeArguments()[0];
+        if (argument instanceof WildcardType wildcardType) {
+            argument = wildcardType.getLowerBounds().length > 0
+                    ? wildcardType.getLowerBounds()[0]
+                    : wildcardType.getUpperBounds()[0];
+        }
+        return argument;
+    }
+
+    /**
+     * Возвращает класс, соответствующий типу (для параметризованного типа - его сырой класс).
+     */
+    private static Class<?> toClass(Type type) {
+        if (type instanceof ParameterizedType parameterizedType) {
+            type = parameterizedType.getRawType();
+        }
+        return type instanceof Class<?> typeClass ? typeClass : Object.class;
+    }
+}
@@ -0,0 +1,26 @@
+package com.koroli.dynamicqueryforge.processing;
+
+import com.koroli.dynamicqueryforge.template.QueryTemplate;
+
+import java.util.List;
+
+/**
+ * Пакет строк изменяющего запроса, сгруппированных по форме SQL-запроса после сокращения.
+ * Строки одной группы выполняются одним пакетом JDBC ({@code addBatch}/{@code executeBatch}).
+ *
+ * @param template шаблон запроса
+ * @param rowCount общее количество строк пакета
+ * @param groups   группы строк с одинаковым текстом SQL-запроса
+ */
+public record ProcessedBatch(QueryTemplate template, int rowCount, List<Group> groups) {
+
+    /**
+     * Группа строк с одинаковым текстом SQL-запроса.
+     *
+     * @param sql        SQL-запрос с плейсхолдерами {@code ?}
+     * @param rowIndexes индексы строк группы в исходной коллекции
+     * @param parameters значения плейсхолдеров для каждой строки группы
+     */
+    public record Group(String sql, int[] rowIndexes, List<List<Object>> parameters) {
+    }
+}
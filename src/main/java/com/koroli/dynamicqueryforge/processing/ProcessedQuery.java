@@ -0,0 +1,78 @@
+package com.koroli.dynamicqueryforge.processing;
+
+import com.koroli.dynamicqueryforge.template.QueryTemplate;
+import com.koroli.dynamicqueryforge.template.StatementType;
+import com.koroli.dynamicqueryforge.util.StringUtils;
+
+import java.util.List;
+
+/**
+ * Результат обработки динамического SQL-запроса, готовый к выполнению.
+ *
+ * @param sql        SQL-запрос в виде строки
+ * @param parameters значения для плейсхолдеров {@code ?} в порядке их следования
+ *                   (пустой список, если значения подставлены в текст запроса)
+ * @param template   шаблон, из которого получен запрос
+ * @param primary    запрос должен выполняться на основной базе данных, даже если он только читает данные
+ * @param replica    номер реплики, выбранной для запроса заранее ({@link #ANY_REPLICA} - любая доступная)
+ */
+public record ProcessedQuery(String sql, List<Object> parameters, QueryTemplate template, boolean primary,
+                             int replica) {
+
+    /** Реплика не выбрана заранее: запрос выполняется на любой доступной реплике */
+    public static final int ANY_REPLICA = -1;
+
+    public ProcessedQuery(String sql, List<Object> parameters, QueryTemplate template) {
+        this(sql, parameters, template, false, ANY_REPLICA);
+    }
+
+    /**
+     * Возвращает тот же запрос, выполняемый на основной базе данных.
+     */
+    public ProcessedQuery onPrimary() {
+        return primary ? this : new ProcessedQuery(sql, parameters, template, true, ANY_REPLICA);
+    }
+
+    /**
+     * Возвращает тот же запрос, выполняемый на реплике с указанным номером.
+     */
+    public ProcessedQuery onReplica(int index) {
+        return new ProcessedQuery(sql, parameters, template, false, index);
+    }
+
+    /**
+     * Возвращает тот же запрос, выполняемый на той же базе данных, что и другой запрос.
+     * Используется для связанных запросов, которые должны читать согласованные данные.
+     */
+    public ProcessedQuery withRouteOf(ProcessedQuery other) {
+        return new ProcessedQuery(sql, parameters, template, other.primary, other.replica);
+    }
+
+    /**
+     * Проверяет, может ли запрос выполняться на реплике для чтения.
+     */
+    public boolean isReplicaEligible() {
+        return !primary && template.isReadOnly();
+    }
+
+    /**
+     * Возвращает тип запроса.
+     */
+    public StatementType statementType() {
+        return template.getStatementType();
+    }
+
+    /**
+     * Проверяет, возвращает ли запрос строки: SELECT или изменяющий запрос с RETURNING.
+     */
+    public boolean returnsRows() {
+        return template.returnsRows();
+    }
+
+    @Override
+    public String toString() {
+        return parameters.isEmpty()
+                ? sql
+                : sql + "\nparameters: " + StringUtils.wrapInBrackets(parameters);
+    }
+}
@@ -1,28 +1,29 @@
 package com.koroli.dynamicqueryforge.processing;
 
 import com.koroli.dynamicqueryforge.cache.QueryCache;
-import com.koroli.dynamicqueryforge.expression.ExpressionModifier;
-import com.koroli.dynamicqueryforge.parser.SqlParser;
-import com.koroli.dynamicqueryforge.util.DeepCloningUtils;
-import net.sf.jsqlparser.expression.operators.relational.ExpressionList;
+import com.koroli.dynamicqueryforge.config.DynamicQueryProperties;
+import com.koroli.dynamicqueryforge.config.DynamicQueryProperties.ParameterMode;
+import com.koroli.dynamicqueryforge.exception.QueryProcessingException;
+import com.koroli.dynamicqueryforge.jfr.ParameterExtractionEvent;
+import com.koroli.dynamicqueryforge.jfr.QueryCompilationEvent;
+import com.koroli.dynamicqueryforge.jfr.QueryEvents;
+import com.koroli.dynamicqueryforge.jfr.QueryProcessingEvent;
+import com.koroli.dynamicqueryforge.page.KeysetPageRequest;
+import com.koroli.dynamicqueryforge.page.PageRequest;
+import com.koroli.dynamicqueryforge.template.QueryTemplate;
+import com.koroli.dynamicqueryforge.template.SqlSkeleton;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import com.koroli.dynamicqueryforge.annotation.Param;
-import net.sf.jsqlparser.expression.Expression;
-import net.sf.jsqlparser.statement.Statement;
-import net.sf.jsqlparser.statement.delete.Delete;
-import net.sf.jsqlparser.statement.insert.Insert;
-import net.sf.jsqlparser.statement.select.PlainSelect;
-import net.sf.jsqlparser.statement.select.Select;
-import net.sf.jsqlparser.statement.update.Update;
-
-import java.lang.annotation.Annotation;
+
 import java.lang.reflect.Method;
 import java.lang.reflect.Parameter;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * Класс для обработки динамических SQL-запросов.
@@ -36,172 +37,271 @@ public class QueryProcessor {
     private boolean logQueriesEnabled;
 
     private final QueryCache queryCache;
+    private final DynamicQueryProperties properties;
 
     @Autowired
-    public QueryProcessor(QueryCache queryCache) {
+    public QueryProcessor(QueryCache queryCache, DynamicQueryProperties properties) {
         this.queryCache = queryCache;
+        this.properties = properties;
     }
 
     /**
      * Обрабатывает SQL-запрос с учетом переданных параметров.
-     * Парсит запрос, применяет кеширование и модифицирует запрос на основе параметров.
+     * Получает скомпилированный шаблон запроса и заполняет скелет, соответствующий набору параметров.
+     * В режиме {@link ParameterMode#BIND} текст запроса содержит плейсхолдеры {@code ?},
+     * а значения возвращаются отдельно в порядке их следования.
      *
      * @param sql        исходный SQL-запрос
      * @param parameters карта параметров и их значений
-     * @return обработанный SQL-запрос в виде строки
+     * @return обработанный SQL-запрос
      */
-    public Statement processQuery(String sql, Map<String, Object> parameters) {
-        // Нормализуем SQL для кеширования
-        String normalizedSql = normalizeSql(sql);
-        String cacheKey = generateCacheKey(normalizedSql);
-
-        // Пытаемся получить запрос из кеша
-        Statement statement = queryCache.get(cacheKey);
-
-        // Если запроса нет в кеше, парсим его и сохраняем
-        if (statement == null) {
-            statement = SqlParser.parse(normalizedSql);
-            queryCache.put(cacheKey, statement);
-        }
-
-        // Модификация запроса на основе параметров
-        Statement modifiedStatement = applyParameters(statement, parameters);
-
-        // Возвращаем модифицированный запрос в виде строки
-        return modifiedStatement;
+    public ProcessedQuery processQuery(String sql, Map<String, Object> parameters) {
+        return process(sql, parameters, template -> template.shape(parameters), parameters);
     }
 
     /**
-     * Извлекает параметры из аргументов метода.
+     * Обрабатывает SQL-запрос страницы с постраничной навигацией по ключу: к сокращенному запросу
+     * добавляются условие продолжения после последней прочитанной строки, сортировка и лимит страницы.
      *
-     * @param requestId уникальный ID запроса для логирования
-     * @param method    метод репозитория
-     * @param args      аргументы метода
-     * @return карта имен параметров и их значений
+     * @param sql        исходный SQL-запрос
+     * @param parameters карта параметров и их значений
+     * @param page       запрос страницы
+     * @return обработанный SQL-запрос, возвращающий до {@code page.size() + 1} строк
+     * @throws QueryProcessingException если запрос страницы не передан или запрос не является простым SELECT
      */
-    public Map<String, Object> extractParameters(UUID requestId, Method method, Object[] args) {
-        Map<String, Object> paramsMap = new LinkedHashMap<>();
+    public ProcessedQuery processKeysetQuery(String sql, Map<String, Object> parameters, KeysetPageRequest page) {
+        if (page == null) {
+            throw new QueryProcessingException("Не передан запрос страницы KeysetPageRequest");
+        }
+        return process(sql, parameters, template -> template.keysetShape(parameters, page),
+                QueryTemplate.keysetParameters(parameters, page));
+    }
 
-        if (args == null || args.length == 0) {
-            return paramsMap;
+    /**
+     * Обрабатывает SQL-запрос страницы с постраничной навигацией по смещению: в сокращенный запрос
+     * подставляются LIMIT и OFFSET страницы и, если она задана, сортировка страницы.
+     *
+     * @param sql        исходный SQL-запрос
+     * @param parameters карта параметров и их значений
+     * @param page       запрос страницы
+     * @return обработанный SQL-запрос, возвращающий до {@code page.size() + 1} строк
+     * @throws QueryProcessingException если запрос страницы не передан или запрос не является простым SELECT
+     */
+    public ProcessedQuery processPageQuery(String sql, Map<String, Object> parameters, PageRequest page) {
+        if (page == null) {
+            throw new QueryProcessingException("Не передан запрос страницы PageRequest");
         }
+        return process(sql, parameters, template -> template.offsetShape(parameters, page),
+                QueryTemplate.offsetParameters(parameters, page));
+    }
 
-        Parameter[] parameters = method.getParameters();
-        Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+    /**
+     * Обрабатывает запрос подсчета строк для страницы с навигацией по смещению:
+     * {@code SELECT count(*)} по тому же сокращенному запросу без ORDER BY, LIMIT и OFFSET.
+     *
+     * @param sql        исходный SQL-запрос
+     * @param parameters карта параметров и их значений
+     * @param page       запрос страницы с включенным подсчетом
+     * @return обработанный запрос, возвращающий одну строку с количеством строк
+     */
+    public ProcessedQuery processCountQuery(String sql, Map<String, Object> parameters, PageRequest page) {
+        return process(sql, parameters, template -> template.countShape(parameters, page),
+                QueryTemplate.offsetParameters(parameters, page));
+    }
 
-        StringJoiner paramInfoJoiner = new StringJoiner("\n");
+    /**
+     * Обрабатывает SQL-запрос, записывая событие JFR обработки.
+     *
+     * @param shaper формы запроса по шаблону
+     * @param values значения параметров для заполнения скелета (включая параметры страницы)
+     */
+    private ProcessedQuery process(String sql, Map<String, Object> parameters,
+                                   Function<QueryTemplate, QueryTemplate.Shape> shaper, Map<String, Object> values) {
+        QueryProcessingEvent event = new QueryProcessingEvent();
+        event.begin();
+
+        QueryTemplate template = getTemplate(sql, event);
+        QueryEvents.recordFingerprint(template.getFingerprint());
+
+        // Форма запроса зависит от маски присутствия параметров, размеров коллекций в IN и перестройки страницы
+        QueryTemplate.Shape shape = shaper.apply(template);
+        boolean shapeCached = event.isEnabled() && template.isShapeCached(shape);
+        ProcessedQuery processedQuery = render(template, template.skeleton(shape, values), values);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.setRepositoryMethod(QueryEvents.repositoryMethod());
+            event.setFingerprint(template.getFingerprint());
+            event.setShapeCacheHit(shapeCached);
+            event.setPresenceMask(shape.mask());
+            event.setBindCount(processedQuery.parameters().size());
+            event.commit();
+        }
+        return processedQuery;
+    }
 
-        for (int i = 0; i < parameters.length; i++) {
-            Parameter parameter = parameters[i];
-            Object value = args[i];
-            Annotation[] annotations = parameterAnnotations[i];
-
-            // По умолчанию используем имя параметра
-            String paramName = parameter.getName();
-            boolean annotated = false;
-
-            // Ищем аннотацию @Param
-            for (Annotation annotation : annotations) {
-                if (annotation instanceof Param paramAnn) {
-                    paramName = paramAnn.value();
-                    annotated = true;
-                    break;
-                }
-            }
+    /**
+     * Обрабатывает уже скомпилированный шаблон запроса с учетом переданных параметров.
+     * Используется для производных шаблонов, которых нет в кеше запросов, например для запроса шарда.
+     *
+     * @param template   шаблон запроса
+     * @param parameters карта параметров и их значений
+     * @return обработанный SQL-запрос
+     */
+    public ProcessedQuery processQuery(QueryTemplate template, Map<String, Object> parameters) {
+        return render(template, template.skeleton(parameters), parameters);
+    }
 
-            // Добавляем параметр в карту
-            paramsMap.put(paramName, value);
+    /**
+     * Заполняет скелет запроса значениями параметров согласно {@link ParameterMode}.
+     */
+    private ProcessedQuery render(QueryTemplate template, SqlSkeleton skeleton, Map<String, Object> parameters) {
+        return switch (properties.getParameterMode()) {
+            case INLINE -> new ProcessedQuery(skeleton.render(parameters), List.of(), template);
+            case BIND -> new ProcessedQuery(skeleton.getParameterizedSql(), skeleton.bindValues(parameters), template);
+        };
+    }
 
-            paramInfoJoiner
-                    .add("Parameter #" + (i + 1) + " = '" + value + "'")
-                    .add(annotated
-                            ? "    ├── @Param: " + paramName + "\n    └── name variable: " + parameter.getName()
-                            : "    └── name variable: " + parameter.getName());
+    /**
+     * Обрабатывает изменяющий запрос для пакетного выполнения.
+     * Строки с одинаковой формой запроса после сокращения объединяются в одну группу.
+     * Значения всегда передаются через плейсхолдеры {@code ?}, независимо от {@link ParameterMode}:
+     * пакет JDBC требует одинакового текста запроса для всех строк группы.
+     *
+     * @param sql  исходный SQL-запрос
+     * @param rows параметры каждой строки пакета
+     * @return пакет, сгруппированный по форме запроса
+     */
+    public ProcessedBatch processBatch(String sql, List<Map<String, Object>> rows) {
+        QueryTemplate template = getTemplate(sql);
+        QueryEvents.recordFingerprint(template.getFingerprint());
+
+        Map<String, List<Integer>> indexesBySql = new LinkedHashMap<>();
+        Map<String, List<List<Object>>> valuesBySql = new HashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            Map<String, Object> parameters = rows.get(i);
+            SqlSkeleton skeleton = template.skeleton(parameters);
+            String parameterizedSql = skeleton.getParameterizedSql();
+
+            indexesBySql.computeIfAbsent(parameterizedSql, key -> new ArrayList<>()).add(i);
+            valuesBySql.computeIfAbsent(parameterizedSql, key -> new ArrayList<>()).add(skeleton.bindValues(parameters));
         }
 
-        logQuery(requestId, "Parameter details in dynamic query", paramInfoJoiner.toString());
+        List<ProcessedBatch.Group> groups = new ArrayList<>(indexesBySql.size());
+        indexesBySql.forEach((parameterizedSql, indexes) -> groups.add(new ProcessedBatch.Group(
+                parameterizedSql,
+                indexes.stream().mapToInt(Integer::intValue).toArray(),
+                valuesBySql.get(parameterizedSql))));
 
-        return paramsMap;
+        return new ProcessedBatch(template, rows.size(), groups);
     }
 
     /**
-     * Применяет параметры к SQL-запросу, модифицируя его при необходимости.
+     * Возвращает скомпилированный шаблон SQL-запроса, компилируя его при первом обращении.
      *
-     * @param statement  запрос в виде объекта Statement
-     * @param parameters карта параметров
-     * @return модифицированный запрос
+     * @param sql исходный SQL-запрос
+     * @return шаблон запроса
      */
-    private Statement applyParameters(Statement statement, Map<String, Object> parameters) {
-        // Создаем редактор выражений для указанных параметров
-        ExpressionModifier editor = new ExpressionModifier(parameters);
-
-        // Создаем копию запроса для модификаций
-        Statement cloneStatement = DeepCloningUtils.clone(statement);
-
-        // Модифицируем запрос в зависимости от его типа
-        return switch (cloneStatement) {
-            case Select select -> modifySelect(select, editor);
-            case Update update -> modifyUpdate(update, editor);
-            case Insert insert -> modifyInsert(insert, editor);
-            case Delete delete -> modifyDelete(delete, editor);
-            default -> cloneStatement;
-        };
+    public QueryTemplate getTemplate(String sql) {
+        // Ключом служит полный текст запроса: нормализация выполняется только при компиляции
+        return queryCache.get(sql, this::compileTemplate);
     }
 
     /**
-     * Модифицирует SELECT-запрос на основе параметров.
+     * Возвращает шаблон запроса, отмечая в событии JFR промах кеша запросов.
+     * Если событие не записывается, поведение совпадает с {@link #getTemplate(String)}.
      */
-    private Select modifySelect(Select select, ExpressionModifier editor) {
-        if (select instanceof PlainSelect plainSelect && plainSelect.getWhere() != null) {
-            Expression where = plainSelect.getWhere();
-            plainSelect.setWhere(editor.modify(where));
+    private QueryTemplate getTemplate(String sql, QueryProcessingEvent event) {
+        if (!event.isEnabled()) {
+            return getTemplate(sql);
         }
-        return select;
+        return queryCache.get(sql, raw -> {
+            event.setTemplateCacheHit(false);
+            return compileTemplate(raw);
+        });
     }
 
     /**
-     * Модифицирует UPDATE-запрос на основе параметров.
+     * Нормализует и компилирует SQL-запрос в шаблон.
      */
-    private Update modifyUpdate(Update update, ExpressionModifier editor) {
-        if (update.getWhere() != null) {
-            update.setWhere(editor.modify(update.getWhere()));
+    private QueryTemplate compileTemplate(String sql) {
+        QueryCompilationEvent event = new QueryCompilationEvent();
+        event.begin();
+
+        QueryTemplate template = QueryTemplate.compile(normalizeSql(sql), properties.getInListMaxExpansion());
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.setRepositoryMethod(QueryEvents.repositoryMethod());
+            event.setFingerprint(template.getFingerprint());
+            event.setWeight(template.getWeight());
+            event.setParameterCount(template.getParameterNames().size());
+            event.commit();
         }
-
-        List<Expression> modifiedExpressions = update.getExpressions().stream()
-                .map(editor::modify)
-                .toList();
-        update.setExpressions(modifiedExpressions);
-
-        return update;
+        return template;
     }
 
     /**
-     * Модифицирует INSERT-запрос на основе параметров.
+     * Извлекает параметры из аргументов метода по именам, заранее вычисленным в описании метода.
+     *
+     * @param requestId  ID запроса для логирования
+     * @param descriptor описание метода репозитория
+     * @param args       аргументы метода
+     * @return карта имен параметров и их значений
      */
-    private Insert modifyInsert(Insert insert, ExpressionModifier editor) {
-        if (insert.getValues() != null) {
-            ExpressionList expressions = insert.getValues().getExpressions();
-            List<Expression> modifiedExpressions = ((List<Expression>) expressions.getExpressions()).stream()
-                    .map(editor::modify)
-                    .toList();
-            expressions.setExpressions(modifiedExpressions);
+    public Map<String, Object> extractParameters(long requestId, MethodDescriptor descriptor, Object[] args) {
+        if (args == null || args.length == 0) {
+            return new HashMap<>();
+        }
+
+        ParameterExtractionEvent event = new ParameterExtractionEvent();
+        event.begin();
+
+        List<String> parameterNames = descriptor.parameterNames();
+        Map<String, Object> paramsMap = HashMap.newHashMap(args.length);
+        for (int i = 0; i < args.length; i++) {
+            String paramName = parameterNames.get(i);
+            if (paramName != null) {
+                paramsMap.put(paramName, args[i]);
+            }
         }
 
-        if (insert.getSelect() != null) {
-            modifySelect(insert.getSelect(), editor);
+        event.end();
+        if (event.shouldCommit()) {
+            event.setRepositoryMethod(descriptor.displayName());
+            event.setParameterCount(paramsMap.size());
+            event.commit();
         }
 
-        return insert;
+        if (logQueriesEnabled) {
+            logQuery(requestId, "Parameter details in dynamic query", describeParameters(descriptor.method(), args));
+        }
+        return paramsMap;
     }
 
     /**
-     * Модифицирует DELETE-запрос на основе параметров.
+     * Формирует описание параметров метода для логирования.
      */
-    private Delete modifyDelete(Delete delete, ExpressionModifier editor) {
-        if (delete.getWhere() != null) {
-            delete.setWhere(editor.modify(delete.getWhere()));
+    private String describeParameters(Method method, Object[] args) {
+        Parameter[] parameters = method.getParameters();
+        StringJoiner paramInfoJoiner = new StringJoiner("\n");
+
+        for (int i = 0; i < parameters.length; i++) {
+            Parameter parameter = parameters[i];
+
+            // Обработчик строк результата не является параметром запроса
+            if (Consumer.class.isAssignableFrom(parameter.getType())) {
+                continue;
+            }
+
+            Param paramAnn = parameter.getAnnotation(Param.class);
+            paramInfoJoiner
+                    .add("Parameter #" + (i + 1) + " = '" + args[i] + "'")
+                    .add(paramAnn != null
+                            ? "    ├── @Param: " + paramAnn.value() + "\n    └── name variable: " + parameter.getName()
+                            : "    └── name variable: " + parameter.getName());
         }
-        return delete;
+        return paramInfoJoiner.toString();
     }
 
     /**
@@ -211,17 +311,10 @@ public class QueryProcessor {
         return sql.trim().replaceAll("\\s+", " ");
     }
 
-    /**
-     * Генерирует ключ для кеширования SQL-запроса.
-     */
-    private String generateCacheKey(String sql) {
-        return "sql:" + sql.hashCode();
-    }
-
     /**
      * Логирует запрос, если логирование включено.
      */
-    private void logQuery(UUID requestId, String message, String query) {
+    private void logQuery(long requestId, String message, String query) {
         if (!logQueriesEnabled) {
             return;
         }
@@ -0,0 +1,228 @@
+package com.koroli.dynamicqueryforge.processing;
+
+import com.koroli.dynamicqueryforge.cache.QueryCache;
+import com.koroli.dynamicqueryforge.cache.QueryCacheStatistics;
+import com.koroli.dynamicqueryforge.client.postgres.PostgresClient;
+import com.koroli.dynamicqueryforge.config.DynamicQueryProperties;
+import com.koroli.dynamicqueryforge.config.DynamicQueryProperties.WarmupProperties;
+import com.koroli.dynamicqueryforge.exception.QueryParsingException;
+import com.koroli.dynamicqueryforge.exception.QueryProcessingException;
+import com.koroli.dynamicqueryforge.repository.DynamicQueryRepository;
+import com.koroli.dynamicqueryforge.template.QueryTemplate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Разбор всех запросов репозиториев при запуске приложения.
+ * <p>
+ * После создания синглтонов собирает методы с аннотацией @Query всех зарегистрированных репозиториев,
+ * параллельно компилирует их запросы в шаблоны {@link QueryTemplate} и помещает в кеш запросов, чтобы
+ * первый вызов каждого метода не платил за разбор SQL. Некорректный запрос прерывает запуск приложения.
+ * При включенном {@code dynamic-query.warmup.prepare-statements} запросы дополнительно подготавливаются
+ * на соединении с базой данных, что проверяет их по схеме и заполняет кеш подготовленных запросов.
+ */
+@Component
+public class QueryWarmup implements SmartInitializingSingleton {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(QueryWarmup.class);
+
+    private final ListableBeanFactory beanFactory;
+    private final QueryProcessor queryProcessor;
+    private final QueryCache queryCache;
+    private final RepositoryMethodInterceptor interceptor;
+    private final PostgresClient client;
+    private final DynamicQueryProperties properties;
+
+    @Autowired
+    public QueryWarmup(ListableBeanFactory beanFactory, QueryProcessor queryProcessor, QueryCache queryCache,
+                       RepositoryMethodInterceptor interceptor, PostgresClient client,
+                       DynamicQueryProperties properties) {
+        this.beanFactory = beanFactory;
+        this.queryProcessor = queryProcessor;
+        this.queryCache = queryCache;
+        this.interceptor = interceptor;
+        this.client = client;
+        this.properties = properties;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (properties.getWarmup().isEnabled()) {
+            warmup();
+        }
+    }
+
+    /**
+     * Разбирает и, при необходимости, подготавливает запросы всех репозиториев.
+     *
+     * @throws QueryParsingException    если хотя бы один запрос не удалось разобрать
+     * @throws QueryProcessingException если хотя бы один запрос не удалось подготовить
+     */
+    public void warmup() {
+        WarmupProperties warmup = properties.getWarmup();
+        List<MethodDescriptor> methods = collectQueryMethods();
+        if (methods.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        List<ParseTiming> timings = parseAll(methods, warmup.getParallelism() > 0
+                ? warmup.getParallelism()
+                : Runtime.getRuntime().availableProcessors());
+        long elapsed = System.nanoTime() - start;
+
+        List<ParseTiming> failures = timings.stream().filter(timing -> timing.error() != null).toList();
+        if (!failures.isEmpty()) {
+            StringJoiner message = new StringJoiner("\n", "Некорректные SQL-запросы в репозиториях:\n", "");
+            failures.forEach(failure -> message.add(methodName(failure.method()) + ": " + failure.error().getMessage()));
+            throw new QueryParsingException(message.toString(), failures.getFirst().error());
+        }
+
+        report(timings, elapsed, warmup.getReportSlowest());
+
+        if (warmup.isPrepareStatements()) {
+            prepareAll(timings);
+        }
+    }
+
+    /**
+     * Собирает описания методов с аннотацией @Query всех зарегистрированных репозиториев.
+     */
+    private List<MethodDescriptor> collectQueryMethods() {
+        Set<Class<?>> repositoryInterfaces = new LinkedHashSet<>();
+        for (String beanName : beanFactory.getBeanNamesForType(DynamicQueryRepository.class, true, false)) {
+            Class<?> type = beanFactory.getType(beanName, false);
+            if (type == null) {
+                continue;
+            }
+            if (type.isInterface()) {
+                repositoryInterfaces.add(type);
+            } else {
+                // Сгенерированная реализация репозитория
+                for (Class<?> implemented : ClassUtils.getAllInterfacesForClassAsSet(type)) {
+                    if (implemented != DynamicQueryRepository.class && DynamicQueryRepository.class.isAssignableFrom(implemented)) {
+                        repositoryInterfaces.add(implemented);
+                    }
+                }
+            }
+        }
+
+        List<MethodDescriptor> methods = new ArrayList<>();
+        for (Class<?> repositoryInterface : repositoryInterfaces) {
+            methods.addAll(interceptor.registerRepository(repositoryInterface));
+        }
+        return methods;
+    }
+
+    /**
+     * Параллельно компилирует запросы методов в шаблоны, замеряя время разбора каждого.
+     */
+    private List<ParseTiming> parseAll(List<MethodDescriptor> methods, int parallelism) {
+        try (ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, methods.size()))) {
+            List<Future<ParseTiming>> futures = new ArrayList<>(methods.size());
+            for (MethodDescriptor method : methods) {
+                futures.add(executor.submit(() -> parse(method)));
+            }
+
+            List<ParseTiming> timings = new ArrayList<>(methods.size());
+            for (Future<ParseTiming> future : futures) {
+                timings.add(future.get());
+            }
+            return timings;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QueryProcessingException("Разбор запросов при запуске прерван", e);
+        } catch (ExecutionException e) {
+            throw new QueryProcessingException("Ошибка при разборе запросов при запуске", e.getCause());
+        }
+    }
+
+    /**
+     * Компилирует запрос метода и помещает шаблон в кеш.
+     */
+    private ParseTiming parse(MethodDescriptor method) {
+        long start = System.nanoTime();
+        try {
+            QueryTemplate template = queryProcessor.getTemplate(method.sql());
+            return new ParseTiming(method, template, System.nanoTime() - start, null);
+        } catch (RuntimeException e) {
+            return new ParseTiming(method, null, System.nanoTime() - start, e);
+        }
+    }
+
+    /**
+     * Подготавливает запросы на соединении с базой данных.
+     * Подготавливается полная форма запроса, в которой присутствуют все параметры.
+     */
+    private void prepareAll(List<ParseTiming> timings) {
+        Map<String, MethodDescriptor> methodsBySql = new LinkedHashMap<>();
+        for (ParseTiming timing : timings) {
+            methodsBySql.putIfAbsent(timing.template().skeleton(-1L).getParameterizedSql(), timing.method());
+        }
+
+        long start = System.nanoTime();
+        Map<String, SQLException> failures = client.prepareAll(methodsBySql.keySet());
+        if (!failures.isEmpty()) {
+            StringJoiner message = new StringJoiner("\n", "Не удалось подготовить SQL-запросы репозиториев:\n", "");
+            failures.forEach((sql, error) -> message.add(methodName(methodsBySql.get(sql)) + ": " + error.getMessage()));
+            throw new QueryProcessingException(message.toString(), failures.values().iterator().next());
+        }
+        LOGGER.info("Подготовлено {} запросов за {} мс", methodsBySql.size(), toMillis(System.nanoTime() - start));
+    }
+
+    /**
+     * Логирует итоговый отчет о разборе запросов.
+     */
+    private void report(List<ParseTiming> timings, long elapsedNanos, int slowest) {
+        long totalParseNanos = timings.stream().mapToLong(ParseTiming::nanos).sum();
+        long distinctQueries = timings.stream().map(timing -> timing.method().sql()).distinct().count();
+
+        LOGGER.info("Разобрано {} запросов ({} уникальных) за {} мс, суммарное время разбора {} мс",
+                timings.size(), distinctQueries, toMillis(elapsedNanos), toMillis(totalParseNanos));
+
+        List<ParseTiming> sorted = timings.stream()
+                .sorted(Comparator.comparingLong(ParseTiming::nanos).reversed())
+                .toList();
+        for (int i = 0; i < sorted.size(); i++) {
+            ParseTiming timing = sorted.get(i);
+            if (i < slowest) {
+                LOGGER.info("  {} мс - {}", toMillis(timing.nanos()), methodName(timing.method()));
+            } else if (LOGGER.isDebugEnabled()) {
+                LOGGER.debug("  {} мс - {}", toMillis(timing.nanos()), methodName(timing.method()));
+            }
+        }
+
+        QueryCacheStatistics statistics = queryCache.getStatistics();
+        if (statistics.evictionCount() > 0) {
+            LOGGER.warn("При разборе запросов из кеша вытеснено {} шаблонов (суммарный вес {}, текущий вес {}): "
+                            + "увеличьте dynamic-query.cache.max-weight или dynamic-query.cache.max-size",
+                    statistics.evictionCount(), statistics.evictionWeight(), statistics.weightedSize());
+        }
+    }
+
+    private static String methodName(MethodDescriptor method) {
+        return method.displayName();
+    }
+
+    private static String toMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.2f", nanos / 1_000_000.0);
+    }
+
+    /**
+     * Результат разбора запроса одного метода.
+     */
+    private record ParseTiming(MethodDescriptor method, QueryTemplate template, long nanos, RuntimeException error) {
+    }
+}
@@ -1,8 +1,31 @@
 package com.koroli.dynamicqueryforge.processing;
 
+import com.koroli.dynamicqueryforge.annotation.Batch;
+import com.koroli.dynamicqueryforge.annotation.BulkCopy;
 import com.koroli.dynamicqueryforge.annotation.Query;
+import com.koroli.dynamicqueryforge.annotation.ShardKey;
+import com.koroli.dynamicqueryforge.annotation.UsePrimary;
+import com.koroli.dynamicqueryforge.cache.ResultCache;
 import com.koroli.dynamicqueryforge.client.postgres.PostgresClient;
-import net.sf.jsqlparser.statement.Statement;
+import com.koroli.dynamicqueryforge.config.DynamicQueryProperties;
+import com.koroli.dynamicqueryforge.exception.QueryProcessingException;
+import com.koroli.dynamicqueryforge.jfr.QueryEvents;
+import com.koroli.dynamicqueryforge.jfr.RepositoryInvocationEvent;
+import com.koroli.dynamicqueryforge.page.KeysetPage;
+import com.koroli.dynamicqueryforge.page.KeysetPageRequest;
+import com.koroli.dynamicqueryforge.page.Page;
+import com.koroli.dynamicqueryforge.page.PageRequest;
+import com.koroli.dynamicqueryforge.page.SortOrder;
+import com.koroli.dynamicqueryforge.result.BatchResult;
+import com.koroli.dynamicqueryforge.result.ColumnarResult;
+import com.koroli.dynamicqueryforge.result.CursorPublisher;
+import com.koroli.dynamicqueryforge.result.ResultCursor;
+import com.koroli.dynamicqueryforge.template.CopyTarget;
+import com.koroli.dynamicqueryforge.template.QueryTemplate;
+import com.koroli.dynamicqueryforge.template.ScatterPlan;
+import com.koroli.dynamicqueryforge.template.StatementType;
+import com.koroli.dynamicqueryforge.util.BeanPropertyUtils;
+import com.koroli.dynamicqueryforge.util.ResultMappingUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -11,10 +34,19 @@ import org.springframework.stereotype.Component;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
-import java.lang.reflect.ParameterizedType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
  * Класс-перехватчик методов репозитория.
@@ -29,11 +61,47 @@ public class RepositoryMethodInterceptor implements InvocationHandler {
 
     private final QueryProcessor queryProcessor;
     private final PostgresClient queryExecutor;
+    private final AsyncQueryExecutor asyncQueryExecutor;
+    private final SlowQueryLog slowQueryLog;
+    private final ResultCache resultCache;
+    private final ShardedQueryExecutor shardedQueryExecutor;
+    private final DynamicQueryProperties properties;
+
+    /** Описания методов репозиториев */
+    private final Map<Method, MethodDescriptor> descriptors = new ConcurrentHashMap<>();
+
+    /** Генератор идентификаторов запросов для логирования */
+    private final AtomicLong requestIds = new AtomicLong();
 
     @Autowired
-    public RepositoryMethodInterceptor(QueryProcessor queryProcessor, PostgresClient queryExecutor) {
+    public RepositoryMethodInterceptor(QueryProcessor queryProcessor, PostgresClient queryExecutor,
+                                       AsyncQueryExecutor asyncQueryExecutor, SlowQueryLog slowQueryLog,
+                                       ResultCache resultCache, ShardedQueryExecutor shardedQueryExecutor,
+                                       DynamicQueryProperties properties) {
         this.queryProcessor = queryProcessor;
         this.queryExecutor = queryExecutor;
+        this.asyncQueryExecutor = asyncQueryExecutor;
+        this.slowQueryLog = slowQueryLog;
+        this.resultCache = resultCache;
+        this.shardedQueryExecutor = shardedQueryExecutor;
+        this.properties = properties;
+    }
+
+    /**
+     * Строит описания всех методов интерфейса репозитория с аннотацией @Query.
+     * Вызывается при создании прокси, чтобы при вызове метода не обращаться к рефлексии.
+     *
+     * @param repositoryInterface интерфейс репозитория
+     * @return описания методов репозитория с аннотацией @Query
+     */
+    public List<MethodDescriptor> registerRepository(Class<?> repositoryInterface) {
+        List<MethodDescriptor> registered = new ArrayList<>();
+        for (Method method : repositoryInterface.getMethods()) {
+            if (method.isAnnotationPresent(Query.class)) {
+                registered.add(descriptors.computeIfAbsent(method, MethodDescriptor::of));
+            }
+        }
+        return registered;
     }
 
     /**
@@ -42,51 +110,435 @@ public class RepositoryMethodInterceptor implements InvocationHandler {
      * @param proxy  прокси-объект
      * @param method вызываемый метод
      * @param args   аргументы вызова метода
-     * @return результат выполнения запроса или null, если метод не аннотирован @Query
+     * @return результат выполнения запроса, {@link CompletableFuture} с результатом для асинхронных методов
+     *         или null, если метод не аннотирован @Query
      */
     @Override
     public Object invoke(Object proxy, Method method, Object[] args) {
-        // Генерируем уникальный ID запроса для логирования
-        UUID requestId = UUID.randomUUID();
+        MethodDescriptor descriptor = descriptors.get(method);
+        if (descriptor == null) {
+            // Метод интерфейса, не зарегистрированного через registerRepository
+            if (!method.isAnnotationPresent(Query.class)) return null;
+            descriptor = descriptors.computeIfAbsent(method, MethodDescriptor::of);
+        }
 
-        // Проверяем наличие аннотации Query
-        Query queryAnnotation = method.getAnnotation(Query.class);
-        if (queryAnnotation == null) return null;
+        return invoke(descriptor, args);
+    }
 
-        // Извлекаем оригинальный SQL-запрос из аннотации
-        String originalSql = queryAnnotation.value();
-        logQuery(requestId, "Original SQL Query", originalSql);
+    /**
+     * Выполняет метод репозитория по его описанию.
+     * Вызывается прокси и сгенерированными реализациями репозиториев.
+     *
+     * @param descriptor описание метода
+     * @param args       аргументы вызова метода
+     * @return результат выполнения запроса или {@link CompletableFuture} с результатом для асинхронных методов
+     */
+    public Object invoke(MethodDescriptor descriptor, Object[] args) {
+        // Асинхронный метод: запрос выполняется в исполнителе, а результат оборачивается во future
+        if (descriptor.async()) {
+            return asyncQueryExecutor.submit(() -> executeQuery(descriptor, args));
+        }
+        return executeQuery(descriptor, args);
+    }
+
+    /**
+     * Выполняет запрос метода, записывая событие JFR вызова.
+     */
+    private Object executeQuery(MethodDescriptor descriptor, Object[] args) {
+        RepositoryInvocationEvent event = new RepositoryInvocationEvent();
+        event.begin();
+        if (event.isEnabled()) {
+            event.setRepositoryMethod(descriptor.displayName());
+            event.setReturnKind(descriptor.returnKind().name());
+            event.setRowCount(isStreaming(descriptor.returnKind()) ? -1 : 0);
+            QueryEvents.enter(event);
+        }
+        try {
+            return processAndExecute(descriptor, args);
+        } finally {
+            QueryEvents.exit(event);
+            event.commit();
+        }
+    }
+
+    /**
+     * Обрабатывает и выполняет запрос метода.
+     */
+    private Object processAndExecute(MethodDescriptor descriptor, Object[] args) {
+        long requestId = requestIds.incrementAndGet();
+        logQuery(requestId, "Original SQL Query", descriptor.sql());
+
+        switch (descriptor.returnKind()) {
+            case BATCH -> { return executeBatch(descriptor, args); }
+            case BULK_COPY -> { return executeBulkCopy(descriptor, args); }
+            default -> { }
+        }
+
+        // Замер этапов выполняется только для методов, медленные вызовы которых логируются
+        long slowThreshold = slowQueryLog.thresholdNanos(descriptor);
+        long start = slowThreshold >= 0 ? System.nanoTime() : 0L;
 
         // Получаем параметры запроса на основе аргументов метода
-        Map<String, Object> parameters = queryProcessor.extractParameters(requestId, method, args);
+        Map<String, Object> parameters = queryProcessor.extractParameters(requestId, descriptor, args);
+        long extracted = slowThreshold >= 0 ? System.nanoTime() : 0L;
 
         // Обрабатываем SQL-запрос, применяя динамические параметры
-        Statement processedSql = queryProcessor.processQuery(originalSql, parameters);
-        logQuery(requestId, "Processed SQL Query", processedSql.toString());
+        ProcessedQuery processedSql = withRouting(descriptor, process(descriptor, parameters, args));
+        logQuery(requestId, "Processed SQL Query", processedSql);
+        long processed = slowThreshold >= 0 ? System.nanoTime() : 0L;
+
+        // Метод с ключом шардирования выполняется на шарде ключа или, без ключа, на всех шардах
+        int shard = shardIndex(descriptor, args);
+        Supplier<Object> execution = shard >= 0
+                ? () -> execute(descriptor, processedSql, parameters, args, shardedQueryExecutor.client(shard))
+                : isSharded(descriptor)
+                ? () -> scatter(descriptor, processedSql, parameters)
+                : () -> execute(descriptor, processedSql, parameters, args, queryExecutor);
+
+        Object result;
+        if (descriptor.cacheResult() != null) {
+            result = resultCache.get(descriptor, processedSql, shard, execution);
+        } else if (processedSql.statementType() != StatementType.SELECT) {
+            // Изменяющий или служебный запрос очищает кеши результатов затронутых таблиц
+            try {
+                result = execution.get();
+            } finally {
+                resultCache.invalidate(processedSql.template());
+            }
+        } else {
+            result = execution.get();
+        }
+
+        if (slowThreshold >= 0) {
+            long finished = System.nanoTime();
+            if (finished - start >= slowThreshold) {
+                slowQueryLog.report(descriptor, processedSql, processedSql.template().presenceMask(parameters),
+                        extracted - start, processed - extracted, finished - processed,
+                        countRows(descriptor, processedSql, result));
+            }
+        }
+        return result;
+    }
 
-        // Получаем информацию о запрашиваемом типе результата
-        Class<?> resultType = getReturnType(method);
-        boolean isSingleResult = !List.class.isAssignableFrom(method.getReturnType());
+    /**
+     * Выполняет обработанный запрос и возвращает результат в виде, соответствующем методу.
+     */
+    @SuppressWarnings("unchecked")
+    private Object execute(MethodDescriptor descriptor, ProcessedQuery processedSql, Map<String, Object> parameters,
+                           Object[] args, PostgresClient queryExecutor) {
+        Class<?> resultType = descriptor.resultType();
+        return switch (descriptor.returnKind()) {
+            // Колоночный результат для аналитических выборок
+            case COLUMNAR -> queryExecutor.executeColumnar(processedSql);
 
-        // Выполняем запрос и возвращаем результат
-        return queryExecutor.execute(processedSql, resultType, isSingleResult);
+            // Потоковое чтение результата: строки мапятся по одной по мере перебора
+            case STREAM -> queryExecutor.openCursor(processedSql, resultType).stream();
+            case ITERATOR -> queryExecutor.openCursor(processedSql, resultType);
+            case PUBLISHER -> new CursorPublisher<>(
+                    () -> queryExecutor.openCursor(processedSql, resultType),
+                    asyncQueryExecutor.getExecutor());
+            case CALLBACK -> {
+                Consumer<Object> rowCallback = (Consumer<Object>) args[descriptor.rowCallbackIndex()];
+                try (ResultCursor<?> cursor = queryExecutor.openCursor(processedSql, resultType)) {
+                    cursor.forEachRemaining(rowCallback);
+                }
+                yield null;
+            }
+
+            // Выполняем запрос и возвращаем результат
+            case LIST -> queryExecutor.execute(processedSql, resultType, false);
+            case SINGLE -> queryExecutor.execute(processedSql, resultType, true);
+            case KEYSET_PAGE -> toKeysetPage((KeysetPageRequest) args[descriptor.pageRequestIndex()],
+                    (List<Object>) queryExecutor.execute(processedSql, resultType, false));
+            case PAGE -> executePage(descriptor, processedSql, parameters,
+                    (PageRequest) args[descriptor.pageRequestIndex()], queryExecutor);
+            case BATCH, BULK_COPY -> throw new IllegalStateException("Unreachable: " + descriptor.returnKind());
+        };
     }
 
     /**
-     * Определяет тип возвращаемого значения метода.
+     * Обрабатывает SQL-запрос метода; для метода, возвращающего страницу, запрос перестраивается
+     * под запрос страницы из аргументов.
      */
-    private Class<?> getReturnType(Method method) {
-        if (List.class.isAssignableFrom(method.getReturnType())) {
-            ParameterizedType genericReturnType = (ParameterizedType) method.getGenericReturnType();
-            return (Class<?>) genericReturnType.getActualTypeArguments()[0];
+    private ProcessedQuery process(MethodDescriptor descriptor, Map<String, Object> parameters, Object[] args) {
+        return switch (descriptor.returnKind()) {
+            case KEYSET_PAGE -> queryProcessor.processKeysetQuery(descriptor.sql(), parameters,
+                    (KeysetPageRequest) args[descriptor.pageRequestIndex()]);
+            case PAGE -> queryProcessor.processPageQuery(descriptor.sql(), parameters,
+                    (PageRequest) args[descriptor.pageRequestIndex()]);
+            default -> queryProcessor.processQuery(descriptor.sql(), parameters);
+        };
+    }
+
+    /**
+     * Формирует страницу из строк запроса: запрос читает на одну строку больше размера страницы,
+     * и наличие лишней строки означает, что следующая страница есть. Запрос следующей страницы
+     * продолжается со значений столбцов сортировки последней строки страницы.
+     */
+    private static KeysetPage<Object> toKeysetPage(KeysetPageRequest page, List<Object> rows) {
+        if (rows == null || rows.size() <= page.size()) {
+            return new KeysetPage<>(rows != null ? rows : List.of(), null);
         }
-        return method.getReturnType();
+
+        List<Object> content = rows.subList(0, page.size());
+        Object last = content.getLast();
+        List<Object> key = new ArrayList<>(page.sort().size());
+        for (SortOrder order : page.sort()) {
+            key.add(BeanPropertyUtils.getColumnValue(last, order.resultColumn()));
+        }
+        return new KeysetPage<>(content, page.after(key));
+    }
+
+    /**
+     * Выполняет запрос страницы с навигацией по смещению. Запрос подсчета строк, построенный из того же
+     * сокращенного запроса, выполняется параллельно в исполнителе асинхронных методов (без ограничения
+     * количества одновременных запросов: вызывающий метод уже может удерживать разрешение).
+     * <p>
+     * Подсчет читает ту же базу данных, что и страница: база данных выбирается в вызывающем потоке
+     * и закрепляется за обоими запросами. Внутри транзакции подсчет выполняется в вызывающем потоке,
+     * так как транзакция привязана к нему.
+     */
+    @SuppressWarnings("unchecked")
+    private Page<Object> executePage(MethodDescriptor descriptor, ProcessedQuery pageQuery, Map<String, Object> parameters,
+                                     PageRequest page, PostgresClient queryExecutor) {
+        ProcessedQuery countQuery = null;
+        CompletableFuture<Long> count = null;
+        if (page.isCounted()) {
+            pageQuery = queryExecutor.pinRoute(pageQuery);
+            countQuery = queryProcessor.processCountQuery(descriptor.sql(), parameters, page).withRouteOf(pageQuery);
+            if (!queryExecutor.isTransactionActive()) {
+                ProcessedQuery asyncCountQuery = countQuery;
+                count = CompletableFuture.supplyAsync(() -> (Long) queryExecutor.execute(asyncCountQuery, Long.class, true),
+                        asyncQueryExecutor.getExecutor());
+            }
+        }
+
+        List<Object> rows;
+        try {
+            rows = (List<Object>) queryExecutor.execute(pageQuery, descriptor.resultType(), false);
+        } catch (RuntimeException e) {
+            if (count != null) {
+                count.cancel(false);
+            }
+            throw e;
+        }
+
+        // Запрос страницы читает на одну строку больше: по ней определяется наличие следующей страницы
+        boolean hasNext = rows != null && rows.size() > page.size();
+        List<Object> content = rows == null ? List.of() : hasNext ? rows.subList(0, page.size()) : rows;
+        if (countQuery == null) {
+            return new Page<>(content, page, -1L, false, hasNext);
+        }
+
+        long total;
+        try {
+            Long counted = count != null
+                    ? count.join()
+                    : (Long) queryExecutor.execute(countQuery, Long.class, true);
+            total = counted != null ? counted : 0L;
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new QueryProcessingException("Ошибка при подсчете строк страницы", e.getCause());
+        }
+        boolean exact = page.countLimit() < 0 || total <= page.countLimit();
+        return new Page<>(content, page, exact ? total : page.countLimit(), exact, hasNext);
+    }
+
+    /**
+     * Выполняет запрос метода без ключа шардирования на всех шардах и объединяет результаты.
+     * Если запрос содержит OFFSET, шарды выполняют производный запрос без смещения.
+     */
+    private Object scatter(MethodDescriptor descriptor, ProcessedQuery processedSql, Map<String, Object> parameters) {
+        ScatterPlan plan = processedSql.template().scatterPlan();
+        ProcessedQuery shardQuery = plan.shardTemplate() == processedSql.template()
+                ? processedSql
+                : queryProcessor.processQuery(plan.shardTemplate(), parameters);
+        return shardedQueryExecutor.scatter(descriptor, plan, shardQuery, parameters);
+    }
+
+    /**
+     * Проверяет, выполняется ли метод на шардах: у метода есть параметр {@link ShardKey} и шарды настроены.
+     */
+    private boolean isSharded(MethodDescriptor descriptor) {
+        return descriptor.shardKeyIndex() >= 0 && shardedQueryExecutor.isEnabled();
+    }
+
+    /**
+     * Возвращает номер шарда по значению ключа шардирования.
+     *
+     * @return номер шарда или -1, если метод не шардирован или ключ не передан
+     */
+    private int shardIndex(MethodDescriptor descriptor, Object[] args) {
+        if (!isSharded(descriptor)) {
+            return -1;
+        }
+        Object key = args[descriptor.shardKeyIndex()];
+        return key != null ? shardedQueryExecutor.shardFor(key) : -1;
+    }
+
+    /**
+     * Направляет запрос метода с аннотацией {@link UsePrimary} на основную базу данных.
+     */
+    private static ProcessedQuery withRouting(MethodDescriptor descriptor, ProcessedQuery query) {
+        return descriptor.usePrimary() ? query.onPrimary() : query;
+    }
+
+    /**
+     * Определяет количество строк результата для журнала медленных запросов.
+     *
+     * @return количество строк или -1, если результат читается после возврата из метода
+     */
+    private static long countRows(MethodDescriptor descriptor, ProcessedQuery query, Object result) {
+        return switch (descriptor.returnKind()) {
+            case LIST -> result instanceof Collection<?> rows ? rows.size() : 0;
+            case SINGLE -> !query.returnsRows() && result instanceof Number count
+                    ? count.longValue()
+                    : result != null ? 1 : 0;
+            case COLUMNAR -> ((ColumnarResult) result).rowCount();
+            case KEYSET_PAGE -> ((KeysetPage<?>) result).content().size();
+            case PAGE -> ((Page<?>) result).content().size();
+            default -> -1;
+        };
+    }
+
+    /**
+     * Выполняет метод с аннотацией {@link Batch}: каждый элемент коллекции-аргумента
+     * задает параметры одной строки пакета.
+     */
+    private Object executeBatch(MethodDescriptor descriptor, Object[] args) {
+        Method method = descriptor.method();
+        Class<?> returnType = descriptor.returnType();
+        Collection<?> elements = getBatchElements(method, args);
+        List<Map<String, Object>> rows = new ArrayList<>(elements.size());
+        for (Object element : elements) {
+            rows.add(BeanPropertyUtils.toParameterMap(element));
+        }
+
+        boolean returnsRows = List.class.isAssignableFrom(returnType);
+        ProcessedBatch batch = queryProcessor.processBatch(descriptor.sql(), rows);
+        if (returnsRows && !batch.template().returnsRows()) {
+            throw new QueryProcessingException(
+                    "Метод " + method.getName() + " возвращает список, но пакетный запрос не содержит RETURNING");
+        }
+        if (rows.isEmpty()) {
+            return mapBatchResult(new BatchResult<>(new int[0], List.of()), returnType);
+        }
+
+        int chunkSize = descriptor.batch().chunkSize() > 0 ? descriptor.batch().chunkSize() : properties.getClient().getBatchSize();
+        try {
+            return mapBatchResult(queryExecutor.executeBatch(batch, chunkSize, descriptor.resultType()), returnType);
+        } finally {
+            resultCache.invalidate(batch.template());
+        }
+    }
+
+    /**
+     * Выполняет метод с аннотацией {@link BulkCopy}: элементы аргумента загружаются
+     * в таблицу INSERT-запроса через {@code COPY FROM STDIN} по мере перебора.
+     */
+    private Object executeBulkCopy(MethodDescriptor descriptor, Object[] args) {
+        BulkCopy bulkCopyAnnotation = descriptor.bulkCopy();
+        QueryTemplate template = queryProcessor.getTemplate(descriptor.sql());
+        QueryEvents.recordFingerprint(template.getFingerprint());
+        CopyTarget target = template.copyTarget();
+        List<String> parameterNames = target.parameterNames();
+        Iterator<?> elements = getBulkCopyElements(descriptor.method(), args);
+
+        Iterator<Object[]> rows = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return elements.hasNext();
+            }
+
+            @Override
+            public Object[] next() {
+                Object element = elements.next();
+                Object[] values = new Object[parameterNames.size()];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = BeanPropertyUtils.getProperty(element, parameterNames.get(i));
+                }
+                return values;
+            }
+        };
+
+        int bufferSize = bulkCopyAnnotation.bufferSize() > 0
+                ? bulkCopyAnnotation.bufferSize()
+                : properties.getClient().getCopyBufferSize();
+        try {
+            long copied = queryExecutor.copyIn(target, rows, bulkCopyAnnotation.format(), bufferSize);
+            return ResultMappingUtils.mapUpdateCount(copied, descriptor.returnType());
+        } finally {
+            resultCache.invalidateTables(List.of(target.table()));
+        }
+    }
+
+    /**
+     * Возвращает итератор элементов для загрузки через COPY из аргументов метода.
+     */
+    private Iterator<?> getBulkCopyElements(Method method, Object[] args) {
+        if (args != null) {
+            for (Object arg : args) {
+                switch (arg) {
+                    case Iterable<?> iterable -> { return iterable.iterator(); }
+                    case Stream<?> stream -> { return stream.iterator(); }
+                    case Iterator<?> iterator -> { return iterator; }
+                    case Object[] array -> { return Arrays.asList(array).iterator(); }
+                    case null, default -> { }
+                }
+            }
+        }
+        throw new QueryProcessingException("Метод " + method.getName() + " с аннотацией @BulkCopy должен принимать коллекцию или поток элементов");
+    }
+
+    /**
+     * Возвращает коллекцию элементов пакета из аргументов метода.
+     */
+    private Collection<?> getBatchElements(Method method, Object[] args) {
+        if (args != null) {
+            for (Object arg : args) {
+                if (arg instanceof Collection<?> collection) {
+                    return collection;
+                }
+                if (arg instanceof Object[] array) {
+                    return Arrays.asList(array);
+                }
+            }
+        }
+        throw new QueryProcessingException("Метод " + method.getName() + " с аннотацией @Batch должен принимать коллекцию элементов");
+    }
+
+    /**
+     * Преобразует результат пакетного выполнения в тип результата метода.
+     */
+    private Object mapBatchResult(BatchResult<?> result, Class<?> returnType) {
+        if (List.class.isAssignableFrom(returnType)) {
+            return result.rows();
+        }
+        if (returnType == int[].class) {
+            return result.updateCounts();
+        }
+        if (returnType == long[].class) {
+            return Arrays.stream(result.updateCounts()).asLongStream().toArray();
+        }
+        return ResultMappingUtils.mapUpdateCount(result.totalUpdateCount(), returnType);
+    }
+
+    /**
+     * Проверяет, читается ли результат метода после возврата из него.
+     */
+    private static boolean isStreaming(MethodDescriptor.ReturnKind returnKind) {
+        return switch (returnKind) {
+            case STREAM, ITERATOR, PUBLISHER -> true;
+            default -> false;
+        };
     }
 
     /**
      * Логирует запрос, если логирование включено.
      */
-    private void logQuery(UUID requestId, String message, String query) {
+    private void logQuery(long requestId, String message, Object query) {
         if (!logQueriesEnabled) {
             return;
         }
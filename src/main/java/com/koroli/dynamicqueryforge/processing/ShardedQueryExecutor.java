@@ -0,0 +1,295 @@
+package com.koroli.dynamicqueryforge.processing;
+
+import com.koroli.dynamicqueryforge.client.ShardRouter;
+import com.koroli.dynamicqueryforge.client.Shards;
+import com.koroli.dynamicqueryforge.client.postgres.PostgresClient;
+import com.koroli.dynamicqueryforge.config.DynamicQueryProperties;
+import com.koroli.dynamicqueryforge.exception.QueryProcessingException;
+import com.koroli.dynamicqueryforge.template.ScatterPlan;
+import com.koroli.dynamicqueryforge.template.ScatterPlan.SortKey;
+import com.koroli.dynamicqueryforge.util.BeanPropertyUtils;
+import com.koroli.dynamicqueryforge.util.ResultMappingUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * Выполнение запросов методов с параметром {@link com.koroli.dynamicqueryforge.annotation.ShardKey}.
+ * <p>
+ * Для каждого шарда из бина {@link Shards} создается отдельный {@link PostgresClient} со своим кешем
+ * подготовленных запросов. Запрос с ключом выполняется на шарде, выбранном {@link ShardRouter}.
+ * Запрос без ключа выполняется на всех шардах параллельно: списки строк объединяются слиянием
+ * по ключам ORDER BY, после чего применяются OFFSET и LIMIT исходного запроса, а количества
+ * измененных строк суммируются.
+ * <p>
+ * Запросы с агрегатами, DISTINCT и GROUP BY без ключа не выполняются: шард вычислил бы их только
+ * по своим строкам. Единичный результат без LIMIT допускается, только если строки вернул один шард.
+ * Строки сравниваются методом {@link Comparable#compareTo}, что для текста соответствует {@code COLLATE "C"}.
+ */
+@Component
+public class ShardedQueryExecutor {
+
+    private final List<PostgresClient> clients;
+    private final ShardRouter shardRouter;
+    private final Executor executor;
+    private final boolean scatterEnabled;
+
+    @Autowired
+    public ShardedQueryExecutor(ObjectProvider<Shards> shardsProvider, ShardRouter shardRouter,
+                                AsyncQueryExecutor asyncQueryExecutor, DynamicQueryProperties properties) {
+        Shards shards = shardsProvider.getIfAvailable();
+        List<PostgresClient> shardClients = new ArrayList<>();
+        if (shards != null) {
+            for (DataSource dataSource : shards.dataSources()) {
+                shardClients.add(new PostgresClient(dataSource, properties));
+            }
+        }
+        this.clients = List.copyOf(shardClients);
+        this.shardRouter = shardRouter;
+        // Запросы шардов не занимают разрешения асинхронных методов: вызывающий метод уже может удерживать одно из них
+        this.executor = asyncQueryExecutor.getExecutor();
+        this.scatterEnabled = properties.getSharding().isScatterEnabled();
+    }
+
+    /**
+     * Проверяет, настроены ли шарды.
+     */
+    public boolean isEnabled() {
+        return !clients.isEmpty();
+    }
+
+    /**
+     * Возвращает номер шарда для значения ключа шардирования.
+     *
+     * @param key значение ключа (не null)
+     * @return номер шарда
+     * @throws QueryProcessingException если маршрутизатор вернул несуществующий номер шарда
+     */
+    public int shardFor(Object key) {
+        int shard = shardRouter.shardFor(key, clients.size());
+        if (shard < 0 || shard >= clients.size()) {
+            throw new QueryProcessingException("Маршрутизатор шардов вернул номер " + shard
+                    + " для ключа " + key + ", всего шардов: " + clients.size());
+        }
+        return shard;
+    }
+
+    /**
+     * Возвращает клиент базы данных шарда.
+     *
+     * @param shard номер шарда
+     * @return клиент шарда
+     */
+    public PostgresClient client(int shard) {
+        return clients.get(shard);
+    }
+
+    /**
+     * Выполняет запрос на всех шардах и объединяет результаты.
+     *
+     * @param descriptor описание метода (возвращающего список или единичный результат)
+     * @param plan       план выполнения на всех шардах
+     * @param shardQuery запрос, выполняемый на каждом шарде
+     * @param parameters карта параметров вызова для вычисления OFFSET и LIMIT
+     * @return объединенный результат в виде, соответствующем методу
+     * @throws QueryProcessingException если выполнение без ключа выключено, способ возврата результата
+     *                                  не поддерживается или результаты шардов нельзя объединить
+     */
+    public Object scatter(MethodDescriptor descriptor, ScatterPlan plan, ProcessedQuery shardQuery,
+                          Map<String, Object> parameters) {
+        if (!scatterEnabled) {
+            throw new QueryProcessingException("Не передан ключ шардирования метода " + descriptor.displayName());
+        }
+        MethodDescriptor.ReturnKind returnKind = descriptor.returnKind();
+        if (returnKind != MethodDescriptor.ReturnKind.LIST && returnKind != MethodDescriptor.ReturnKind.SINGLE) {
+            throw new QueryProcessingException("Метод " + descriptor.displayName()
+                    + " без ключа шардирования может возвращать только список или единичный результат");
+        }
+
+        if (!shardQuery.returnsRows()) {
+            long total = 0;
+            for (Object count : onAllShards(client -> client.execute(shardQuery, long.class, true))) {
+                total += (Long) count;
+            }
+            return ResultMappingUtils.mapUpdateCount(total, descriptor.returnType());
+        }
+
+        plan.requireSupported();
+        List<Object> shardResults = onAllShards(client -> client.execute(shardQuery, descriptor.resultType(), false));
+        if (returnKind == MethodDescriptor.ReturnKind.SINGLE && plan.limit() == null) {
+            requireSingleShard(descriptor, shardResults);
+        }
+        List<Object> rows = merge(shardResults, plan, parameters);
+        if (returnKind == MethodDescriptor.ReturnKind.SINGLE) {
+            return rows.isEmpty() ? null : rows.getFirst();
+        }
+        // Пустой результат возвращается так же, как при выполнении на одной базе данных
+        return rows.isEmpty() ? null : rows;
+    }
+
+    /**
+     * Проверяет, что строки единичного результата вернул только один шард. Без LIMIT первая строка
+     * объединенного результата зависела бы от порядка шардов, поэтому строки нескольких шардов - ошибка.
+     *
+     * @throws QueryProcessingException если строки вернули несколько шардов
+     */
+    private static void requireSingleShard(MethodDescriptor descriptor, List<Object> shardResults) {
+        int shardsWithRows = 0;
+        for (Object result : shardResults) {
+            if (result instanceof List<?> rows && !rows.isEmpty()) {
+                shardsWithRows++;
+            }
+        }
+        if (shardsWithRows > 1) {
+            throw new QueryProcessingException("Метод " + descriptor.displayName() + " без ключа шардирования"
+                    + " возвращает единичный результат, но строки вернули " + shardsWithRows + " шарда");
+        }
+    }
+
+    /**
+     * Выполняет операцию на всех шардах параллельно и возвращает результаты в порядке номеров шардов.
+     */
+    private List<Object> onAllShards(Function<PostgresClient, Object> operation) {
+        List<CompletableFuture<Object>> futures = new ArrayList<>(clients.size());
+        for (PostgresClient client : clients) {
+            futures.add(CompletableFuture.supplyAsync(() -> operation.apply(client), executor));
+        }
+
+        List<Object> results = new ArrayList<>(futures.size());
+        try {
+            for (CompletableFuture<Object> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(false));
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new QueryProcessingException("Ошибка при выполнении запроса на шардах", e.getCause());
+        }
+        return results;
+    }
+
+    /**
+     * Сливает отсортированные списки строк шардов и применяет OFFSET и LIMIT исходного запроса.
+     */
+    private static List<Object> merge(List<Object> shardResults, ScatterPlan plan, Map<String, Object> parameters) {
+        long offset = plan.offset() != null ? Math.max(plan.offset().resolve(parameters), 0L) : 0L;
+        long limit = plan.limit() != null ? plan.limit().resolve(parameters) : -1L;
+        long end = limit >= 0 ? offset + limit : Long.MAX_VALUE;
+
+        List<List<?>> streams = new ArrayList<>(shardResults.size());
+        int total = 0;
+        for (Object result : shardResults) {
+            if (result instanceof List<?> rows && !rows.isEmpty()) {
+                streams.add(rows);
+                total += rows.size();
+            }
+        }
+        if (offset >= total || limit == 0) {
+            return Collections.emptyList();
+        }
+        List<Object> merged = new ArrayList<>((int) Math.min(total, end) - (int) offset);
+
+        if (plan.orderBy().isEmpty()) {
+            long index = 0;
+            for (List<?> rows : streams) {
+                for (Object row : rows) {
+                    if (index >= end) {
+                        return merged;
+                    }
+                    if (index++ >= offset) {
+                        merged.add(row);
+                    }
+                }
+            }
+            return merged;
+        }
+
+        // Слияние k потоков: в очереди по одному текущему элементу каждого шарда
+        Comparator<Object> rowComparator = rowComparator(plan.orderBy());
+        PriorityQueue<Cursor> queue = new PriorityQueue<>(streams.size(),
+                (left, right) -> rowComparator.compare(left.current(), right.current()));
+        for (List<?> rows : streams) {
+            queue.add(new Cursor(rows));
+        }
+        for (long index = 0; index < end && !queue.isEmpty(); index++) {
+            Cursor cursor = queue.poll();
+            if (index >= offset) {
+                merged.add(cursor.current());
+            }
+            if (cursor.advance()) {
+                queue.add(cursor);
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Строит сравнение строк результата по ключам ORDER BY.
+     */
+    private static Comparator<Object> rowComparator(List<SortKey> orderBy) {
+        return (left, right) -> {
+            for (SortKey key : orderBy) {
+                int result = compareValues(BeanPropertyUtils.getColumnValue(left, key.column()),
+                        BeanPropertyUtils.getColumnValue(right, key.column()), key);
+                if (result != 0) {
+                    return result;
+                }
+            }
+            return 0;
+        };
+    }
+
+    /**
+     * Сравнивает значения одного ключа сортировки с учетом направления и положения NULL.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int compareValues(Object left, Object right, SortKey key) {
+        if (left == null || right == null) {
+            if (left == right) {
+                return 0;
+            }
+            return (left == null) == key.nullsFirst() ? -1 : 1;
+        }
+        if (!(left instanceof Comparable comparable)) {
+            throw new QueryProcessingException("Значения столбца " + key.column() + " типа "
+                    + left.getClass().getName() + " нельзя сравнить при слиянии результатов шардов");
+        }
+        int result = comparable.compareTo(right);
+        return key.ascending() ? result : -result;
+    }
+
+    /**
+     * Текущая позиция в списке строк одного шарда.
+     */
+    private static final class Cursor {
+
+        private final List<?> rows;
+        private int position;
+
+        private Cursor(List<?> rows) {
+            this.rows = rows;
+        }
+
+        private Object current() {
+            return rows.get(position);
+        }
+
+        private boolean advance() {
+            return ++position < rows.size();
+        }
+    }
+}
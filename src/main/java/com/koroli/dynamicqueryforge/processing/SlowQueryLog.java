@@ -0,0 +1,135 @@
+package com.koroli.dynamicqueryforge.processing;
+
+import com.koroli.dynamicqueryforge.client.postgres.PostgresClient;
+import com.koroli.dynamicqueryforge.config.DynamicQueryProperties;
+import com.koroli.dynamicqueryforge.config.DynamicQueryProperties.SlowQueryProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Журнал медленных запросов.
+ * <p>
+ * Вызов метода репозитория, превысивший порог {@code dynamic-query.slow-query.threshold} или порог метода
+ * из {@code dynamic-query.slow-query.method-thresholds}, логируется с уровнем WARN вместе с выполненным SQL,
+ * маской присутствия параметров, временем каждого этапа и количеством строк.
+ * При включенном {@code dynamic-query.slow-query.explain} план запроса запрашивается асинхронно
+ * на отдельном соединении, не чаще {@code explains-per-minute} раз в минуту.
+ */
+@Component
+public class SlowQueryLog {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SlowQueryLog.class);
+
+    /** Значение порога для методов, медленные вызовы которых не логируются */
+    private static final long DISABLED = -1L;
+
+    private final PostgresClient client;
+    private final AsyncQueryExecutor asyncQueryExecutor;
+    private final SlowQueryProperties properties;
+
+    /** Журнал выключен для всех методов */
+    private final boolean disabled;
+
+    /** Пороги методов в наносекундах */
+    private final Map<Method, Long> thresholds = new ConcurrentHashMap<>();
+
+    /** Минимальный интервал между запросами плана в наносекундах */
+    private final long explainIntervalNanos;
+
+    /** Момент, начиная с которого разрешен следующий запрос плана */
+    private final AtomicLong nextExplainNanos = new AtomicLong(System.nanoTime());
+
+    @Autowired
+    public SlowQueryLog(PostgresClient client, AsyncQueryExecutor asyncQueryExecutor, DynamicQueryProperties properties) {
+        this.client = client;
+        this.asyncQueryExecutor = asyncQueryExecutor;
+        this.properties = properties.getSlowQuery();
+        this.disabled = this.properties.getThreshold() == null && this.properties.getMethodThresholds().isEmpty();
+        this.explainIntervalNanos = this.properties.getExplainsPerMinute() > 0
+                ? TimeUnit.MINUTES.toNanos(1) / this.properties.getExplainsPerMinute()
+                : Long.MAX_VALUE;
+    }
+
+    /**
+     * Возвращает порог времени выполнения метода.
+     *
+     * @param descriptor описание метода репозитория
+     * @return порог в наносекундах или -1, если медленные вызовы метода не логируются
+     */
+    public long thresholdNanos(MethodDescriptor descriptor) {
+        if (disabled) {
+            return DISABLED;
+        }
+        return thresholds.computeIfAbsent(descriptor.method(), method -> resolveThreshold(descriptor));
+    }
+
+    /**
+     * Логирует медленный вызов метода и, если разрешено, запрашивает план запроса.
+     *
+     * @param descriptor      описание метода репозитория
+     * @param query           выполненный запрос
+     * @param presenceMask    маска присутствия параметров
+     * @param extractionNanos время извлечения параметров
+     * @param processingNanos время получения шаблона и рендеринга SQL
+     * @param executionNanos  время выполнения запроса и маппинга результата
+     * @param rowCount        количество строк результата или измененных строк (-1, если неизвестно)
+     */
+    public void report(MethodDescriptor descriptor, ProcessedQuery query, long presenceMask,
+                       long extractionNanos, long processingNanos, long executionNanos, long rowCount) {
+        long totalNanos = extractionNanos + processingNanos + executionNanos;
+        LOGGER.warn("Медленный запрос {}: {} мс (параметры {} мс, обработка {} мс, выполнение {} мс), "
+                        + "строк: {}, маска параметров: {}, шаблон: {}\n{}",
+                descriptor.displayName(), toMillis(totalNanos), toMillis(extractionNanos), toMillis(processingNanos),
+                toMillis(executionNanos), rowCount >= 0 ? rowCount : "?", Long.toBinaryString(presenceMask),
+                query.template().getFingerprint(), query);
+
+        if (properties.isExplain() && tryAcquireExplain()) {
+            asyncQueryExecutor.submit(() -> client.explain(query)).whenComplete((plan, error) -> {
+                if (error != null) {
+                    LOGGER.warn("Не удалось получить план медленного запроса {}: {}", descriptor.displayName(), error.getMessage());
+                } else {
+                    LOGGER.warn("План медленного запроса {}:\n{}", descriptor.displayName(), plan);
+                }
+            });
+        }
+    }
+
+    /**
+     * Определяет порог метода: порог метода из настроек или глобальный порог.
+     */
+    private long resolveThreshold(MethodDescriptor descriptor) {
+        Method method = descriptor.method();
+        Map<String, Duration> methodThresholds = properties.getMethodThresholds();
+        Duration threshold = methodThresholds.get(method.getDeclaringClass().getName() + "." + method.getName());
+        if (threshold == null) {
+            threshold = methodThresholds.get(descriptor.displayName());
+        }
+        if (threshold == null) {
+            threshold = properties.getThreshold();
+        }
+        return threshold != null ? threshold.toNanos() : DISABLED;
+    }
+
+    /**
+     * Занимает слот для запроса плана, если с предыдущего запроса прошло достаточно времени.
+     */
+    private boolean tryAcquireExplain() {
+        long now = System.nanoTime();
+        long next = nextExplainNanos.get();
+        return now - next >= 0 && nextExplainNanos.compareAndSet(next, now + explainIntervalNanos);
+    }
+
+    private static String toMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.2f", nanos / 1_000_000.0);
+    }
+}
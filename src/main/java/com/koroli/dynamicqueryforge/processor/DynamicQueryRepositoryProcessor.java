@@ -0,0 +1,322 @@
+package com.koroli.dynamicqueryforge.processor;
+
+import com.koroli.dynamicqueryforge.annotation.Batch;
+import com.koroli.dynamicqueryforge.annotation.BulkCopy;
+import com.koroli.dynamicqueryforge.annotation.EnableDynamicQueryRepositories;
+import com.koroli.dynamicqueryforge.annotation.Param;
+import com.koroli.dynamicqueryforge.annotation.Query;
+import com.koroli.dynamicqueryforge.exception.DynamicQueryException;
+import com.koroli.dynamicqueryforge.repository.DynamicQueryRepository;
+import com.koroli.dynamicqueryforge.repository.DynamicQueryRepositoryRegistrar;
+import com.koroli.dynamicqueryforge.repository.GeneratedRepositories;
+import com.koroli.dynamicqueryforge.template.QueryTemplate;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.ArrayType;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * Процессор аннотаций, генерирующий реализации интерфейсов репозиториев на этапе компиляции.
+ * <p>
+ * Для каждого интерфейса, наследующего {@link DynamicQueryRepository}, SQL-запросы из {@link Query}
+ * разбираются JSqlParser-ом во время компиляции: синтаксическая ошибка становится ошибкой компиляции,
+ * а параметры запроса, не совпадающие с параметрами метода, - предупреждением. Затем генерируется класс
+ * {@code <Интерфейс>_DynamicQueryImpl} с отдельным методом для каждого запроса: описания методов
+ * создаются один раз при загрузке класса, а имена параметров берутся из исходного кода.
+ * {@code DynamicQueryRepositoryRegistrar} регистрирует сгенерированный класс вместо динамического прокси.
+ * <p>
+ * Кроме того, процессор записывает индекс {@value DynamicQueryRepositoryRegistrar#INDEX_LOCATION} со всеми
+ * найденными интерфейсами репозиториев, и регистратор не сканирует classpath для проиндексированных пакетов.
+ * При инкрементальной компиляции индекс содержит только интерфейсы из перекомпилированных исходников,
+ * поэтому его следует пересобирать полной сборкой.
+ * <p>
+ * Интерфейсы с методами без {@link Query} или с обобщенными методами пропускаются и продолжают работать
+ * через прокси.
+ * <p>
+ * Процессор не регистрируется из основного jar библиотеки и подключается явно: в {@code annotationProcessorPaths}
+ * добавляется артефакт библиотеки с классификатором {@code processor} (его зависимости, в том числе
+ * {@code jsqlparser} и {@code caffeine}, подключаются транзитивно). Процессор запускается только в сборках,
+ * где встречаются {@link Query} или {@link EnableDynamicQueryRepositories}.
+ */
+public class DynamicQueryRepositoryProcessor extends AbstractProcessor {
+
+    private static final String INDENT = "    ";
+
+    /** Уже сгенерированные реализации (интерфейс может встретиться в нескольких раундах) */
+    private final Set<String> generated = new HashSet<>();
+
+    /** Двоичные имена всех найденных интерфейсов репозиториев для индекса */
+    private final Set<String> indexed = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        // Запущенный процессор просматривает все корневые элементы раунда, поэтому индекс
+        // включает и репозитории без методов с @Query
+        return Set.of(Query.class.getCanonicalName(), EnableDynamicQueryRepositories.class.getCanonicalName());
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            writeIndex();
+            return false;
+        }
+
+        TypeElement repositoryBase = processingEnv.getElementUtils().getTypeElement(DynamicQueryRepository.class.getCanonicalName());
+        if (repositoryBase == null) {
+            return false;
+        }
+
+        Set<TypeElement> repositories = new LinkedHashSet<>();
+        for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+            collectRepositories(type, repositoryBase, repositories);
+        }
+
+        for (TypeElement repository : repositories) {
+            indexed.add(processingEnv.getElementUtils().getBinaryName(repository).toString());
+            if (generated.add(repository.getQualifiedName().toString())) {
+                generate(repository);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Записывает индекс интерфейсов репозиториев, чтобы регистратор не сканировал classpath.
+     */
+    private void writeIndex() {
+        if (indexed.isEmpty()) {
+            return;
+        }
+        try (Writer writer = processingEnv.getFiler()
+                .createResource(StandardLocation.CLASS_OUTPUT, "", DynamicQueryRepositoryRegistrar.INDEX_LOCATION)
+                .openWriter()) {
+            for (String name : indexed) {
+                writer.write(name);
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    "Не удалось записать индекс репозиториев " + DynamicQueryRepositoryRegistrar.INDEX_LOCATION + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Собирает интерфейсы репозиториев среди типа и вложенных в него типов.
+     */
+    private void collectRepositories(TypeElement type, TypeElement repositoryBase, Set<TypeElement> repositories) {
+        if (type.getKind() == ElementKind.INTERFACE
+                && !type.equals(repositoryBase)
+                && !type.getModifiers().contains(Modifier.PRIVATE)
+                && type.getTypeParameters().isEmpty()
+                && processingEnv.getTypeUtils().isAssignable(
+                        processingEnv.getTypeUtils().erasure(type.asType()),
+                        processingEnv.getTypeUtils().erasure(repositoryBase.asType()))) {
+            repositories.add(type);
+        }
+        for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            collectRepositories(nested, repositoryBase, repositories);
+        }
+    }
+
+    /**
+     * Проверяет запросы репозитория и генерирует его реализацию.
+     */
+    private void generate(TypeElement repository) {
+        List<ExecutableElement> methods = new ArrayList<>();
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(repository))) {
+            if (!method.getModifiers().contains(Modifier.ABSTRACT)
+                    || method.getModifiers().contains(Modifier.STATIC)
+                    || method.getEnclosingElement().toString().equals(Object.class.getName())) {
+                continue;
+            }
+            if (method.getAnnotation(Query.class) == null || !method.getTypeParameters().isEmpty()) {
+                note(repository, "метод " + method.getSimpleName() + " не поддерживается генератором, используется динамический прокси");
+                return;
+            }
+            methods.add(method);
+        }
+
+        boolean valid = true;
+        for (ExecutableElement method : methods) {
+            valid &= validateQuery(method);
+        }
+        if (!valid) {
+            return;
+        }
+
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(repository);
+        String packageName = packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+        String binaryName = processingEnv.getElementUtils().getBinaryName(repository).toString();
+        String implementationName = GeneratedRepositories.implementationName(
+                packageName, packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1));
+
+        try (Writer writer = processingEnv.getFiler().createSourceFile(implementationName, repository).openWriter()) {
+            writer.write(render(repository, packageName, implementationName.substring(implementationName.lastIndexOf('.') + 1), methods));
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Не удалось сгенерировать реализацию репозитория: " + e.getMessage(), repository);
+        }
+    }
+
+    /**
+     * Разбирает SQL-запрос метода и сверяет его параметры с параметрами метода.
+     *
+     * @return false, если запрос содержит синтаксическую ошибку
+     */
+    private boolean validateQuery(ExecutableElement method) {
+        QueryTemplate template;
+        try {
+            template = QueryTemplate.compile(method.getAnnotation(Query.class).value().trim().replaceAll("\\s+", " "));
+        } catch (DynamicQueryException | IllegalArgumentException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+                    "Некорректный SQL-запрос в @Query: " + rootMessage(e), method);
+            return false;
+        }
+
+        // Параметры пакетных методов и загрузки через COPY берутся из свойств элементов
+        if (method.getAnnotation(Batch.class) != null || method.getAnnotation(BulkCopy.class) != null) {
+            return true;
+        }
+
+        Set<String> parameterNames = new HashSet<>();
+        for (VariableElement parameter : method.getParameters()) {
+            Param param = parameter.getAnnotation(Param.class);
+            parameterNames.add(param != null ? param.value() : parameter.getSimpleName().toString());
+        }
+        for (String slot : template.getParameterNames()) {
+            if (!parameterNames.contains(slot)) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                        "Параметр :" + slot + " запроса не соответствует ни одному параметру метода и всегда будет отсутствовать", method);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Формирует исходный код реализации репозитория.
+     */
+    private String render(TypeElement repository, String packageName, String simpleName, List<ExecutableElement> methods) {
+        String repositoryName = repository.getQualifiedName().toString();
+        StringBuilder source = new StringBuilder();
+
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("@javax.annotation.processing.Generated(\"").append(getClass().getName()).append("\")\n")
+                .append("@SuppressWarnings(\"unchecked\")\n")
+                .append("public final class ").append(simpleName).append(" implements ").append(repositoryName).append(" {\n\n");
+
+        source.append(INDENT).append("private static final com.koroli.dynamicqueryforge.processing.MethodDescriptor[] DESCRIPTORS = {\n");
+        for (ExecutableElement method : methods) {
+            source.append(INDENT).append(INDENT)
+                    .append("com.koroli.dynamicqueryforge.processing.MethodDescriptor.of(")
+                    .append("com.koroli.dynamicqueryforge.repository.GeneratedRepositories.method(")
+                    .append(repositoryName).append(".class, \"").append(method.getSimpleName()).append('"');
+            for (VariableElement parameter : method.getParameters()) {
+                source.append(", ").append(rawTypeName(parameter.asType())).append(".class");
+            }
+            source.append("), java.util.List.of(");
+            StringJoiner names = new StringJoiner(", ");
+            for (VariableElement parameter : method.getParameters()) {
+                names.add('"' + parameter.getSimpleName().toString() + '"');
+            }
+            source.append(names).append(")),\n");
+        }
+        source.append(INDENT).append("};\n\n");
+
+        source.append(INDENT).append("private final com.koroli.dynamicqueryforge.processing.RepositoryMethodInterceptor interceptor;\n\n")
+                .append(INDENT).append("public ").append(simpleName)
+                .append("(com.koroli.dynamicqueryforge.processing.RepositoryMethodInterceptor interceptor) {\n")
+                .append(INDENT).append(INDENT).append("this.interceptor = interceptor;\n")
+                .append(INDENT).append("}\n");
+
+        DeclaredType repositoryType = (DeclaredType) repository.asType();
+        for (int i = 0; i < methods.size(); i++) {
+            renderMethod(source, repositoryType, methods.get(i), i);
+        }
+        return source.append("}\n").toString();
+    }
+
+    /**
+     * Формирует исходный код метода, вызывающего перехватчик с заранее построенным описанием.
+     */
+    private void renderMethod(StringBuilder source, DeclaredType repositoryType, ExecutableElement method, int index) {
+        ExecutableType methodType = (ExecutableType) processingEnv.getTypeUtils().asMemberOf(repositoryType, method);
+        TypeMirror returnType = methodType.getReturnType();
+        List<? extends VariableElement> parameters = method.getParameters();
+
+        source.append('\n').append(INDENT).append("@Override\n")
+                .append(INDENT).append("public ").append(returnType).append(' ').append(method.getSimpleName()).append('(');
+        StringJoiner declarations = new StringJoiner(", ");
+        StringJoiner arguments = new StringJoiner(", ");
+        for (int i = 0; i < parameters.size(); i++) {
+            TypeMirror parameterType = methodType.getParameterTypes().get(i);
+            String typeName = method.isVarArgs() && i == parameters.size() - 1
+                    ? ((ArrayType) parameterType).getComponentType() + "..."
+                    : parameterType.toString();
+            String name = parameters.get(i).getSimpleName().toString();
+            declarations.add("final " + typeName + " " + name);
+            arguments.add(name);
+        }
+        source.append(declarations).append(") {\n").append(INDENT).append(INDENT);
+
+        String call = "this.interceptor.invoke(DESCRIPTORS[" + index + "], new Object[]{" + arguments + "})";
+        if (returnType.getKind() == TypeKind.VOID) {
+            source.append(call).append(";\n");
+        } else if (returnType.getKind().isPrimitive()) {
+            String boxed = processingEnv.getTypeUtils().boxedClass((javax.lang.model.type.PrimitiveType) returnType)
+                    .getQualifiedName().toString();
+            source.append("return (").append(boxed).append(") ").append(call).append(";\n");
+        } else {
+            source.append("return (").append(returnType).append(") ").append(call).append(";\n");
+        }
+        source.append(INDENT).append("}\n");
+    }
+
+    /**
+     * Возвращает имя стертого типа, пригодное для литерала {@code .class}.
+     */
+    private String rawTypeName(TypeMirror type) {
+        return switch (type.getKind()) {
+            case ARRAY -> rawTypeName(((ArrayType) type).getComponentType()) + "[]";
+            case DECLARED -> ((TypeElement) ((DeclaredType) type).asElement()).getQualifiedName().toString();
+            case TYPEVAR -> rawTypeName(processingEnv.getTypeUtils().erasure(type));
+            default -> type.getKind().name().toLowerCase(Locale.ROOT);
+        };
+    }
+
+    /**
+     * Возвращает первую строку сообщения исходной причины исключения.
+     */
+    private static String rootMessage(Throwable e) {
+        Throwable cause = e;
+        while (cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        String message = String.valueOf(cause.getMessage());
+        int lineEnd = message.indexOf('\n');
+        return lineEnd >= 0 ? message.substring(0, lineEnd) : message;
+    }
+
+    private void note(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, message, element);
+    }
+}
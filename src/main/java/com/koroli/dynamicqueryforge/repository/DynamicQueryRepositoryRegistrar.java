@@ -1,22 +1,57 @@
 package com.koroli.dynamicqueryforge.repository;
 
 import com.koroli.dynamicqueryforge.annotation.EnableDynamicQueryRepositories;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.BeanClassLoaderAware;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.support.AbstractBeanDefinition;
 import org.springframework.beans.factory.support.BeanDefinitionBuilder;
 import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.context.EnvironmentAware;
+import org.springframework.context.ResourceLoaderAware;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
 import org.springframework.context.annotation.ImportBeanDefinitionRegistrar;
 import org.springframework.core.env.Environment;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.ResourceLoader;
 import org.springframework.core.type.AnnotationMetadata;
+import org.springframework.core.type.filter.AssignableTypeFilter;
 import org.springframework.util.ClassUtils;
 
-import java.util.Map;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
 
 /**
  * Регистратор динамических репозиториев для работы с запросами.
+ * <p>
+ * Интерфейсы репозиториев берутся из индекса {@value #INDEX_LOCATION}, который генерирует
+ * {@code DynamicQueryRepositoryProcessor}. Индекс описывает только свой корень classpath (каталог классов
+ * или jar), поэтому используется для базового пакета, лишь если индекс есть в каждом корне, содержащем
+ * этот пакет. Иначе пакет сканируется по метаданным байт-кода без загрузки классов, чтобы репозитории
+ * из корней без индекса не пропали; пакеты сканируются параллельно. Загружаются только найденные
+ * интерфейсы репозиториев. Свойство {@value #IGNORE_INDEX_PROPERTY} отключает использование индекса.
  */
-public class DynamicQueryRepositoryRegistrar implements ImportBeanDefinitionRegistrar, EnvironmentAware {
+public class DynamicQueryRepositoryRegistrar implements ImportBeanDefinitionRegistrar, EnvironmentAware,
+        ResourceLoaderAware, BeanClassLoaderAware {
+
+    /** Расположение индекса интерфейсов репозиториев в classpath */
+    public static final String INDEX_LOCATION = "META-INF/dynamic-query-repositories.idx";
+
+    /** Свойство, отключающее индекс: все базовые пакеты сканируются */
+    public static final String IGNORE_INDEX_PROPERTY = "dynamic-query.repositories.ignore-index";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DynamicQueryRepositoryRegistrar.class);
+
+    private Environment environment;
+    private ResourceLoader resourceLoader;
+    private ClassLoader classLoader;
 
     /**
      * Регистрирует определения бинов для интерфейсов репозиториев,
@@ -28,48 +63,131 @@ public class DynamicQueryRepositoryRegistrar implements ImportBeanDefinitionRegi
     @Override
     public void registerBeanDefinitions(AnnotationMetadata importingClassMetadata, BeanDefinitionRegistry registry) {
         String[] basePackages = getBasePackages(importingClassMetadata);
-        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver();
-
-        for (String basePackage : basePackages) {
-            try {
-                String packageSearchPath = "classpath*:" + ClassUtils.convertClassNameToResourcePath(basePackage) + "/**/*.class";
-                Resource[] resources = resolver.getResources(packageSearchPath);
-
-                for (Resource resource : resources) {
-                    String className = extractClassName(resource, basePackage);
-                    Class<?> repositoryInterface = Class.forName(className);
+        boolean ignoreIndex = environment != null && environment.getProperty(IGNORE_INDEX_PROPERTY, Boolean.class, false);
+        Map<String, Set<String>> indexed = ignoreIndex ? Map.of() : readIndex();
+
+        // Пакеты сканируются параллельно, а бины регистрируются последовательно в детерминированном порядке
+        SortedSet<String> repositoryNames = Arrays.stream(basePackages)
+                .parallel()
+                .flatMap(basePackage -> findRepositories(basePackage, indexed).stream())
+                .collect(TreeSet::new, TreeSet::add, TreeSet::addAll);
+
+        for (String repositoryName : repositoryNames) {
+            Class<?> repositoryInterface = ClassUtils.resolveClassName(repositoryName, classLoader);
+            if (repositoryInterface.isInterface()
+                    && repositoryInterface != DynamicQueryRepository.class
+                    && DynamicQueryRepository.class.isAssignableFrom(repositoryInterface)) {
+                registerRepositoryBeanDefinition(registry, repositoryInterface);
+            }
+        }
+    }
 
-                    if (repositoryInterface.isInterface() && DynamicQueryRepository.class.isAssignableFrom(repositoryInterface)) {
-                        registerRepositoryBeanDefinition(registry, repositoryInterface);
+    /**
+     * Возвращает имена интерфейсов репозиториев базового пакета: из индексов, если индекс есть
+     * в каждом корне classpath с этим пакетом, иначе - сканированием метаданных классов.
+     *
+     * @param basePackage базовый пакет
+     * @param indexed     имена интерфейсов из индексов по корням classpath
+     * @return имена интерфейсов репозиториев
+     */
+    private Set<String> findRepositories(String basePackage, Map<String, Set<String>> indexed) {
+        Set<String> roots = indexed.isEmpty() ? Set.of() : packageRoots(basePackage);
+        if (!roots.isEmpty() && indexed.keySet().containsAll(roots)) {
+            Set<String> fromIndex = new HashSet<>();
+            for (String root : roots) {
+                for (String name : indexed.get(root)) {
+                    if (name.startsWith(basePackage + ".")) {
+                        fromIndex.add(name);
                     }
                 }
-            } catch (Exception e) {
-                throw new RuntimeException("Ошибка при сканировании пакета: " + basePackage, e);
             }
+            LOGGER.info("Репозитории пакета {} взяты из индекса {} в {}", basePackage, INDEX_LOCATION, roots);
+            return fromIndex;
         }
+
+        Set<String> scanned = new HashSet<>();
+        for (BeanDefinition candidate : createScanner().findCandidateComponents(basePackage)) {
+            scanned.add(candidate.getBeanClassName());
+        }
+        return scanned;
     }
 
     /**
-     * Извлекает имя класса из ресурса и имени пакета.
-     *
-     * @param resource    ресурс с классом
-     * @param basePackage базовый пакет для поиска
-     * @return полное имя класса
-     * @throws Exception если не удалось извлечь имя класса
+     * Создает сканер, отбирающий интерфейсы-наследники {@link DynamicQueryRepository} по метаданным байт-кода.
+     * Каждый пакет сканируется собственным экземпляром, чтобы параллельное сканирование не разделяло кеш метаданных.
      */
-    private String extractClassName(Resource resource, String basePackage) throws Exception {
-        String resourcePath = resource.getURI().toString();
+    private ClassPathScanningCandidateComponentProvider createScanner() {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(
+                false, environment != null ? environment : new StandardEnvironment()) {
+            @Override
+            protected boolean isCandidateComponent(AnnotatedBeanDefinition beanDefinition) {
+                AnnotationMetadata metadata = beanDefinition.getMetadata();
+                return metadata.isInterface() && metadata.isIndependent();
+            }
+        };
+        if (resourceLoader != null) {
+            scanner.setResourceLoader(resourceLoader);
+        }
+        scanner.addIncludeFilter(new AssignableTypeFilter(DynamicQueryRepository.class));
+        return scanner;
+    }
 
-        String basePath = ClassUtils.convertClassNameToResourcePath(basePackage);
-        int index = resourcePath.indexOf(basePath);
+    /**
+     * Возвращает корни classpath, содержащие каталог пакета.
+     *
+     * @param basePackage базовый пакет
+     * @return адреса корней в том же виде, что и ключи индекса
+     */
+    private Set<String> packageRoots(String basePackage) {
+        String path = ClassUtils.convertClassNameToResourcePath(basePackage);
+        Set<String> roots = new HashSet<>();
+        try {
+            Enumeration<URL> directories = classLoader().getResources(path);
+            while (directories.hasMoreElements()) {
+                String directory = directories.nextElement().toString();
+                if (directory.endsWith("/")) {
+                    directory = directory.substring(0, directory.length() - 1);
+                }
+                if (directory.endsWith(path)) {
+                    roots.add(directory.substring(0, directory.length() - path.length()));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка при поиске пакета " + basePackage + " в classpath", e);
+        }
+        return roots;
+    }
 
-        if (index == -1) {
-            throw new IllegalArgumentException("Не найден базовый путь пакета в " + resourcePath);
+    /**
+     * Читает имена интерфейсов репозиториев из всех индексов в classpath.
+     *
+     * @return имена интерфейсов по адресам корней classpath, содержащих индекс (пустая карта, если индексов нет)
+     */
+    private Map<String, Set<String>> readIndex() {
+        Map<String, Set<String>> names = new HashMap<>();
+        try {
+            Enumeration<URL> indexes = classLoader().getResources(INDEX_LOCATION);
+            while (indexes.hasMoreElements()) {
+                URL index = indexes.nextElement();
+                String location = index.toString();
+                Set<String> rootNames = names.computeIfAbsent(
+                        location.substring(0, location.length() - INDEX_LOCATION.length()), root -> new HashSet<>());
+                try (BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(index.openStream(), StandardCharsets.UTF_8))) {
+                    reader.lines()
+                            .map(String::trim)
+                            .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+                            .forEach(rootNames::add);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ошибка при чтении индекса репозиториев " + INDEX_LOCATION, e);
         }
+        return names;
+    }
 
-        return resourcePath.substring(index)
-                .replace('/', '.')
-                .replace(".class", "");
+    private ClassLoader classLoader() {
+        return classLoader != null ? classLoader : ClassUtils.getDefaultClassLoader();
     }
 
     /**
@@ -93,14 +211,23 @@ public class DynamicQueryRepositoryRegistrar implements ImportBeanDefinitionRegi
 
     /**
      * Регистрирует бин для интерфейса репозитория.
+     * Если в classpath есть реализация, сгенерированная {@code DynamicQueryRepositoryProcessor},
+     * регистрируется она, иначе - фабрика динамического прокси.
      *
      * @param registry            реестр определения бинов
      * @param repositoryInterface интерфейс репозитория
      */
     private void registerRepositoryBeanDefinition(BeanDefinitionRegistry registry, Class<?> repositoryInterface) {
-        BeanDefinitionBuilder builder = BeanDefinitionBuilder
-                .genericBeanDefinition(DynamicRepositoryFactoryBean.class)
-                .addConstructorArgValue(repositoryInterface);
+        // Реализация, сгенерированная на этапе компиляции, предпочтительнее динамического прокси
+        Class<?> implementation = GeneratedRepositories.findImplementation(repositoryInterface);
+
+        BeanDefinitionBuilder builder = implementation != null
+                ? BeanDefinitionBuilder
+                        .genericBeanDefinition(implementation)
+                        .setAutowireMode(AbstractBeanDefinition.AUTOWIRE_CONSTRUCTOR)
+                : BeanDefinitionBuilder
+                        .genericBeanDefinition(DynamicRepositoryFactoryBean.class)
+                        .addConstructorArgValue(repositoryInterface);
 
         String beanName = ClassUtils.getShortNameAsProperty(repositoryInterface);
         registry.registerBeanDefinition(beanName, builder.getBeanDefinition());
@@ -108,6 +235,16 @@ public class DynamicQueryRepositoryRegistrar implements ImportBeanDefinitionRegi
 
     @Override
     public void setEnvironment(Environment environment) {
+        this.environment = environment;
+    }
 
+    @Override
+    public void setResourceLoader(ResourceLoader resourceLoader) {
+        this.resourceLoader = resourceLoader;
+    }
+
+    @Override
+    public void setBeanClassLoader(ClassLoader classLoader) {
+        this.classLoader = classLoader;
     }
 }
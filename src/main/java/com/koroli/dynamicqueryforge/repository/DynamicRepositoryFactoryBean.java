@@ -22,6 +22,7 @@ public class DynamicRepositoryFactoryBean<T> implements FactoryBean<T> {
 
     @Override
     public T getObject() {
+        dynamicRepositoryProxy.registerRepository(repositoryInterface);
         return (T) Proxy.newProxyInstance(
                 repositoryInterface.getClassLoader(),
                 new Class<?>[]{repositoryInterface},
@@ -0,0 +1,68 @@
+package com.koroli.dynamicqueryforge.repository;
+
+import lombok.experimental.UtilityClass;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+
+/**
+ * Утилитарный класс для работы с реализациями репозиториев, сгенерированными на этапе компиляции.
+ */
+@UtilityClass
+public class GeneratedRepositories {
+
+    /** Суффикс имени сгенерированной реализации репозитория */
+    public static final String IMPLEMENTATION_SUFFIX = "_DynamicQueryImpl";
+
+    /**
+     * Возвращает имя сгенерированной реализации интерфейса репозитория.
+     * Для вложенного интерфейса имена внешних классов соединяются через {@code _}.
+     *
+     * @param packageName     пакет интерфейса
+     * @param binarySimpleName имя интерфейса внутри пакета ({@code Outer$Inner} для вложенного)
+     * @return полное имя сгенерированного класса
+     */
+    public static String implementationName(String packageName, String binarySimpleName) {
+        String simpleName = binarySimpleName.replace('$', '_') + IMPLEMENTATION_SUFFIX;
+        return packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+    }
+
+    /**
+     * Возвращает сгенерированную реализацию интерфейса репозитория, если она есть в classpath.
+     *
+     * @param repositoryInterface интерфейс репозитория
+     * @return класс реализации или null
+     */
+    public static Class<?> findImplementation(Class<?> repositoryInterface) {
+        String packageName = repositoryInterface.getPackageName();
+        String binarySimpleName = packageName.isEmpty()
+                ? repositoryInterface.getName()
+                : repositoryInterface.getName().substring(packageName.length() + 1);
+        String implementationName = implementationName(packageName, binarySimpleName);
+
+        ClassLoader classLoader = repositoryInterface.getClassLoader();
+        if (!ClassUtils.isPresent(implementationName, classLoader)) {
+            return null;
+        }
+        Class<?> implementation = ClassUtils.resolveClassName(implementationName, classLoader);
+        return repositoryInterface.isAssignableFrom(implementation) ? implementation : null;
+    }
+
+    /**
+     * Находит метод интерфейса репозитория для сгенерированной реализации.
+     *
+     * @param repositoryInterface интерфейс репозитория
+     * @param name                имя метода
+     * @param parameterTypes      типы параметров метода
+     * @return метод интерфейса
+     * @throws IllegalStateException если метод не найден (реализация устарела относительно интерфейса)
+     */
+    public static Method method(Class<?> repositoryInterface, String name, Class<?>... parameterTypes) {
+        try {
+            return repositoryInterface.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("Сгенерированная реализация не соответствует интерфейсу "
+                    + repositoryInterface.getName() + ": метод " + name + " не найден", e);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.koroli.dynamicqueryforge.result;
+
+import java.util.List;
+
+/**
+ * Результат пакетного выполнения изменяющего запроса.
+ *
+ * @param updateCounts количество измененных строк для каждого элемента пакета в исходном порядке
+ * @param rows         строки RETURNING (null, если запрос их не возвращает)
+ * @param <T>          тип строк RETURNING
+ */
+public record BatchResult<T>(int[] updateCounts, List<T> rows) {
+
+    /**
+     * Возвращает суммарное количество измененных строк.
+     * Элементы, для которых драйвер не сообщил количество, не учитываются.
+     */
+    public long totalUpdateCount() {
+        long total = 0;
+        for (int count : updateCounts) {
+            if (count > 0) {
+                total += count;
+            }
+        }
+        return total;
+    }
+}
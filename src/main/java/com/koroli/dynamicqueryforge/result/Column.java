@@ -0,0 +1,36 @@
+package com.koroli.dynamicqueryforge.result;
+
+/**
+ * Столбец колоночного результата запроса.
+ * Значения хранятся в массивах примитивов, признак NULL - в отдельной битовой маске.
+ */
+public sealed interface Column permits LongColumn, IntColumn, DoubleColumn, DecimalColumn, BooleanColumn, StringColumn,
+        ObjectColumn {
+
+    /**
+     * Возвращает метку столбца в результате запроса.
+     */
+    String label();
+
+    /**
+     * Возвращает количество значений в столбце.
+     */
+    int size();
+
+    /**
+     * Проверяет, равно ли значение в строке SQL NULL.
+     *
+     * @param row индекс строки (начиная с 0)
+     * @return true, если значение равно NULL
+     */
+    boolean isNull(int row);
+
+    /**
+     * Возвращает значение в строке в упакованном виде.
+     * Предназначен для отладки и редких обращений: для массовой обработки используйте типизированные методы.
+     *
+     * @param row индекс строки (начиная с 0)
+     * @return значение или null
+     */
+    Object getObject(int row);
+}
@@ -0,0 +1,25 @@
+package com.koroli.dynamicqueryforge.result;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Накапливает значения одного столбца при построчном чтении результата.
+ */
+interface ColumnBuilder {
+
+    int INITIAL_CAPACITY = 1024;
+
+    /**
+     * Добавляет значение столбца из текущей строки.
+     *
+     * @param resultSet результат запроса, установленный на нужную строку
+     * @throws SQLException если не удалось прочитать значение
+     */
+    void append(ResultSet resultSet) throws SQLException;
+
+    /**
+     * Создает неизменяемый столбец из накопленных значений.
+     */
+    Column build();
+}
@@ -0,0 +1,172 @@
+package com.koroli.dynamicqueryforge.result;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * Колоночный результат запроса для аналитических выборок.
+ * <p>
+ * Значения каждого столбца хранятся в отдельном массиве примитивов ({@code long[]}, {@code int[]},
+ * {@code double[]}, {@code boolean[]}) или, для строк, в виде словарных кодов. Тип столбца определяется
+ * по {@link ResultSetMetaData#getColumnType(int)}, поэтому при чтении значения не упаковываются.
+ * <p>
+ * Значения {@code numeric} и {@code decimal} хранятся как {@link java.math.BigDecimal} в {@link DecimalColumn}:
+ * приведение к {@code double} теряло бы точность денежных сумм и больших чисел и расходилось бы
+ * с преобразованием того же запроса в объекты.
+ */
+public final class ColumnarResult {
+
+    private final List<Column> columns;
+    private final Map<String, Column> columnsByLabel;
+    private final int rowCount;
+
+    private ColumnarResult(List<Column> columns, int rowCount) {
+        this.columns = columns;
+        this.rowCount = rowCount;
+        this.columnsByLabel = new HashMap<>();
+        for (Column column : columns) {
+            columnsByLabel.putIfAbsent(column.label(), column);
+        }
+    }
+
+    /**
+     * Читает все строки результата запроса в столбцы.
+     *
+     * @param resultSet результат запроса, установленный перед первой строкой
+     * @return колоночный результат
+     * @throws SQLException если не удалось прочитать результат
+     */
+    public static ColumnarResult from(ResultSet resultSet) throws SQLException {
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        ColumnBuilder[] builders = new ColumnBuilder[metaData.getColumnCount()];
+        for (int i = 0; i < builders.length; i++) {
+            builders[i] = builderFor(metaData.getColumnType(i + 1), metaData.getColumnLabel(i + 1), i + 1);
+        }
+
+        int rowCount = 0;
+        while (resultSet.next()) {
+            for (ColumnBuilder builder : builders) {
+                builder.append(resultSet);
+            }
+            rowCount++;
+        }
+
+        Column[] columns = new Column[builders.length];
+        for (int i = 0; i < builders.length; i++) {
+            columns[i] = builders[i].build();
+        }
+        return new ColumnarResult(List.of(columns), rowCount);
+    }
+
+    /**
+     * Возвращает количество строк результата.
+     */
+    public int rowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Возвращает столбцы результата в порядке их следования в запросе.
+     */
+    public List<Column> columns() {
+        return columns;
+    }
+
+    /**
+     * Возвращает столбец по индексу.
+     *
+     * @param index индекс столбца (начиная с 0)
+     * @return столбец
+     */
+    public Column column(int index) {
+        return columns.get(index);
+    }
+
+    /**
+     * Возвращает столбец по метке.
+     *
+     * @param label метка столбца
+     * @return столбец
+     * @throws NoSuchElementException если столбца нет
+     */
+    public Column column(String label) {
+        Column column = columnsByLabel.get(label);
+        if (column == null) {
+            throw new NoSuchElementException("Column not found: " + label);
+        }
+        return column;
+    }
+
+    /**
+     * Возвращает столбец типа {@code long} по метке.
+     */
+    public LongColumn longColumn(String label) {
+        return typedColumn(label, LongColumn.class);
+    }
+
+    /**
+     * Возвращает столбец типа {@code int} по метке.
+     */
+    public IntColumn intColumn(String label) {
+        return typedColumn(label, IntColumn.class);
+    }
+
+    /**
+     * Возвращает столбец типа {@code double} по метке.
+     */
+    public DoubleColumn doubleColumn(String label) {
+        return typedColumn(label, DoubleColumn.class);
+    }
+
+    /**
+     * Возвращает столбец типа {@code numeric} по метке.
+     */
+    public DecimalColumn decimalColumn(String label) {
+        return typedColumn(label, DecimalColumn.class);
+    }
+
+    /**
+     * Возвращает столбец типа {@code boolean} по метке.
+     */
+    public BooleanColumn booleanColumn(String label) {
+        return typedColumn(label, BooleanColumn.class);
+    }
+
+    /**
+     * Возвращает строковый столбец по метке.
+     */
+    public StringColumn stringColumn(String label) {
+        return typedColumn(label, StringColumn.class);
+    }
+
+    private <C extends Column> C typedColumn(String label, Class<C> type) {
+        Column column = column(label);
+        if (!type.isInstance(column)) {
+            throw new ClassCastException("Column " + label + " is " + column.getClass().getSimpleName()
+                    + ", not " + type.getSimpleName());
+        }
+        return type.cast(column);
+    }
+
+    /**
+     * Выбирает представление столбца по его JDBC-типу.
+     */
+    private static ColumnBuilder builderFor(int jdbcType, String label, int index) {
+        return switch (jdbcType) {
+            case Types.BIGINT -> new LongColumn.Builder(label, index);
+            case Types.INTEGER, Types.SMALLINT, Types.TINYINT -> new IntColumn.Builder(label, index);
+            case Types.DOUBLE, Types.FLOAT, Types.REAL -> new DoubleColumn.Builder(label, index);
+            case Types.NUMERIC, Types.DECIMAL -> new DecimalColumn.Builder(label, index);
+            case Types.BOOLEAN, Types.BIT -> new BooleanColumn.Builder(label, index);
+            case Types.CHAR, Types.VARCHAR, Types.LONGVARCHAR,
+                 Types.NCHAR, Types.NVARCHAR, Types.LONGNVARCHAR -> new StringColumn.Builder(label, index);
+            default -> new ObjectColumn.Builder(label, index);
+        };
+    }
+}
@@ -0,0 +1,170 @@
+package com.koroli.dynamicqueryforge.result;
+
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Холодный издатель строк результата запроса с поддержкой обратного давления.
+ * <p>
+ * Каждая подписка открывает собственный курсор при первом запросе элементов и читает из него
+ * ровно столько строк, сколько запросил подписчик через {@link Flow.Subscription#request(long)}.
+ * Драйвер получает строки порциями размера {@code fetchSize} только по мере чтения, поэтому память
+ * ограничена независимо от размера результата. Отмена подписки закрывает курсор и освобождает соединение.
+ * <p>
+ * Сигналы подписчику отправляются последовательно из задач исполнителя; курсор используется
+ * только внутри цикла доставки и не разделяется между потоками одновременно.
+ *
+ * @param <T> тип элементов результата
+ */
+public final class CursorPublisher<T> implements Flow.Publisher<T> {
+
+    private final Supplier<ResultCursor<T>> cursorOpener;
+    private final Executor executor;
+
+    /**
+     * @param cursorOpener функция, открывающая курсор результата для новой подписки
+     * @param executor     исполнитель, в котором читаются строки и отправляются сигналы подписчику
+     */
+    public CursorPublisher(Supplier<ResultCursor<T>> cursorOpener, Executor executor) {
+        this.cursorOpener = cursorOpener;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        CursorSubscription subscription = new CursorSubscription(subscriber);
+        subscriber.onSubscribe(subscription);
+    }
+
+    /**
+     * Подписка, доставляющая строки курсора в количестве, запрошенном подписчиком.
+     */
+    private final class CursorSubscription implements Flow.Subscription, Runnable {
+
+        private final Flow.Subscriber<? super T> subscriber;
+
+        /** Количество запрошенных, но еще не доставленных элементов */
+        private final AtomicLong requested = new AtomicLong();
+
+        /** Счетчик запланированных проходов цикла доставки */
+        private final AtomicInteger pending = new AtomicInteger();
+
+        private volatile boolean cancelled;
+        private volatile Throwable invalidRequest;
+
+        /** Поля ниже используются только внутри цикла доставки */
+        private ResultCursor<T> cursor;
+        private boolean done;
+
+        CursorSubscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                invalidRequest = new IllegalArgumentException("Количество запрошенных элементов должно быть положительным: " + n);
+            } else {
+                requested.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+            }
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            schedule();
+        }
+
+        /**
+         * Планирует проход цикла доставки, если он еще не выполняется.
+         */
+        private void schedule() {
+            if (pending.getAndIncrement() == 0) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            int missed = 1;
+            do {
+                drain();
+                missed = pending.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        /**
+         * Доставляет подписчику запрошенные строки или завершает подписку.
+         */
+        private void drain() {
+            if (done) {
+                return;
+            }
+            if (cancelled) {
+                terminate();
+                return;
+            }
+            if (invalidRequest != null) {
+                terminate();
+                subscriber.onError(invalidRequest);
+                return;
+            }
+
+            long demand = requested.get();
+            long emitted = 0;
+            while (emitted != demand && !cancelled) {
+                T item;
+                try {
+                    if (cursor == null) {
+                        cursor = cursorOpener.get();
+                    }
+                    if (!cursor.hasNext()) {
+                        terminate();
+                        subscriber.onComplete();
+                        return;
+                    }
+                    item = cursor.next();
+                } catch (RuntimeException e) {
+                    terminate();
+                    subscriber.onError(e);
+                    return;
+                }
+
+                try {
+                    subscriber.onNext(item);
+                } catch (Throwable e) {
+                    // Подписчик нарушил контракт: подписка считается отмененной
+                    terminate();
+                    return;
+                }
+                emitted++;
+            }
+
+            if (cancelled) {
+                terminate();
+            } else if (demand != Long.MAX_VALUE) {
+                requested.addAndGet(-emitted);
+            }
+        }
+
+        /**
+         * Закрывает курсор и освобождает соединение; после этого сигналы подписчику не отправляются.
+         */
+        private void terminate() {
+            done = true;
+            if (cursor != null) {
+                try {
+                    cursor.close();
+                } catch (RuntimeException ignored) {
+                    // Курсор освобождает соединение даже при ошибке закрытия
+                }
+            }
+        }
+    }
+}
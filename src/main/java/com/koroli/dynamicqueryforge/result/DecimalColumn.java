@@ -0,0 +1,89 @@
+package com.koroli.dynamicqueryforge.result;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+
+/**
+ * Столбец значений типа {@code numeric} и {@code decimal}. Значения хранятся как {@link BigDecimal}
+ * без приведения к {@code double}, поэтому денежные суммы и большие числа не теряют точности.
+ */
+public final class DecimalColumn implements Column {
+
+    private final String label;
+    private final BigDecimal[] values;
+
+    DecimalColumn(String label, BigDecimal[] values) {
+        this.label = label;
+        this.values = values;
+    }
+
+    @Override
+    public String label() {
+        return label;
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    @Override
+    public boolean isNull(int row) {
+        return values[row] == null;
+    }
+
+    /**
+     * Возвращает значение в строке.
+     *
+     * @param row индекс строки (начиная с 0)
+     * @return значение или null
+     */
+    public BigDecimal get(int row) {
+        return values[row];
+    }
+
+    /**
+     * Возвращает значения столбца. Массив не копируется и не должен изменяться.
+     *
+     * @return массив значений длины {@link #size()}
+     */
+    public BigDecimal[] values() {
+        return values;
+    }
+
+    @Override
+    public Object getObject(int row) {
+        return values[row];
+    }
+
+    /**
+     * Накапливает значения столбца в растущем массиве.
+     */
+    static final class Builder implements ColumnBuilder {
+
+        private final String label;
+        private final int index;
+        private BigDecimal[] values = new BigDecimal[INITIAL_CAPACITY];
+        private int size;
+
+        Builder(String label, int index) {
+            this.label = label;
+            this.index = index;
+        }
+
+        @Override
+        public void append(ResultSet resultSet) throws SQLException {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size++] = resultSet.getBigDecimal(index);
+        }
+
+        @Override
+        public Column build() {
+            return new DecimalColumn(label, Arrays.copyOf(values, size));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.koroli.dynamicqueryforge.result;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Столбец значений типа {@code double}, {@code float} и {@code real}.
+ */
+public final class DoubleColumn implements Column {
+
+    private final String label;
+    private final double[] values;
+    private final BitSet nulls;
+
+    DoubleColumn(String label, double[] values, BitSet nulls) {
+        this.label = label;
+        this.values = values;
+        this.nulls = nulls;
+    }
+
+    @Override
+    public String label() {
+        return label;
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    @Override
+    public boolean isNull(int row) {
+        return nulls.get(row);
+    }
+
+    /**
+     * Возвращает значение в строке; для NULL возвращается {@code 0.0}.
+     *
+     * @param row индекс строки (начиная с 0)
+     * @return значение
+     */
+    public double get(int row) {
+        return values[row];
+    }
+
+    /**
+     * Возвращает значения столбца. Массив не копируется и не должен изменяться.
+     *
+     * @return массив значений длины {@link #size()}
+     */
+    public double[] values() {
+        return values;
+    }
+
+    @Override
+    public Object getObject(int row) {
+        return nulls.get(row) ? null : values[row];
+    }
+
+    /**
+     * Накапливает значения столбца в растущем массиве.
+     */
+    static final class Builder implements ColumnBuilder {
+
+        private final String label;
+        private final int index;
+        private double[] values = new double[INITIAL_CAPACITY];
+        private final BitSet nulls = new BitSet();
+        private int size;
+
+        Builder(String label, int index) {
+            this.label = label;
+            this.index = index;
+        }
+
+        @Override
+        public void append(ResultSet resultSet) throws SQLException {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size << 1);
+            }
+            values[size] = resultSet.getDouble(index);
+            if (resultSet.wasNull()) {
+                nulls.set(size);
+            }
+            size++;
+        }
+
+        @Override
+        public Column build() {
+            return new DoubleColumn(label, Arrays.copyOf(values, size), nulls);
+        }
+    }
+}
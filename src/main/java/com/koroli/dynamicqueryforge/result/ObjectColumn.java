@@ -0,0 +1,73 @@
+package com.koroli.dynamicqueryforge.result;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Столбец значений, для которых нет примитивного представления (даты, UUID, массивы и т.п.).
+ */
+public final class ObjectColumn implements Column {
+
+    private final String label;
+    private final List<Object> values;
+
+    ObjectColumn(String label, List<Object> values) {
+        this.label = label;
+        this.values = values;
+    }
+
+    @Override
+    public String label() {
+        return label;
+    }
+
+    @Override
+    public int size() {
+        return values.size();
+    }
+
+    @Override
+    public boolean isNull(int row) {
+        return values.get(row) == null;
+    }
+
+    @Override
+    public Object getObject(int row) {
+        return values.get(row);
+    }
+
+    /**
+     * Возвращает значения столбца в виде неизменяемого списка.
+     */
+    public List<Object> values() {
+        return values;
+    }
+
+    /**
+     * Накапливает значения столбца в списке.
+     */
+    static final class Builder implements ColumnBuilder {
+
+        private final String label;
+        private final int index;
+        private final List<Object> values = new ArrayList<>(INITIAL_CAPACITY);
+
+        Builder(String label, int index) {
+            this.label = label;
+            this.index = index;
+        }
+
+        @Override
+        public void append(ResultSet resultSet) throws SQLException {
+            values.add(resultSet.getObject(index));
+        }
+
+        @Override
+        public Column build() {
+            return new ObjectColumn(label, Collections.unmodifiableList(values));
+        }
+    }
+}
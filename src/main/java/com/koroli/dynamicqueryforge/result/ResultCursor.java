@@ -0,0 +1,37 @@
+package com.koroli.dynamicqueryforge.result;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Курсор по результату запроса, строки которого читаются из базы данных по мере перебора.
+ * <p>
+ * Пока курсор открыт, он удерживает соединение с базой данных.
+ * Соединение освобождается автоматически после чтения последней строки или при ошибке;
+ * если перебор прерван раньше, курсор необходимо закрыть явно.
+ *
+ * @param <T> тип элементов результата
+ */
+public interface ResultCursor<T> extends Iterator<T>, AutoCloseable {
+
+    /**
+     * Закрывает курсор и освобождает соединение с базой данных.
+     */
+    @Override
+    void close();
+
+    /**
+     * Возвращает последовательный поток элементов курсора.
+     * Закрытие потока закрывает курсор.
+     *
+     * @return поток элементов результата
+     */
+    default Stream<T> stream() {
+        Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(
+                this, Spliterator.ORDERED);
+        return StreamSupport.stream(spliterator, false).onClose(this::close);
+    }
+}
@@ -0,0 +1,117 @@
+package com.koroli.dynamicqueryforge.result;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Столбец строковых значений со словарным кодированием:
+ * каждая строка хранится в словаре один раз, а в столбце - только ее код.
+ */
+public final class StringColumn implements Column {
+
+    /** Код значения NULL */
+    public static final int NULL_CODE = -1;
+
+    private final String label;
+    private final int[] codes;
+    private final String[] dictionary;
+
+    StringColumn(String label, int[] codes, String[] dictionary) {
+        this.label = label;
+        this.codes = codes;
+        this.dictionary = dictionary;
+    }
+
+    @Override
+    public String label() {
+        return label;
+    }
+
+    @Override
+    public int size() {
+        return codes.length;
+    }
+
+    @Override
+    public boolean isNull(int row) {
+        return codes[row] == NULL_CODE;
+    }
+
+    /**
+     * Возвращает значение в строке.
+     *
+     * @param row индекс строки (начиная с 0)
+     * @return значение или null
+     */
+    public String get(int row) {
+        int code = codes[row];
+        return code == NULL_CODE ? null : dictionary[code];
+    }
+
+    /**
+     * Возвращает код значения в строке ({@link #NULL_CODE} для NULL).
+     *
+     * @param row индекс строки (начиная с 0)
+     * @return индекс значения в словаре
+     */
+    public int code(int row) {
+        return codes[row];
+    }
+
+    /**
+     * Возвращает коды значений столбца. Массив не копируется и не должен изменяться.
+     */
+    public int[] codes() {
+        return codes;
+    }
+
+    /**
+     * Возвращает словарь различных значений столбца в порядке их первого появления.
+     */
+    public List<String> dictionary() {
+        return List.of(dictionary);
+    }
+
+    @Override
+    public Object getObject(int row) {
+        return get(row);
+    }
+
+    /**
+     * Накапливает коды значений и словарь столбца.
+     */
+    static final class Builder implements ColumnBuilder {
+
+        private final String label;
+        private final int index;
+        private final Map<String, Integer> codesByValue = new HashMap<>();
+        private final List<String> dictionary = new ArrayList<>();
+        private int[] codes = new int[INITIAL_CAPACITY];
+        private int size;
+
+        Builder(String label, int index) {
+            this.label = label;
+            this.index = index;
+        }
+
+        @Override
+        public void append(ResultSet resultSet) throws SQLException {
+            if (size == codes.length) {
+                codes = Arrays.copyOf(codes, size << 1);
+            }
+            String value = resultSet.getString(index);
+            codes[size++] = value == null ? NULL_CODE : codesByValue.computeIfAbsent(value, this::addToDictionary);
+        }
+
+        @Override
+        public Column build() {
+            return new StringColumn(label, Arrays.copyOf(codes, size), dictionary.toArray(String[]::new));
+        }
+
+        private int addToDictionary(String value) {
+            dictionary.add(value);
+            return dictionary.size() - 1;
+        }
+    }
+}
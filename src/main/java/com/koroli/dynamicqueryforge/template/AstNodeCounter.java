@@ -0,0 +1,104 @@
+package com.koroli.dynamicqueryforge.template;
+
+import lombok.experimental.UtilityClass;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Подсчет количества узлов дерева запроса JSqlParser.
+ * Используется как вес шаблона в кеше: память, занимаемая разобранным запросом, пропорциональна числу узлов.
+ */
+@UtilityClass
+class AstNodeCounter {
+
+    private static final String JSQLPARSER_PACKAGE = "net.sf.jsqlparser.";
+
+    /** Нестатические поля классов JSqlParser, доступные для чтения */
+    private static final ClassValue<List<Field>> FIELDS = new ClassValue<>() {
+        @Override
+        protected List<Field> computeValue(Class<?> type) {
+            List<Field> fields = new ArrayList<>();
+            for (Class<?> current = type; current != null && isNodeClass(current); current = current.getSuperclass()) {
+                for (Field field : current.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers()) || field.getType().isPrimitive()) {
+                        continue;
+                    }
+                    try {
+                        field.setAccessible(true);
+                        fields.add(field);
+                    } catch (RuntimeException ignored) {
+                        // Недоступное поле не учитывается
+                    }
+                }
+            }
+            return fields;
+        }
+    };
+
+    /**
+     * Считает узлы дерева: объекты классов JSqlParser, достижимые из корня через поля, коллекции и массивы.
+     *
+     * @param root корень дерева запроса
+     * @return количество узлов
+     */
+    static int count(Object root) {
+        Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Object> pending = new ArrayDeque<>();
+        pending.push(root);
+
+        int nodes = 0;
+        while (!pending.isEmpty()) {
+            Object current = pending.pop();
+            if (!visited.add(current)) {
+                continue;
+            }
+
+            switch (current) {
+                case Collection<?> collection -> collection.forEach(element -> push(pending, element));
+                case Map<?, ?> map -> map.forEach((key, value) -> {
+                    push(pending, key);
+                    push(pending, value);
+                });
+                case Object[] array -> {
+                    for (Object element : array) {
+                        push(pending, element);
+                    }
+                }
+                default -> {
+                    if (!isNodeClass(current.getClass())) {
+                        continue;
+                    }
+                    nodes++;
+                    for (Field field : FIELDS.get(current.getClass())) {
+                        try {
+                            push(pending, field.get(current));
+                        } catch (IllegalAccessException ignored) {
+                            // Поле было доступно при построении списка
+                        }
+                    }
+                }
+            }
+        }
+        return nodes;
+    }
+
+    private static void push(Deque<Object> pending, Object value) {
+        if (value != null) {
+            pending.push(value);
+        }
+    }
+
+    private static boolean isNodeClass(Class<?> type) {
+        return type.getName().startsWith(JSQLPARSER_PACKAGE);
+    }
+}
@@ -0,0 +1,68 @@
+package com.koroli.dynamicqueryforge.template;
+
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.JdbcNamedParameter;
+import net.sf.jsqlparser.expression.operators.relational.ExpressionList;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.statement.Statement;
+import net.sf.jsqlparser.statement.insert.Insert;
+import net.sf.jsqlparser.statement.select.Values;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Целевая таблица и столбцы INSERT-запроса для массовой загрузки через {@code COPY FROM STDIN}.
+ *
+ * @param table          имя таблицы (с указанием схемы, если она задана)
+ * @param columns        имена столбцов в порядке перечисления в запросе
+ * @param parameterNames имена параметров, значения которых загружаются в соответствующие столбцы
+ */
+public record CopyTarget(String table, List<String> columns, List<String> parameterNames) {
+
+    /**
+     * Извлекает целевую таблицу и столбцы из запроса вида
+     * {@code INSERT INTO table (col1, col2) VALUES (:param1, :param2)}.
+     *
+     * @param statement дерево запроса
+     * @return описание загрузки или null, если запрос не является однострочным INSERT
+     *         с явным списком столбцов и параметрами в качестве всех значений
+     */
+    static CopyTarget of(Statement statement) {
+        // INSERT ... SELECT не поддерживается: Insert.getValues() для него бросает ClassCastException
+        if (!(statement instanceof Insert insert)
+                || insert.getColumns() == null
+                || !(insert.getSelect() instanceof Values valuesClause)
+                || insert.getReturningClause() != null) {
+            return null;
+        }
+
+        ExpressionList<?> values = valuesClause.getExpressions();
+        if (values.size() != insert.getColumns().size()) {
+            return null;
+        }
+
+        List<String> columns = new ArrayList<>(values.size());
+        List<String> parameterNames = new ArrayList<>(values.size());
+        for (int i = 0; i < values.size(); i++) {
+            Expression value = values.get(i);
+            if (!(value instanceof JdbcNamedParameter parameter)) {
+                return null;
+            }
+            Column column = insert.getColumns().get(i);
+            columns.add(column.getColumnName());
+            parameterNames.add(parameter.getName());
+        }
+        return new CopyTarget(insert.getTable().getFullyQualifiedName(), List.copyOf(columns), List.copyOf(parameterNames));
+    }
+
+    /**
+     * Формирует команду {@code COPY ... FROM STDIN} для указанного формата.
+     *
+     * @param format формат данных ({@code csv} или {@code binary})
+     * @return текст команды COPY
+     */
+    public String copySql(String format) {
+        return "COPY " + table + " (" + String.join(", ", columns) + ") FROM STDIN (FORMAT " + format + ")";
+    }
+}
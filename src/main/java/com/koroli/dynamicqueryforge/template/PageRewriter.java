@@ -0,0 +1,260 @@
+package com.koroli.dynamicqueryforge.template;
+
+import com.koroli.dynamicqueryforge.exception.QueryProcessingException;
+import com.koroli.dynamicqueryforge.page.KeysetPageRequest;
+import com.koroli.dynamicqueryforge.page.PageRequest;
+import com.koroli.dynamicqueryforge.page.SortOrder;
+import com.koroli.dynamicqueryforge.util.DeepCloningUtils;
+import lombok.experimental.UtilityClass;
+import net.sf.jsqlparser.expression.Alias;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.Function;
+import net.sf.jsqlparser.expression.JdbcNamedParameter;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.expression.operators.conditional.AndExpression;
+import net.sf.jsqlparser.expression.operators.conditional.OrExpression;
+import net.sf.jsqlparser.expression.operators.relational.ComparisonOperator;
+import net.sf.jsqlparser.expression.operators.relational.EqualsTo;
+import net.sf.jsqlparser.expression.operators.relational.GreaterThan;
+import net.sf.jsqlparser.expression.operators.relational.MinorThan;
+import net.sf.jsqlparser.expression.operators.relational.ParenthesedExpressionList;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.schema.Table;
+import net.sf.jsqlparser.statement.Statement;
+import net.sf.jsqlparser.statement.select.AllColumns;
+import net.sf.jsqlparser.statement.select.Limit;
+import net.sf.jsqlparser.statement.select.Offset;
+import net.sf.jsqlparser.statement.select.OrderByElement;
+import net.sf.jsqlparser.statement.select.ParenthesedSelect;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import net.sf.jsqlparser.statement.select.SelectItem;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Перестройка дерева SELECT-запроса для постраничной навигации.
+ * Значения границ страницы передаются служебными именованными параметрами, поэтому
+ * форма запроса зависит только от сортировки, а не от номера страницы.
+ */
+@UtilityClass
+class PageRewriter {
+
+    /** Параметр лимита строк страницы */
+    private static final String LIMIT_PARAMETER = "__page_limit";
+
+    /** Параметр смещения первой строки страницы */
+    private static final String OFFSET_PARAMETER = "__page_offset";
+
+    /** Параметр ограничения количества подсчитываемых строк */
+    private static final String COUNT_LIMIT_PARAMETER = "__count_limit";
+
+    /** Префикс параметров значений ключа последней прочитанной строки */
+    private static final String KEY_PARAMETER_PREFIX = "__page_key";
+
+    /** Псевдоним подзапроса в запросе подсчета строк */
+    private static final String COUNT_SUBQUERY_ALIAS = "q";
+
+    /**
+     * Добавляет к запросу условие продолжения после последней прочитанной строки,
+     * сортировку по столбцам ключа и лимит строк страницы.
+     * Если все столбцы сортируются в одном направлении, условие записывается сравнением
+     * строк {@code (a, b) > (:a, :b)}, которое PostgreSQL выполняет по составному индексу.
+     *
+     * @param pruned дерево запроса без предикатов с отсутствующими параметрами (не изменяется)
+     * @param sort   столбцы сортировки
+     * @param seek   добавить условие продолжения (false для первой страницы)
+     * @return новое дерево запроса
+     */
+    static Statement keyset(Statement pruned, List<SortOrder> sort, boolean seek) {
+        PlainSelect copy = copySelect(pruned, "Постраничная навигация по ключу");
+
+        if (seek) {
+            Expression predicate = seekPredicate(sort);
+            copy.setWhere(copy.getWhere() == null
+                    ? predicate
+                    : new AndExpression(new ParenthesedExpressionList<>(copy.getWhere()), predicate));
+        }
+
+        copy.setOrderByElements(toOrderBy(sort));
+        copy.setLimit(new Limit().withRowCount(new JdbcNamedParameter(LIMIT_PARAMETER)));
+        copy.setOffset(null);
+        copy.setFetch(null);
+        return copy;
+    }
+
+    /**
+     * Дополняет параметры запроса значениями границ страницы.
+     * Лимит на одну строку больше размера страницы: лишняя строка показывает, что следующая страница есть.
+     *
+     * @param parameters карта параметров вызова (не изменяется)
+     * @param page       запрос страницы
+     * @return новая карта параметров
+     */
+    static Map<String, Object> keysetParameters(Map<String, Object> parameters, KeysetPageRequest page) {
+        Map<String, Object> values = new HashMap<>(parameters);
+        values.put(LIMIT_PARAMETER, page.size() + 1);
+        for (int i = 0; i < page.after().size(); i++) {
+            values.put(KEY_PARAMETER_PREFIX + i, page.after().get(i));
+        }
+        return values;
+    }
+
+    /**
+     * Подставляет в запрос LIMIT и OFFSET страницы и, если задана сортировка страницы, заменяет ORDER BY.
+     *
+     * @param pruned дерево запроса без предикатов с отсутствующими параметрами (не изменяется)
+     * @param sort   столбцы сортировки (пустой список - сохранить ORDER BY запроса)
+     * @return новое дерево запроса
+     */
+    static Statement offset(Statement pruned, List<SortOrder> sort) {
+        PlainSelect copy = copySelect(pruned, "Постраничная навигация по смещению");
+        if (!sort.isEmpty()) {
+            copy.setOrderByElements(toOrderBy(sort));
+        }
+        copy.setLimit(new Limit().withRowCount(new JdbcNamedParameter(LIMIT_PARAMETER)));
+        copy.setOffset(new Offset().withOffset(new JdbcNamedParameter(OFFSET_PARAMETER)));
+        copy.setFetch(null);
+        return copy;
+    }
+
+    /**
+     * Строит из запроса {@code SELECT count(*)} без ORDER BY, LIMIT и OFFSET.
+     * Для запроса без DISTINCT, GROUP BY и HAVING список выборки заменяется на {@code count(*)};
+     * иначе, а также при ограниченном подсчете, исходный запрос становится подзапросом:
+     * {@code SELECT count(*) FROM (SELECT 1 FROM ... LIMIT :limit) q}.
+     *
+     * @param pruned дерево запроса без предикатов с отсутствующими параметрами (не изменяется)
+     * @param capped ограничить количество подсчитываемых строк параметром
+     * @return новое дерево запроса
+     */
+    static Statement count(Statement pruned, boolean capped) {
+        PlainSelect source = copySelect(pruned, "Подсчет строк страницы");
+        source.setOrderByElements(null);
+        source.setLimit(null);
+        source.setOffset(null);
+        source.setFetch(null);
+
+        boolean grouped = source.getDistinct() != null || source.getGroupBy() != null || source.getHaving() != null;
+        if (!grouped && !capped) {
+            source.setSelectItems(List.of(new SelectItem<>(countAll())));
+            return source;
+        }
+
+        if (!grouped) {
+            source.setSelectItems(List.of(new SelectItem<>(new LongValue(1))));
+        }
+        if (capped) {
+            source.setLimit(new Limit().withRowCount(new JdbcNamedParameter(COUNT_LIMIT_PARAMETER)));
+        }
+        PlainSelect count = new PlainSelect();
+        count.setSelectItems(List.of(new SelectItem<>(countAll())));
+        count.setFromItem(new ParenthesedSelect().withSelect(source).withAlias(new Alias(COUNT_SUBQUERY_ALIAS)));
+        return count;
+    }
+
+    /**
+     * Дополняет параметры запроса значениями LIMIT и OFFSET страницы и ограничением подсчета строк.
+     * Лимит на одну строку больше размера страницы: лишняя строка показывает, что следующая страница есть,
+     * даже если подсчет отключен. Ограничение подсчета также на единицу больше, чтобы отличить
+     * ровно достигнутое ограничение от превышенного.
+     *
+     * @param parameters карта параметров вызова (не изменяется)
+     * @param page       запрос страницы
+     * @return новая карта параметров
+     */
+    static Map<String, Object> offsetParameters(Map<String, Object> parameters, PageRequest page) {
+        Map<String, Object> values = new HashMap<>(parameters);
+        values.put(LIMIT_PARAMETER, page.size() + 1);
+        values.put(OFFSET_PARAMETER, page.offset());
+        if (page.countLimit() > 0) {
+            values.put(COUNT_LIMIT_PARAMETER, page.countLimit() + 1);
+        }
+        return values;
+    }
+
+    /**
+     * Строит условие продолжения после строки со значениями ключа из параметров.
+     */
+    private static Expression seekPredicate(List<SortOrder> sort) {
+        boolean uniform = sort.stream().allMatch(order -> order.descending() == sort.getFirst().descending());
+        if (uniform) {
+            List<Expression> columns = new ArrayList<>(sort.size());
+            List<Expression> values = new ArrayList<>(sort.size());
+            for (int i = 0; i < sort.size(); i++) {
+                columns.add(toColumn(sort.get(i)));
+                values.add(new JdbcNamedParameter(KEY_PARAMETER_PREFIX + i));
+            }
+            Expression left = columns.size() == 1 ? columns.getFirst() : new ParenthesedExpressionList<>(columns);
+            Expression right = values.size() == 1 ? values.getFirst() : new ParenthesedExpressionList<>(values);
+            return after(sort.getFirst(), left, right);
+        }
+
+        // Разные направления: (a > :a) OR (a = :a AND b < :b) OR ...
+        Expression predicate = null;
+        for (int i = 0; i < sort.size(); i++) {
+            Expression branch = after(sort.get(i), toColumn(sort.get(i)), new JdbcNamedParameter(KEY_PARAMETER_PREFIX + i));
+            for (int j = i - 1; j >= 0; j--) {
+                branch = new AndExpression(
+                        new EqualsTo(toColumn(sort.get(j)), new JdbcNamedParameter(KEY_PARAMETER_PREFIX + j)), branch);
+            }
+            predicate = predicate == null ? branch : new OrExpression(predicate, branch);
+        }
+        return new ParenthesedExpressionList<>(predicate);
+    }
+
+    /**
+     * Строит сравнение "строго после" в направлении сортировки.
+     */
+    private static ComparisonOperator after(SortOrder order, Expression left, Expression right) {
+        ComparisonOperator comparison = order.descending() ? new MinorThan() : new GreaterThan();
+        comparison.setLeftExpression(left);
+        comparison.setRightExpression(right);
+        return comparison;
+    }
+
+    /**
+     * Строит элементы ORDER BY по столбцам сортировки.
+     */
+    private static List<OrderByElement> toOrderBy(List<SortOrder> sort) {
+        List<OrderByElement> orderBy = new ArrayList<>(sort.size());
+        for (SortOrder order : sort) {
+            OrderByElement element = new OrderByElement();
+            element.setExpression(toColumn(order));
+            element.setAsc(!order.descending());
+            element.setAscDescPresent(order.descending());
+            orderBy.add(element);
+        }
+        return orderBy;
+    }
+
+    /**
+     * Создает выражение {@code count(*)}.
+     */
+    private static Function countAll() {
+        return new Function("count", new AllColumns());
+    }
+
+    /**
+     * Копирует корневой узел SELECT-запроса для изменения.
+     */
+    private static PlainSelect copySelect(Statement pruned, String feature) {
+        if (!(pruned instanceof PlainSelect plainSelect)) {
+            throw new QueryProcessingException(feature + " поддерживается только для SELECT-запросов без UNION: " + pruned);
+        }
+        return DeepCloningUtils.shallowClone(plainSelect);
+    }
+
+    /**
+     * Создает узел столбца сортировки.
+     */
+    private static Column toColumn(SortOrder order) {
+        String column = order.column();
+        int dot = column.indexOf('.');
+        return dot < 0
+                ? new Column(column)
+                : new Column(new Table(column.substring(0, dot)), column.substring(dot + 1));
+    }
+}
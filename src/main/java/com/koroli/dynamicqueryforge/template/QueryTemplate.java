@@ -0,0 +1,664 @@
+package com.koroli.dynamicqueryforge.template;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.koroli.dynamicqueryforge.exception.QueryProcessingException;
+import com.koroli.dynamicqueryforge.expression.ExpressionModifier;
+import com.koroli.dynamicqueryforge.page.KeysetPageRequest;
+import com.koroli.dynamicqueryforge.page.PageRequest;
+import com.koroli.dynamicqueryforge.page.SortOrder;
+import com.koroli.dynamicqueryforge.parser.SqlParser;
+import com.koroli.dynamicqueryforge.util.CollectionParameterUtils;
+import com.koroli.dynamicqueryforge.util.DeepCloningUtils;
+import lombok.Getter;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.statement.Statement;
+import net.sf.jsqlparser.statement.delete.Delete;
+import net.sf.jsqlparser.statement.insert.Insert;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import net.sf.jsqlparser.statement.select.Select;
+import net.sf.jsqlparser.statement.update.Update;
+import net.sf.jsqlparser.util.TablesNamesFinder;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
+
+/**
+ * Скомпилированный шаблон SQL-запроса из аннотации {@code @Query}.
+ * <p>
+ * Каждому именованному параметру сопоставляется бит в маске присутствия.
+ * Форма запроса после удаления предикатов с отсутствующими параметрами
+ * вычисляется один раз для каждой маски и кешируется в виде {@link SqlSkeleton}.
+ * Шаблон хранит не более {@value #MAX_SHAPES} форм; редко используемые формы вытесняются.
+ * <p>
+ * Параметр-коллекция в списке IN разворачивается в плейсхолдеры, количество которых округляется
+ * вверх до степени двойки, поэтому число форм запроса растет логарифмически от размера коллекции.
+ * Коллекция больше {@code maxInListExpansion} элементов передается одним параметром-массивом
+ * через {@code = ANY(...)}. Пустая коллекция удаляет предикат так же, как null.
+ * Коллекции принимаются только параметрами списков IN и аргументами {@code ANY(...)}/{@code ALL(...)}.
+ * <p>
+ * Шаблон неизменяем и потокобезопасен: исходное дерево запроса после компиляции не изменяется,
+ * а сокращённые деревья строятся копированием пути с разделением нетронутых поддеревьев.
+ */
+public final class QueryTemplate {
+
+    /** Максимальное количество плейсхолдеров для параметра-коллекции в IN по умолчанию */
+    public static final int DEFAULT_IN_LIST_MAX_EXPANSION = 64;
+
+    /** Максимальное количество форм запроса, кешируемых в одном шаблоне */
+    public static final int MAX_SHAPES = 256;
+
+    /** Нормализованный SQL-запрос */
+    @Getter
+    private final String sql;
+
+    /** Отпечаток запроса: хеш нормализованного SQL, одинаковый для всех форм и значений параметров */
+    @Getter
+    private final String fingerprint;
+
+    /** Исходное дерево запроса */
+    private final Statement statement;
+
+    /** Имена параметров в порядке первого появления в запросе */
+    @Getter
+    private final List<String> parameterNames;
+
+    /** Тип запроса */
+    @Getter
+    private final StatementType statementType;
+
+    /** Признак запроса только на чтение: SELECT без FOR UPDATE/SHARE и INTO */
+    private final boolean readOnly;
+
+    /** Признак того, что запрос возвращает строки (SELECT или запрос с RETURNING) */
+    private final boolean returnsRows;
+
+    /** Целевая таблица и столбцы для загрузки через COPY (null, если запрос не поддерживает загрузку) */
+    private final CopyTarget copyTarget;
+
+    /**
+     * Имена таблиц, к которым обращается запрос, в нижнем регистре без схемы и кавычек
+     * (null, если таблицы определить не удалось)
+     */
+    @Getter
+    private final Set<String> tables;
+
+    /** Вес шаблона в кеше: количество узлов дерева запроса */
+    @Getter
+    private final int weight;
+
+    /** Маска параметров, от наличия которых зависит форма запроса */
+    private final long prunableMask;
+
+    /** Параметры, входящие в списки IN и разворачиваемые, если их значения - коллекции */
+    private final List<String> inListParameters;
+
+    /** Параметры, которые могут принимать коллекции: элементы списков IN и аргументы ANY/ALL */
+    private final Set<String> collectionParameters;
+
+    /** Максимальное количество плейсхолдеров, в которые разворачивается параметр-коллекция */
+    private final int maxInListExpansion;
+
+    /**
+     * Скелеты запроса по формам. Количество форм ограничено: сортировка страниц приходит от клиента,
+     * и каждая новая комбинация столбцов иначе навсегда оставалась бы в долгоживущем шаблоне
+     */
+    private final Cache<Shape, SqlSkeleton> shapes = Caffeine.newBuilder()
+            .maximumSize(MAX_SHAPES)
+            .executor(Runnable::run)
+            .build();
+
+    /** План выполнения на всех шардах (строится при первом обращении) */
+    private volatile ScatterPlan scatterPlan;
+
+    private QueryTemplate(String sql, Statement statement, int maxInListExpansion) {
+        this.sql = sql;
+        this.fingerprint = fingerprint(sql);
+        this.statement = statement;
+        this.parameterNames = List.copyOf(new LinkedHashSet<>(SqlSkeleton.of(statement).getSlots()));
+        this.statementType = switch (statement) {
+            case Select ignored -> StatementType.SELECT;
+            case Insert ignored -> StatementType.INSERT;
+            case Update ignored -> StatementType.UPDATE;
+            case Delete ignored -> StatementType.DELETE;
+            default -> StatementType.OTHER;
+        };
+        this.returnsRows = switch (statement) {
+            case Insert insert -> insert.getReturningClause() != null;
+            case Update update -> update.getReturningClause() != null;
+            case Delete delete -> delete.getReturningClause() != null;
+            default -> true;
+        };
+        this.readOnly = statement instanceof Select select
+                && select.getForMode() == null
+                && !(select instanceof PlainSelect plainSelect && plainSelect.getIntoTables() != null);
+        this.copyTarget = CopyTarget.of(statement);
+        this.weight = AstNodeCounter.count(statement);
+        this.tables = findTables(statement);
+
+        Set<String> prunable = new HashSet<>();
+        forEachWhere(statement, where -> ExpressionModifier.collectPrunableParameters(where, prunable));
+
+        long mask = 0L;
+        for (int i = 0; i < parameterNames.size() && i < Long.SIZE; i++) {
+            if (prunable.contains(parameterNames.get(i))) {
+                mask |= 1L << i;
+            }
+        }
+        this.prunableMask = mask;
+
+        Set<String> inList = new HashSet<>();
+        forEachWhere(statement, where -> ExpressionModifier.collectInListParameters(where, inList));
+        this.inListParameters = parameterNames.stream().filter(inList::contains).toList();
+        forEachWhere(statement, where -> ExpressionModifier.collectArrayParameters(where, inList));
+        this.collectionParameters = Set.copyOf(inList);
+        this.maxInListExpansion = maxInListExpansion;
+    }
+
+    /**
+     * Разбирает SQL-запрос и компилирует его в шаблон.
+     *
+     * @param sql нормализованный SQL-запрос
+     * @return шаблон запроса
+     */
+    public static QueryTemplate compile(String sql) {
+        return compile(sql, DEFAULT_IN_LIST_MAX_EXPANSION);
+    }
+
+    /**
+     * Разбирает SQL-запрос и компилирует его в шаблон.
+     *
+     * @param sql                нормализованный SQL-запрос
+     * @param maxInListExpansion максимальное количество плейсхолдеров для параметра-коллекции в IN
+     * @return шаблон запроса
+     */
+    public static QueryTemplate compile(String sql, int maxInListExpansion) {
+        return new QueryTemplate(sql, SqlParser.parse(sql), maxInListExpansion);
+    }
+
+    /**
+     * Компилирует в шаблон построенное дерево запроса с настройками этого шаблона.
+     *
+     * @param derived дерево запроса, которое после вызова не изменяется
+     * @return шаблон запроса
+     */
+    QueryTemplate derive(Statement derived) {
+        return new QueryTemplate(derived.toString(), derived, maxInListExpansion);
+    }
+
+    /**
+     * Возвращает скелет запроса для переданных значений параметров.
+     *
+     * @param parameters карта параметров и их значений
+     * @return скелет запроса, из которого удалены предикаты с отсутствующими параметрами
+     */
+    public SqlSkeleton skeleton(Map<String, Object> parameters) {
+        return skeleton(shape(parameters), parameters);
+    }
+
+    /**
+     * Возвращает скелет запроса для маски присутствия параметров.
+     *
+     * @param mask маска присутствия параметров
+     * @return скелет запроса
+     */
+    public SqlSkeleton skeleton(long mask) {
+        Shape shape = new Shape(mask & prunableMask, null, null);
+        return shapes.get(shape, key -> build(key, name -> isPresent(key.mask(), name)));
+    }
+
+    /**
+     * Возвращает скелет запроса для формы, вычисленной методами {@link #shape}, {@link #keysetShape},
+     * {@link #offsetShape} или {@link #countShape}.
+     *
+     * @param shape      форма запроса
+     * @param parameters карта параметров и их значений, по которым вычислена форма
+     * @return скелет запроса
+     * @throws QueryProcessingException если запрос страницы или подсчета строк не является простым SELECT
+     */
+    public SqlSkeleton skeleton(Shape shape, Map<String, Object> parameters) {
+        if (parameterNames.size() > Long.SIZE) {
+            return build(shape, name -> hasValue(parameters, name));
+        }
+        return shapes.get(shape, key -> build(key, name -> isPresent(key.mask(), name)));
+    }
+
+    /**
+     * Вычисляет форму запроса для переданных значений параметров.
+     *
+     * @param parameters карта параметров и их значений
+     * @return форма запроса
+     */
+    public Shape shape(Map<String, Object> parameters) {
+        return new Shape(presenceMask(parameters), expansionSizes(parameters), null);
+    }
+
+    /**
+     * Вычисляет форму запроса страницы с постраничной навигацией по ключу:
+     * форма зависит также от сортировки и признака первой страницы.
+     *
+     * @param parameters карта параметров и их значений
+     * @param page       запрос страницы
+     * @return форма запроса с условием продолжения, сортировкой и лимитом страницы
+     */
+    public Shape keysetShape(Map<String, Object> parameters, KeysetPageRequest page) {
+        return new Shape(presenceMask(parameters), expansionSizes(parameters), new KeysetShape(page.sort(), !page.isFirst()));
+    }
+
+    /**
+     * Вычисляет форму запроса страницы с постраничной навигацией по смещению:
+     * форма зависит также от сортировки страницы.
+     *
+     * @param parameters карта параметров и их значений
+     * @param page       запрос страницы
+     * @return форма запроса с сортировкой, LIMIT и OFFSET страницы
+     */
+    public Shape offsetShape(Map<String, Object> parameters, PageRequest page) {
+        return new Shape(presenceMask(parameters), expansionSizes(parameters), new OffsetShape(page.sort()));
+    }
+
+    /**
+     * Вычисляет форму запроса подсчета строк для страницы с навигацией по смещению.
+     *
+     * @param parameters карта параметров и их значений
+     * @param page       запрос страницы с включенным подсчетом
+     * @return форма запроса {@code SELECT count(*)}
+     */
+    public Shape countShape(Map<String, Object> parameters, PageRequest page) {
+        return new Shape(presenceMask(parameters), expansionSizes(parameters), new CountShape(page.countLimit() > 0));
+    }
+
+    /**
+     * Возвращает скелет запроса страницы с постраничной навигацией по ключу.
+     *
+     * @param parameters карта параметров и их значений
+     * @param page       запрос страницы
+     * @return скелет запроса с условием продолжения, сортировкой и лимитом страницы
+     * @throws QueryProcessingException если запрос не является простым SELECT
+     */
+    public SqlSkeleton keysetSkeleton(Map<String, Object> parameters, KeysetPageRequest page) {
+        return skeleton(keysetShape(parameters, page), parameters);
+    }
+
+    /**
+     * Возвращает скелет запроса страницы с постраничной навигацией по смещению.
+     *
+     * @param parameters карта параметров и их значений
+     * @param page       запрос страницы
+     * @return скелет запроса с сортировкой, LIMIT и OFFSET страницы
+     * @throws QueryProcessingException если запрос не является простым SELECT
+     */
+    public SqlSkeleton offsetSkeleton(Map<String, Object> parameters, PageRequest page) {
+        return skeleton(offsetShape(parameters, page), parameters);
+    }
+
+    /**
+     * Возвращает скелет запроса подсчета строк для страницы с навигацией по смещению.
+     *
+     * @param parameters карта параметров и их значений
+     * @param page       запрос страницы с включенным подсчетом
+     * @return скелет запроса {@code SELECT count(*)}
+     * @throws QueryProcessingException если запрос не является простым SELECT
+     */
+    public SqlSkeleton countSkeleton(Map<String, Object> parameters, PageRequest page) {
+        return skeleton(countShape(parameters, page), parameters);
+    }
+
+    /**
+     * Дополняет параметры запроса значениями границ страницы с навигацией по ключу.
+     *
+     * @param parameters карта параметров вызова (не изменяется)
+     * @param page       запрос страницы
+     * @return параметры для заполнения скелета {@link #keysetSkeleton}
+     */
+    public static Map<String, Object> keysetParameters(Map<String, Object> parameters, KeysetPageRequest page) {
+        return PageRewriter.keysetParameters(parameters, page);
+    }
+
+    /**
+     * Дополняет параметры запроса значениями LIMIT и OFFSET страницы и ограничением подсчета строк.
+     *
+     * @param parameters карта параметров вызова (не изменяется)
+     * @param page       запрос страницы
+     * @return параметры для заполнения скелетов {@link #offsetSkeleton} и {@link #countSkeleton}
+     */
+    public static Map<String, Object> offsetParameters(Map<String, Object> parameters, PageRequest page) {
+        return PageRewriter.offsetParameters(parameters, page);
+    }
+
+    /**
+     * Строит скелет формы запроса: сокращает дерево, разворачивает параметры-коллекции и перестраивает запрос.
+     */
+    private SqlSkeleton build(Shape shape, Predicate<String> parameterPresent) {
+        Statement pruned = prunedStatement(parameterPresent, expansion(shape.sizes()));
+        return SqlSkeleton.of(switch (shape.rewrite()) {
+            case KeysetShape keyset -> PageRewriter.keyset(pruned, keyset.sort(), keyset.seek());
+            case OffsetShape offset -> PageRewriter.offset(pruned, offset.sort());
+            case CountShape count -> PageRewriter.count(pruned, count.capped());
+            case null, default -> pruned;
+        });
+    }
+
+    /**
+     * Вычисляет количество плейсхолдеров для параметров-коллекций в списках IN.
+     *
+     * @return размеры разворачивания в порядке {@link #inListParameters} или null, если коллекций нет
+     * @throws QueryProcessingException если коллекция передана параметру вне списка IN и ANY/ALL
+     */
+    private List<Integer> expansionSizes(Map<String, Object> parameters) {
+        if (collectionParameters.size() < parameterNames.size()) {
+            for (String name : parameterNames) {
+                if (!collectionParameters.contains(name) && CollectionParameterUtils.isCollection(parameters.get(name))) {
+                    throw new QueryProcessingException("Параметр :" + name
+                            + " передан коллекцией, но используется вне списка IN и ANY/ALL: " + sql);
+                }
+            }
+        }
+
+        List<Integer> sizes = null;
+        for (int i = 0; i < inListParameters.size(); i++) {
+            Object value = parameters.get(inListParameters.get(i));
+            if (!CollectionParameterUtils.isCollection(value) || !CollectionParameterUtils.hasValue(value)) {
+                continue;
+            }
+            if (sizes == null) {
+                sizes = new ArrayList<>(Collections.nCopies(inListParameters.size(), ExpressionModifier.NOT_EXPANDED));
+            }
+            sizes.set(i, expansionSize(CollectionParameterUtils.size(value)));
+        }
+        return sizes != null ? List.copyOf(sizes) : null;
+    }
+
+    /**
+     * Округляет размер коллекции вверх до степени двойки, не превышая {@link #maxInListExpansion}.
+     * Коллекция большего размера передается одним параметром-массивом.
+     */
+    private int expansionSize(int size) {
+        if (size > maxInListExpansion) {
+            return ExpressionModifier.ARRAY_PARAMETER;
+        }
+        int bucket = size <= 1 ? 1 : Integer.highestOneBit(size - 1) << 1;
+        return Math.min(bucket, maxInListExpansion);
+    }
+
+    /**
+     * Возвращает функцию размера разворачивания параметра для {@link ExpressionModifier}.
+     */
+    private ToIntFunction<String> expansion(List<Integer> sizes) {
+        if (sizes == null) {
+            return name -> ExpressionModifier.NOT_EXPANDED;
+        }
+        return name -> {
+            int index = inListParameters.indexOf(name);
+            return index < 0 ? ExpressionModifier.NOT_EXPANDED : sizes.get(index);
+        };
+    }
+
+    /**
+     * Проверяет, передано ли значение параметра: не null и не пустая коллекция.
+     */
+    private static boolean hasValue(Map<String, Object> parameters, String name) {
+        return CollectionParameterUtils.hasValue(parameters.get(name));
+    }
+
+    /**
+     * Вычисляет маску присутствия параметров: бит установлен, если значение параметра не null
+     * и не пустая коллекция.
+     *
+     * @param parameters карта параметров и их значений
+     * @return маска присутствия, учитывающая только параметры, влияющие на форму запроса
+     */
+    public long presenceMask(Map<String, Object> parameters) {
+        long mask = 0L;
+        for (int i = 0, size = Math.min(parameterNames.size(), Long.SIZE); i < size; i++) {
+            if (hasValue(parameters, parameterNames.get(i))) {
+                mask |= 1L << i;
+            }
+        }
+        return mask & prunableMask;
+    }
+
+    /**
+     * Проверяет, возвращает ли запрос строки: SELECT или изменяющий запрос с RETURNING.
+     */
+    public boolean returnsRows() {
+        return returnsRows;
+    }
+
+    /**
+     * Проверяет, только ли читает запрос данные: такой запрос можно выполнить на реплике.
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * Возвращает целевую таблицу и столбцы для массовой загрузки через {@code COPY FROM STDIN}.
+     *
+     * @return описание загрузки
+     * @throws QueryProcessingException если запрос не является INSERT с явным списком столбцов
+     *                                  и именованными параметрами в VALUES
+     */
+    public CopyTarget copyTarget() {
+        if (copyTarget == null) {
+            throw new QueryProcessingException("Запрос не поддерживает загрузку через COPY: " + sql);
+        }
+        return copyTarget;
+    }
+
+    /**
+     * Возвращает план выполнения запроса на всех шардах с объединением результатов.
+     *
+     * @return план запроса
+     */
+    public ScatterPlan scatterPlan() {
+        ScatterPlan plan = scatterPlan;
+        if (plan == null) {
+            plan = ScatterPlan.of(this, statement);
+            scatterPlan = plan;
+        }
+        return plan;
+    }
+
+    /**
+     * Проверяет, построен ли уже скелет формы запроса.
+     *
+     * @param shape форма запроса
+     */
+    public boolean isShapeCached(Shape shape) {
+        return parameterNames.size() <= Long.SIZE && shapes.getIfPresent(shape) != null;
+    }
+
+    /**
+     * Возвращает количество закешированных форм запроса, включая формы страниц и подсчета строк.
+     */
+    public int shapeCount() {
+        return (int) shapes.estimatedSize();
+    }
+
+    /**
+     * Проверяет, установлен ли в маске бит параметра.
+     */
+    private boolean isPresent(long mask, String name) {
+        int index = parameterNames.indexOf(name);
+        return index < 0 || index >= Long.SIZE || (mask & (1L << index)) != 0;
+    }
+
+    /**
+     * Строит дерево запроса без предикатов с отсутствующими параметрами.
+     * Исходное дерево не изменяется: копируются только узлы на пути к изменённому условию WHERE,
+     * остальные поддеревья разделяются с шаблоном. Возвращаемое дерево нельзя изменять.
+     *
+     * @param parameterPresent проверка наличия значения у параметра
+     * @return дерево запроса, разделяющее неизменённые поддеревья с шаблоном
+     */
+    public Statement prunedStatement(Predicate<String> parameterPresent) {
+        return prunedStatement(parameterPresent, name -> ExpressionModifier.NOT_EXPANDED);
+    }
+
+    /**
+     * Строит дерево запроса без предикатов с отсутствующими параметрами
+     * и с развернутыми параметрами-коллекциями в списках IN.
+     */
+    private Statement prunedStatement(Predicate<String> parameterPresent, ToIntFunction<String> expansion) {
+        ExpressionModifier editor = new ExpressionModifier(parameterPresent, expansion);
+
+        return switch (statement) {
+            case PlainSelect plainSelect -> modifySelect(plainSelect, editor);
+            case Update update -> modifyUpdate(update, editor);
+            case Insert insert -> modifyInsert(insert, editor);
+            case Delete delete -> modifyDelete(delete, editor);
+            default -> statement;
+        };
+    }
+
+    /**
+     * Модифицирует SELECT-запрос на основе параметров.
+     */
+    private PlainSelect modifySelect(PlainSelect plainSelect, ExpressionModifier editor) {
+        Expression where = plainSelect.getWhere();
+        Expression modified = where != null ? editor.modify(where) : null;
+        if (modified == where) {
+            return plainSelect;
+        }
+
+        PlainSelect copy = DeepCloningUtils.shallowClone(plainSelect);
+        copy.setWhere(modified);
+        return copy;
+    }
+
+    /**
+     * Модифицирует UPDATE-запрос на основе параметров.
+     */
+    private Update modifyUpdate(Update update, ExpressionModifier editor) {
+        Expression where = update.getWhere();
+        Expression modified = where != null ? editor.modify(where) : null;
+        if (modified == where) {
+            return update;
+        }
+
+        Update copy = DeepCloningUtils.shallowClone(update);
+        copy.setWhere(modified);
+        return copy;
+    }
+
+    /**
+     * Модифицирует INSERT-запрос на основе параметров.
+     */
+    private Insert modifyInsert(Insert insert, ExpressionModifier editor) {
+        if (!(insert.getSelect() instanceof PlainSelect plainSelect)) {
+            return insert;
+        }
+
+        PlainSelect modified = modifySelect(plainSelect, editor);
+        if (modified == plainSelect) {
+            return insert;
+        }
+
+        Insert copy = DeepCloningUtils.shallowClone(insert);
+        copy.setSelect(modified);
+        return copy;
+    }
+
+    /**
+     * Модифицирует DELETE-запрос на основе параметров.
+     */
+    private Delete modifyDelete(Delete delete, ExpressionModifier editor) {
+        Expression where = delete.getWhere();
+        Expression modified = where != null ? editor.modify(where) : null;
+        if (modified == where) {
+            return delete;
+        }
+
+        Delete copy = DeepCloningUtils.shallowClone(delete);
+        copy.setWhere(modified);
+        return copy;
+    }
+
+    /**
+     * Форма запроса - ключ кеша скелетов.
+     *
+     * @param mask    маска присутствия параметров
+     * @param sizes   размеры разворачивания параметров-коллекций (null, если коллекций нет)
+     * @param rewrite способ перестройки запроса страницы или подсчета строк (null для исходного запроса)
+     */
+    public record Shape(long mask, List<Integer> sizes, Record rewrite) {
+    }
+
+    /**
+     * Перестройка для страницы с навигацией по ключу.
+     */
+    private record KeysetShape(List<SortOrder> sort, boolean seek) {
+    }
+
+    /**
+     * Перестройка для страницы с навигацией по смещению.
+     */
+    private record OffsetShape(List<SortOrder> sort) {
+    }
+
+    /**
+     * Перестройка в запрос подсчета строк.
+     */
+    private record CountShape(boolean capped) {
+    }
+
+    /**
+     * Определяет таблицы, к которым обращается запрос.
+     */
+    private static Set<String> findTables(Statement statement) {
+        Set<String> names;
+        try {
+            names = new TablesNamesFinder<>().getTables(statement);
+        } catch (UnsupportedOperationException e) {
+            return null;
+        }
+
+        Set<String> tables = new HashSet<>();
+        for (String name : names) {
+            tables.add(normalizeTableName(name));
+        }
+        return Set.copyOf(tables);
+    }
+
+    /**
+     * Приводит имя таблицы к виду для сравнения: без схемы и кавычек, в нижнем регистре.
+     *
+     * @param name имя таблицы, возможно с указанием схемы
+     * @return нормализованное имя таблицы
+     */
+    public static String normalizeTableName(String name) {
+        String table = name.substring(name.lastIndexOf('.') + 1);
+        return table.replace("\"", "").replace("`", "").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Вычисляет отпечаток запроса: 64-битный хеш FNV-1a текста в шестнадцатеричном виде.
+     */
+    private static String fingerprint(String sql) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < sql.length(); i++) {
+            hash ^= sql.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return String.format("%016x", hash);
+    }
+
+    /**
+     * Передает обработчику условия WHERE, которые могут сокращаться в зависимости от параметров.
+     */
+    private static void forEachWhere(Statement statement, Consumer<Expression> action) {
+        Expression where = switch (statement) {
+            case PlainSelect plainSelect -> plainSelect.getWhere();
+            case Update update -> update.getWhere();
+            case Delete delete -> delete.getWhere();
+            case Insert insert when insert.getSelect() instanceof PlainSelect plainSelect -> plainSelect.getWhere();
+            default -> null;
+        };
+        if (where != null) {
+            action.accept(where);
+        }
+    }
+}
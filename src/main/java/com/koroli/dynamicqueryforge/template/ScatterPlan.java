@@ -0,0 +1,258 @@
+package com.koroli.dynamicqueryforge.template;
+
+import com.koroli.dynamicqueryforge.exception.QueryProcessingException;
+import com.koroli.dynamicqueryforge.util.DeepCloningUtils;
+import net.sf.jsqlparser.expression.AllValue;
+import net.sf.jsqlparser.expression.AnalyticExpression;
+import net.sf.jsqlparser.expression.Expression;
+import net.sf.jsqlparser.expression.ExpressionVisitorAdapter;
+import net.sf.jsqlparser.expression.Function;
+import net.sf.jsqlparser.expression.JdbcNamedParameter;
+import net.sf.jsqlparser.expression.LongValue;
+import net.sf.jsqlparser.expression.NullValue;
+import net.sf.jsqlparser.expression.operators.arithmetic.Addition;
+import net.sf.jsqlparser.schema.Column;
+import net.sf.jsqlparser.statement.Statement;
+import net.sf.jsqlparser.statement.select.Limit;
+import net.sf.jsqlparser.statement.select.OrderByElement;
+import net.sf.jsqlparser.statement.select.ParenthesedSelect;
+import net.sf.jsqlparser.statement.select.PlainSelect;
+import net.sf.jsqlparser.statement.select.Select;
+import net.sf.jsqlparser.statement.select.SelectItem;
+import net.sf.jsqlparser.statement.select.SetOperation;
+import net.sf.jsqlparser.statement.select.SetOperationList;
+import net.sf.jsqlparser.statement.select.UnionOp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * План выполнения SELECT-запроса на всех шардах с объединением результатов.
+ * <p>
+ * Каждый шард выполняет запрос без OFFSET с лимитом {@code LIMIT + OFFSET}: строки, пропускаемые
+ * в итоговом результате, могут находиться на любом шарде. Итоговые сортировка, смещение и лимит
+ * применяются при слиянии потоков строк шардов по ключам ORDER BY.
+ * <p>
+ * Агрегаты, оконные функции, DISTINCT, GROUP BY, HAVING и объединения запросов, кроме UNION ALL,
+ * каждый шард вычислял бы только по своим строкам, поэтому такие запросы на всех шардах не выполняются.
+ *
+ * @param shardTemplate шаблон запроса, выполняемого на каждом шарде
+ * @param orderBy       ключи сортировки итогового результата (пустой список, если ORDER BY нет)
+ * @param limit         лимит строк итогового результата или null
+ * @param offset        смещение итогового результата или null
+ * @param unsupported   причина, по которой результаты нельзя объединить, или null
+ */
+public record ScatterPlan(
+        QueryTemplate shardTemplate,
+        List<SortKey> orderBy,
+        RowBound limit,
+        RowBound offset,
+        String unsupported
+) {
+
+    /**
+     * Ключ сортировки: столбец результата и направление.
+     *
+     * @param column     имя столбца или псевдонима без имени таблицы
+     * @param ascending  сортировка по возрастанию
+     * @param nullsFirst значения NULL располагаются в начале
+     */
+    public record SortKey(String column, boolean ascending, boolean nullsFirst) {
+    }
+
+    /**
+     * Граница LIMIT или OFFSET: число из текста запроса или именованный параметр.
+     *
+     * @param value         значение из текста запроса (если параметр не задан)
+     * @param parameterName имя параметра или null
+     */
+    public record RowBound(long value, String parameterName) {
+
+        /**
+         * Вычисляет значение границы.
+         *
+         * @param parameters карта параметров и их значений
+         * @return значение или -1, если значение параметра не задано
+         */
+        public long resolve(Map<String, Object> parameters) {
+            if (parameterName == null) {
+                return value;
+            }
+            return parameters.get(parameterName) instanceof Number number ? number.longValue() : -1L;
+        }
+    }
+
+    /**
+     * Проверяет, можно ли объединить результаты шардов, и возвращает план.
+     *
+     * @return план запроса
+     * @throws QueryProcessingException если сортировку или границы результата нельзя применить при слиянии
+     */
+    public ScatterPlan requireSupported() {
+        if (unsupported != null) {
+            throw new QueryProcessingException("Запрос нельзя выполнить на всех шардах: " + unsupported);
+        }
+        return this;
+    }
+
+    /**
+     * Строит план для шаблона запроса.
+     */
+    static ScatterPlan of(QueryTemplate template, Statement statement) {
+        if (!(statement instanceof Select select)) {
+            return new ScatterPlan(template, List.of(), null, null, null);
+        }
+        if (select.getFetch() != null || select.getLimitBy() != null) {
+            return unsupported(template, "FETCH и LIMIT BY не поддерживаются");
+        }
+        String partial = partialResult(select);
+        if (partial != null) {
+            return unsupported(template, partial + " вычисляется каждым шардом отдельно и не объединяется");
+        }
+
+        List<SortKey> orderBy = new ArrayList<>();
+        if (select.getOrderByElements() != null) {
+            for (OrderByElement element : select.getOrderByElements()) {
+                if (!(element.getExpression() instanceof Column column)) {
+                    return unsupported(template, "ORDER BY допускает только столбцы результата: " + element);
+                }
+                OrderByElement.NullOrdering nulls = element.getNullOrdering();
+                // В PostgreSQL NULL больше любого значения: по умолчанию NULLS LAST для ASC и NULLS FIRST для DESC
+                boolean nullsFirst = nulls != null ? nulls == OrderByElement.NullOrdering.NULLS_FIRST : !element.isAsc();
+                orderBy.add(new SortKey(column.getColumnName().replace("\"", ""), element.isAsc(), nullsFirst));
+            }
+        }
+
+        Limit limit = select.getLimit();
+        Expression rowCount = limit != null ? limit.getRowCount() : null;
+        Expression offset = limit != null && limit.getOffset() != null
+                ? limit.getOffset()
+                : select.getOffset() != null ? select.getOffset().getOffset() : null;
+        if (rowCount instanceof AllValue || rowCount instanceof NullValue) {
+            rowCount = null;
+        }
+
+        RowBound limitBound = toBound(rowCount);
+        RowBound offsetBound = toBound(offset);
+        if ((rowCount != null && limitBound == null) || (offset != null && offsetBound == null)) {
+            return unsupported(template, "LIMIT и OFFSET допускают только числа и именованные параметры");
+        }
+        if (offset == null) {
+            return new ScatterPlan(template, List.copyOf(orderBy), limitBound, null, null);
+        }
+
+        // Шард возвращает первые LIMIT + OFFSET строк, а смещение применяется после слияния
+        Select shardSelect = (Select) DeepCloningUtils.clone(select);
+        shardSelect.setOffset(null);
+        if (rowCount == null) {
+            shardSelect.setLimit(null);
+        } else {
+            Limit shardLimit = new Limit();
+            shardLimit.setRowCount(rowCount instanceof LongValue count && offset instanceof LongValue skip
+                    ? new LongValue(count.getValue() + skip.getValue())
+                    : new Addition().withLeftExpression(rowCount).withRightExpression(offset));
+            shardSelect.setLimit(shardLimit);
+        }
+        return new ScatterPlan(template.derive(shardSelect), List.copyOf(orderBy), limitBound, offsetBound, null);
+    }
+
+    /**
+     * Находит в запросе часть, результат которой зависит от строк всех шардов.
+     *
+     * @return описание такой части или null, если строки шардов можно просто объединить
+     */
+    private static String partialResult(Select select) {
+        return switch (select) {
+            case PlainSelect plain -> partialResult(plain);
+            case SetOperationList setOperations -> {
+                for (SetOperation operation : setOperations.getOperations()) {
+                    if (!(operation instanceof UnionOp union) || !union.isAll()) {
+                        yield operation.toString().toUpperCase(Locale.ROOT);
+                    }
+                }
+                for (Select member : setOperations.getSelects()) {
+                    String partial = partialResult(member);
+                    if (partial != null) {
+                        yield partial;
+                    }
+                }
+                yield null;
+            }
+            case ParenthesedSelect parenthesed -> partialResult(parenthesed.getSelect());
+            default -> null;
+        };
+    }
+
+    private static String partialResult(PlainSelect select) {
+        if (select.getDistinct() != null) {
+            return "DISTINCT";
+        }
+        if (select.getGroupBy() != null) {
+            return "GROUP BY";
+        }
+        if (select.getHaving() != null) {
+            return "HAVING";
+        }
+        AggregateFinder finder = new AggregateFinder();
+        for (SelectItem<?> item : select.getSelectItems()) {
+            item.getExpression().accept(finder, null);
+            if (finder.found != null) {
+                return finder.found;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Ищет агрегатные и оконные функции в выражении списка выборки.
+     */
+    private static final class AggregateFinder extends ExpressionVisitorAdapter<Void> {
+
+        /** Агрегатные функции PostgreSQL, вызываемые без OVER */
+        private static final Set<String> AGGREGATES = Set.of(
+                "count", "sum", "avg", "min", "max", "array_agg", "string_agg", "bool_and", "bool_or", "every",
+                "bit_and", "bit_or", "bit_xor", "json_agg", "jsonb_agg", "json_object_agg", "jsonb_object_agg",
+                "xmlagg", "stddev", "stddev_pop", "stddev_samp", "variance", "var_pop", "var_samp",
+                "percentile_cont", "percentile_disc", "mode", "corr", "covar_pop", "covar_samp",
+                "regr_count", "regr_sxx", "regr_syy", "regr_sxy", "regr_avgx", "regr_avgy",
+                "regr_slope", "regr_intercept", "regr_r2", "range_agg", "range_intersect_agg", "any_value");
+
+        /** Найденная функция или null */
+        private String found;
+
+        @Override
+        public <S> Void visit(Function function, S context) {
+            if (found == null && AGGREGATES.contains(function.getName().toLowerCase(Locale.ROOT))) {
+                found = "агрегатная функция " + function.getName();
+                return null;
+            }
+            return super.visit(function, context);
+        }
+
+        @Override
+        public <S> Void visit(AnalyticExpression expression, S context) {
+            if (found == null) {
+                found = "оконная функция " + expression.getName();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Преобразует выражение LIMIT или OFFSET в границу результата.
+     */
+    private static RowBound toBound(Expression expression) {
+        return switch (expression) {
+            case LongValue value -> new RowBound(value.getValue(), null);
+            case JdbcNamedParameter parameter -> new RowBound(-1L, parameter.getName());
+            case null, default -> null;
+        };
+    }
+
+    private static ScatterPlan unsupported(QueryTemplate template, String reason) {
+        return new ScatterPlan(template, List.of(), null, null, reason);
+    }
+}
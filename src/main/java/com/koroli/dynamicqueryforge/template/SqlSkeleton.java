@@ -0,0 +1,191 @@
+package com.koroli.dynamicqueryforge.template;
+
+import com.koroli.dynamicqueryforge.expression.ExpressionModifier;
+import com.koroli.dynamicqueryforge.util.CollectionParameterUtils;
+import com.koroli.dynamicqueryforge.util.ExpressionConverter;
+import net.sf.jsqlparser.expression.JdbcNamedParameter;
+import net.sf.jsqlparser.statement.Statement;
+import net.sf.jsqlparser.util.deparser.ExpressionDeParser;
+import net.sf.jsqlparser.util.deparser.SelectDeParser;
+import net.sf.jsqlparser.util.deparser.StatementDeParser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Отрендеренный SQL-запрос, разбитый на текстовые фрагменты и слоты параметров.
+ * Неизменяемый объект: может одновременно использоваться несколькими потоками.
+ */
+public final class SqlSkeleton {
+
+    private static final String NULL_LITERAL = "NULL";
+    private static final String BIND_PLACEHOLDER = "?";
+
+    /** Текстовые фрагменты запроса, между которыми располагаются слоты (на один больше, чем слотов) */
+    private final String[] fragments;
+
+    /** Имена параметров в порядке их появления в тексте запроса */
+    private final String[] slots;
+
+    /** Имена параметров, из которых берутся значения слотов (для элементов коллекций - имя коллекции) */
+    private final String[] sources;
+
+    /** Номера элементов коллекций для слотов-элементов или -1 для обычных слотов */
+    private final int[] elements;
+
+    /** Суммарная длина текстовых фрагментов */
+    private final int textLength;
+
+    /** SQL-запрос с плейсхолдерами {@code ?} на месте слотов */
+    private final String parameterizedSql;
+
+    private SqlSkeleton(String[] fragments, String[] slots) {
+        this.fragments = fragments;
+        this.slots = slots;
+        this.sources = new String[slots.length];
+        this.elements = new int[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            int separator = slots[i].lastIndexOf(ExpressionModifier.ELEMENT_SEPARATOR);
+            sources[i] = separator < 0 ? slots[i] : slots[i].substring(0, separator);
+            elements[i] = separator < 0 ? -1 : Integer.parseInt(slots[i].substring(separator + 1));
+        }
+
+        int length = 0;
+        for (String fragment : fragments) {
+            length += fragment.length();
+        }
+        this.textLength = length;
+        this.parameterizedSql = String.join(BIND_PLACEHOLDER, fragments);
+    }
+
+    /**
+     * Рендерит дерево запроса в скелет, запоминая позиции именованных параметров.
+     *
+     * @param statement дерево запроса
+     * @return скелет SQL-запроса
+     */
+    public static SqlSkeleton of(Statement statement) {
+        StringBuilder buffer = new StringBuilder();
+        SlotRecordingDeParser expressionDeParser = new SlotRecordingDeParser();
+        SelectDeParser selectDeParser = new SelectDeParser(expressionDeParser, buffer);
+        expressionDeParser.setSelectVisitor(selectDeParser);
+        expressionDeParser.setBuffer(buffer);
+
+        statement.accept(new StatementDeParser(expressionDeParser, selectDeParser, buffer));
+
+        List<String> fragments = new ArrayList<>(expressionDeParser.slots.size() + 1);
+        int start = 0;
+        for (int offset : expressionDeParser.offsets) {
+            fragments.add(buffer.substring(start, offset));
+            start = offset;
+        }
+        fragments.add(buffer.substring(start));
+
+        return new SqlSkeleton(fragments.toArray(String[]::new), expressionDeParser.slots.toArray(String[]::new));
+    }
+
+    /**
+     * Возвращает имена параметров в порядке их появления в тексте запроса.
+     */
+    public List<String> getSlots() {
+        return List.of(slots);
+    }
+
+    /**
+     * Формирует SQL-запрос, подставляя значения параметров в виде SQL-литералов.
+     *
+     * @param parameters карта параметров и их значений
+     * @return SQL-запрос в виде строки
+     */
+    public String render(Map<String, Object> parameters) {
+        if (slots.length == 0) {
+            return fragments[0];
+        }
+
+        StringBuilder sql = new StringBuilder(textLength + slots.length * 16);
+        Object[] values = values(parameters);
+        for (int i = 0; i < slots.length; i++) {
+            sql.append(fragments[i]).append(toLiteral(values[i]));
+        }
+        return sql.append(fragments[slots.length]).toString();
+    }
+
+    /**
+     * Возвращает SQL-запрос с плейсхолдерами {@code ?} на месте слотов.
+     * Текст зависит только от формы запроса, но не от значений параметров.
+     *
+     * @return SQL-запрос с плейсхолдерами
+     */
+    public String getParameterizedSql() {
+        return parameterizedSql;
+    }
+
+    /**
+     * Возвращает значения параметров в порядке плейсхолдеров {@link #getParameterizedSql()}.
+     *
+     * @param parameters карта параметров и их значений
+     * @return список значений для привязки (может содержать null)
+     */
+    public List<Object> bindValues(Map<String, Object> parameters) {
+        return Arrays.asList(values(parameters));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sql = new StringBuilder(textLength + slots.length * 8);
+        for (int i = 0; i < slots.length; i++) {
+            sql.append(fragments[i]).append(':').append(slots[i]);
+        }
+        return sql.append(fragments[slots.length]).toString();
+    }
+
+    /**
+     * Возвращает значения слотов. Слоты-элементы коллекции, номер которых превышает ее размер,
+     * повторяют последний элемент: форма запроса рассчитана на размер коллекции, округленный вверх.
+     */
+    private Object[] values(Map<String, Object> parameters) {
+        Object[] values = new Object[slots.length];
+        String collectionName = null;
+        List<Object> collection = null;
+        for (int i = 0; i < slots.length; i++) {
+            if (elements[i] < 0) {
+                values[i] = parameters.get(slots[i]);
+                continue;
+            }
+            // Элементы одной коллекции идут подряд: коллекция преобразуется в список один раз
+            if (!sources[i].equals(collectionName)) {
+                collectionName = sources[i];
+                collection = CollectionParameterUtils.toList(parameters.get(collectionName));
+            }
+            values[i] = collection.get(Math.min(elements[i], collection.size() - 1));
+        }
+        return values;
+    }
+
+    /**
+     * Преобразует значение параметра в SQL-литерал.
+     */
+    private static String toLiteral(Object value) {
+        return value != null
+                ? ExpressionConverter.convertParameterValue(value).toString()
+                : NULL_LITERAL;
+    }
+
+    /**
+     * Депарсер выражений, который вместо именованных параметров запоминает их позиции в буфере.
+     */
+    private static final class SlotRecordingDeParser extends ExpressionDeParser {
+
+        private final List<Integer> offsets = new ArrayList<>();
+        private final List<String> slots = new ArrayList<>();
+
+        @Override
+        public <S> StringBuilder visit(JdbcNamedParameter jdbcNamedParameter, S context) {
+            offsets.add(buffer.length());
+            slots.add(jdbcNamedParameter.getName());
+            return buffer;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.koroli.dynamicqueryforge.template;
+
+/**
+ * Тип SQL-запроса шаблона.
+ */
+public enum StatementType {
+    SELECT,
+    INSERT,
+    UPDATE,
+    DELETE,
+    OTHER;
+
+    /**
+     * Проверяет, изменяет ли запрос данные.
+     *
+     * @return true для INSERT, UPDATE и DELETE
+     */
+    public boolean isWrite() {
+        return this == INSERT || this == UPDATE || this == DELETE;
+    }
+}
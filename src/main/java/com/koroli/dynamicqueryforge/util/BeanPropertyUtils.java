@@ -0,0 +1,196 @@
+package com.koroli.dynamicqueryforge.util;
+
+import com.koroli.dynamicqueryforge.exception.QueryProcessingException;
+import lombok.experimental.UtilityClass;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.RecordComponent;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Утилитарный класс для чтения свойств объектов как именованных параметров запроса.
+ * <p>
+ * Аксессоры компилируются один раз для каждого класса: компоненты записей, геттеры
+ * {@code getXxx}/{@code isXxx} и публичные поля JavaBean.
+ */
+@UtilityClass
+public class BeanPropertyUtils {
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    /** Аксессоры свойств по классам объектов */
+    private static final ClassValue<Map<String, MethodHandle>> ACCESSORS = new ClassValue<>() {
+        @Override
+        protected Map<String, MethodHandle> computeValue(Class<?> type) {
+            return collectAccessors(type);
+        }
+    };
+
+    /**
+     * Преобразует объект в карту параметров запроса.
+     * Карты возвращаются как есть, для остальных объектов читаются все свойства.
+     *
+     * @param source объект или карта параметров
+     * @return карта имен параметров и их значений
+     * @throws QueryProcessingException если не удалось прочитать свойство
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> toParameterMap(Object source) {
+        if (source instanceof Map<?, ?> map) {
+            return (Map<String, Object>) map;
+        }
+
+        Map<String, MethodHandle> accessors = ACCESSORS.get(source.getClass());
+        Map<String, Object> parameters = new LinkedHashMap<>(accessors.size() * 2);
+        try {
+            for (Map.Entry<String, MethodHandle> accessor : accessors.entrySet()) {
+                parameters.put(accessor.getKey(), (Object) accessor.getValue().invokeExact(source));
+            }
+        } catch (Throwable e) {
+            throw new QueryProcessingException("Ошибка при чтении свойств объекта " + source.getClass().getName(), e);
+        }
+        return parameters;
+    }
+
+    /**
+     * Читает значение одного свойства объекта или элемента карты.
+     *
+     * @param source объект или карта параметров
+     * @param name   имя свойства
+     * @return значение свойства
+     * @throws QueryProcessingException если свойство отсутствует или не удалось его прочитать
+     */
+    public static Object getProperty(Object source, String name) {
+        if (source instanceof Map<?, ?> map) {
+            return map.get(name);
+        }
+
+        MethodHandle accessor = ACCESSORS.get(source.getClass()).get(name);
+        if (accessor == null) {
+            throw new QueryProcessingException("Свойство " + name + " не найдено в классе " + source.getClass().getName());
+        }
+        try {
+            return (Object) accessor.invokeExact(source);
+        } catch (Throwable e) {
+            throw new QueryProcessingException("Ошибка при чтении свойства " + name + " объекта " + source.getClass().getName(), e);
+        }
+    }
+
+    /**
+     * Читает значение столбца из строки результата запроса: элемент карты, свойство объекта
+     * или саму строку, если результат состоит из одного столбца простого типа.
+     * Имя {@code created_at} совпадает с ключом карты {@code createdAt} и свойством {@code createdAt}.
+     *
+     * @param row    строка результата
+     * @param column имя столбца без имени таблицы
+     * @return значение столбца
+     * @throws QueryProcessingException если столбец отсутствует в строке
+     */
+    public static Object getColumnValue(Object row, String column) {
+        if (row instanceof Map<?, ?> map) {
+            if (map.containsKey(column)) {
+                return map.get(column);
+            }
+            String normalized = normalizeColumnName(column);
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                if (normalizeColumnName(String.valueOf(entry.getKey())).equals(normalized)) {
+                    return entry.getValue();
+                }
+            }
+            throw new QueryProcessingException("Столбец " + column + " отсутствует в результате запроса");
+        }
+        if (row.getClass().getName().startsWith("java.")) {
+            return row;
+        }
+        return getProperty(row, toPropertyName(column));
+    }
+
+    /**
+     * Приводит имя столбца к виду для сравнения без учета регистра и подчеркиваний.
+     */
+    private static String normalizeColumnName(String name) {
+        return name.replace("_", "").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Преобразует имя столбца {@code created_at} в имя свойства {@code createdAt}.
+     */
+    private static String toPropertyName(String column) {
+        StringBuilder name = new StringBuilder(column.length());
+        boolean upper = false;
+        for (int i = 0; i < column.length(); i++) {
+            char c = column.charAt(i);
+            if (c == '_') {
+                upper = name.length() > 0;
+            } else {
+                name.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            }
+        }
+        return name.toString();
+    }
+
+    /**
+     * Собирает аксессоры свойств класса с сигнатурой {@code (Object)Object}.
+     */
+    private static Map<String, MethodHandle> collectAccessors(Class<?> type) {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        Map<String, MethodHandle> accessors = new LinkedHashMap<>();
+        try {
+            if (type.isRecord()) {
+                for (RecordComponent component : type.getRecordComponents()) {
+                    Method accessor = component.getAccessor();
+                    accessor.setAccessible(true);
+                    accessors.put(component.getName(), lookup.unreflect(accessor).asType(GETTER_TYPE));
+                }
+                return accessors;
+            }
+
+            for (Field field : type.getFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    accessors.put(field.getName(), lookup.unreflectGetter(field).asType(GETTER_TYPE));
+                }
+            }
+            for (Method method : type.getMethods()) {
+                String name = propertyName(method);
+                if (name != null) {
+                    accessors.put(name, lookup.unreflect(method).asType(GETTER_TYPE));
+                }
+            }
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            throw new QueryProcessingException("Не удалось получить свойства класса " + type.getName(), e);
+        }
+        return accessors;
+    }
+
+    /**
+     * Возвращает имя свойства для геттера или null, если метод не является геттером.
+     */
+    private static String propertyName(Method method) {
+        if (Modifier.isStatic(method.getModifiers())
+                || method.getParameterCount() != 0
+                || method.getReturnType() == void.class
+                || method.getDeclaringClass() == Object.class) {
+            return null;
+        }
+
+        String name = method.getName();
+        int prefixLength;
+        if (name.startsWith("get") && name.length() > 3) {
+            prefixLength = 3;
+        } else if (name.startsWith("is") && name.length() > 2
+                && (method.getReturnType() == boolean.class || method.getReturnType() == Boolean.class)) {
+            prefixLength = 2;
+        } else {
+            return null;
+        }
+        return Character.toLowerCase(name.charAt(prefixLength)) + name.substring(prefixLength + 1);
+    }
+}
@@ -0,0 +1,75 @@
+package com.koroli.dynamicqueryforge.util;
+
+import lombok.experimental.UtilityClass;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Утилитарный класс для значений параметров-коллекций: {@link Collection} и массивов.
+ * Массив {@code byte[]} считается бинарным значением, а не коллекцией.
+ */
+@UtilityClass
+public class CollectionParameterUtils {
+
+    /**
+     * Проверяет, является ли значение параметра коллекцией или массивом.
+     *
+     * @param value значение параметра
+     * @return true для {@link Collection} и массивов, кроме {@code byte[]}
+     */
+    public static boolean isCollection(Object value) {
+        return value instanceof Collection<?>
+                || value != null && value.getClass().isArray() && !(value instanceof byte[]);
+    }
+
+    /**
+     * Проверяет, передано ли значение параметра: не null и не пустая коллекция.
+     * Пустая коллекция удаляет предикат так же, как null.
+     *
+     * @param value значение параметра
+     * @return true, если значение передано
+     */
+    public static boolean hasValue(Object value) {
+        return value != null && (!isCollection(value) || size(value) > 0);
+    }
+
+    /**
+     * Возвращает количество элементов коллекции или массива.
+     *
+     * @param value коллекция или массив
+     * @return количество элементов
+     */
+    public static int size(Object value) {
+        return value instanceof Collection<?> collection ? collection.size() : Array.getLength(value);
+    }
+
+    /**
+     * Возвращает элементы коллекции или массива в виде списка.
+     * Список-значение возвращается без копирования, элементы массивов примитивов упаковываются.
+     *
+     * @param value коллекция или массив
+     * @return элементы в порядке перебора
+     */
+    @SuppressWarnings("unchecked")
+    public static List<Object> toList(Object value) {
+        if (value instanceof List<?> list) {
+            return (List<Object>) list;
+        }
+        if (value instanceof Collection<?> collection) {
+            return new ArrayList<>(collection);
+        }
+        if (value instanceof Object[] array) {
+            return Arrays.asList(array);
+        }
+        int length = Array.getLength(value);
+        List<Object> elements = new ArrayList<>(length);
+        for (int i = 0; i < length; i++) {
+            elements.add(Array.get(value, i));
+        }
+        return elements;
+    }
+}
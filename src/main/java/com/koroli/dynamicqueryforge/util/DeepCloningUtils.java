@@ -5,8 +5,8 @@ import lombok.experimental.UtilityClass;
 import net.sf.jsqlparser.statement.Statement;
 
 /**
- * Утилитарный класс для выполнения глубокого клонирования объектов.
- * Использует библиотеку Cloner для создания глубоких копий.
+ * Утилитарный класс для выполнения глубокого и поверхностного клонирования объектов.
+ * Использует библиотеку Cloner для создания копий.
  */
 @UtilityClass
 public class DeepCloningUtils {
@@ -22,4 +22,16 @@ public class DeepCloningUtils {
     public static Statement clone(Statement statement) {
         return cloner.deepClone(statement);
     }
+
+    /**
+     * Создает поверхностную копию объекта: поля копии ссылаются на те же объекты, что и поля оригинала.
+     * Используется для копирования узлов дерева запроса на пути к изменённому выражению.
+     *
+     * @param object объект, который требуется скопировать
+     * @param <T>    тип объекта
+     * @return поверхностная копия переданного объекта
+     */
+    public static <T> T shallowClone(T object) {
+        return cloner.shallowClone(object);
+    }
 }
@@ -3,6 +3,7 @@ package com.koroli.dynamicqueryforge.util;
 import com.koroli.dynamicqueryforge.exception.UnsupportedParameterTypeException;
 import lombok.experimental.UtilityClass;
 import net.sf.jsqlparser.expression.*;
+import net.sf.jsqlparser.expression.operators.relational.ExpressionList;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
@@ -49,25 +50,46 @@ public class ExpressionConverter {
             case Boolean bool -> new BooleanValue(bool);
 
             // === Дата и время ===
-            // java.sql
-            case Date sqlDate -> new DateValue(sqlDate.toString());
-            case Time sqlTime -> new TimeValue(sqlTime.toString());
+            // java.sql (DateValue и TimeValue ожидают значение в кавычках)
+            case Date sqlDate -> new DateValue(quote(sqlDate.toString()));
+            case Time sqlTime -> new TimeValue(quote(sqlTime.toString()));
             case Timestamp timestamp -> new TimestampValue(timestamp.toString());
 
             // java.time
-            case LocalDate localDate -> new DateValue(localDate.toString());
-            case LocalTime localTime -> new TimeValue(localTime.toString());
-            case LocalDateTime localDateTime -> new TimestampValue(localDateTime.toString());
+            case LocalDate localDate -> new DateValue(quote(localDate.toString()));
+            case LocalTime localTime -> new TimeValue(quote(Time.valueOf(localTime).toString()));
+            case LocalDateTime localDateTime -> new TimestampValue(Timestamp.valueOf(localDateTime).toString());
 
             // === Бинарные данные ===
             case byte[] bytes -> new HexValue(convertBytesToHex(bytes));
 
+            // === Коллекции и массивы: литерал ARRAY[...] для = ANY(...) ===
+            case Object collection when CollectionParameterUtils.isCollection(collection) -> convertCollection(collection);
+
             default -> throw new UnsupportedParameterTypeException(
                     "Unsupported parameter type: " + value.getClass().getName()
             );
         };
     }
 
+    /**
+     * Преобразует коллекцию или массив в конструктор массива {@code ARRAY[...]}.
+     */
+    private static Expression convertCollection(Object collection) {
+        ExpressionList<Expression> elements = new ExpressionList<>();
+        for (Object element : CollectionParameterUtils.toList(collection)) {
+            elements.add(element != null ? convertParameterValue(element) : new NullValue());
+        }
+        return new ArrayConstructor(elements, true);
+    }
+
+    /**
+     * Заключает значение даты или времени в одинарные кавычки.
+     */
+    private static String quote(String value) {
+        return "'" + value + "'";
+    }
+
     /**
      * Преобразует массив байт в {@code String}.
      *
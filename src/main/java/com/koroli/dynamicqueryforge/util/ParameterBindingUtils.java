@@ -0,0 +1,148 @@
+package com.koroli.dynamicqueryforge.util;
+
+import com.koroli.dynamicqueryforge.exception.UnsupportedParameterTypeException;
+import lombok.experimental.UtilityClass;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Утилитарный класс для привязки значений параметров к {@link PreparedStatement}.
+ * Поддерживает те же типы, что и {@link ExpressionConverter}.
+ */
+@UtilityClass
+public class ParameterBindingUtils {
+
+    /**
+     * Привязывает значения к плейсхолдерам {@code ?} в порядке их следования.
+     *
+     * @param statement подготовленный запрос
+     * @param values    значения параметров
+     * @throws SQLException если драйвер не смог привязать значение
+     */
+    public static void bindAll(PreparedStatement statement, List<Object> values) throws SQLException {
+        for (int i = 0; i < values.size(); i++) {
+            bind(statement, i + 1, values.get(i));
+        }
+    }
+
+    /**
+     * Привязывает значение параметра с использованием типизированного метода {@code setXxx}.
+     *
+     * @param statement подготовленный запрос
+     * @param index     индекс плейсхолдера (начиная с 1)
+     * @param value     значение параметра (может быть null)
+     * @throws SQLException                      если драйвер не смог привязать значение
+     * @throws UnsupportedParameterTypeException если тип параметра не поддерживается
+     */
+    public static void bind(PreparedStatement statement, int index, Object value) throws SQLException {
+        switch (value) {
+            case null -> statement.setNull(index, Types.NULL);
+
+            // === Строковые значения ===
+            case String str -> statement.setString(index, str);
+
+            // === Числовые значения ===
+            case Byte byteVal    -> statement.setShort(index, byteVal);
+            case Short shortVal  -> statement.setShort(index, shortVal);
+            case Integer intVal  -> statement.setInt(index, intVal);
+            case Long longVal    -> statement.setLong(index, longVal);
+
+            case Float floatVal      -> statement.setFloat(index, floatVal);
+            case Double doubleVal    -> statement.setDouble(index, doubleVal);
+
+            case BigDecimal decimal  -> statement.setBigDecimal(index, decimal);
+            case BigInteger bigInt   -> statement.setBigDecimal(index, new BigDecimal(bigInt));
+
+            case Number num -> statement.setLong(index, num.longValue());
+
+            // === Булево значение ===
+            case Boolean bool -> statement.setBoolean(index, bool);
+
+            // === Дата и время ===
+            // java.sql
+            case Date sqlDate -> statement.setDate(index, sqlDate);
+            case Time sqlTime -> statement.setTime(index, sqlTime);
+            case Timestamp timestamp -> statement.setTimestamp(index, timestamp);
+
+            // java.time
+            case LocalDate localDate -> statement.setObject(index, localDate);
+            case LocalTime localTime -> statement.setObject(index, localTime);
+            case LocalDateTime localDateTime -> statement.setObject(index, localDateTime);
+
+            // === Бинарные данные ===
+            case byte[] bytes -> statement.setBytes(index, bytes);
+
+            // === Коллекции и массивы: один параметр-массив SQL для = ANY(?) ===
+            case Object collection when CollectionParameterUtils.isCollection(collection) ->
+                    statement.setArray(index, createArray(statement.getConnection(), collection));
+
+            default -> throw new UnsupportedParameterTypeException(
+                    "Unsupported parameter type: " + value.getClass().getName()
+            );
+        }
+    }
+
+    /**
+     * Создает массив SQL из коллекции или массива. Тип элементов массива определяется
+     * по первому элементу, отличному от null.
+     *
+     * @param connection соединение, создающее массив
+     * @param collection коллекция или массив значений
+     * @return массив SQL
+     * @throws SQLException                      если драйвер не смог создать массив
+     * @throws UnsupportedParameterTypeException если тип элементов не поддерживается
+     */
+    private static Array createArray(Connection connection, Object collection) throws SQLException {
+        List<Object> elements = CollectionParameterUtils.toList(collection);
+        Object[] values = new Object[elements.size()];
+        String typeName = "text";
+        boolean typed = false;
+        for (int i = 0; i < values.length; i++) {
+            Object element = elements.get(i);
+            values[i] = switch (element) {
+                case Byte byteVal -> byteVal.shortValue();
+                case BigInteger bigInt -> new BigDecimal(bigInt);
+                case null, default -> element;
+            };
+            if (element != null && !typed) {
+                typeName = arrayElementType(element);
+                typed = true;
+            }
+        }
+        return connection.createArrayOf(typeName, values);
+    }
+
+    /**
+     * Возвращает имя типа PostgreSQL для элементов массива.
+     */
+    private static String arrayElementType(Object element) {
+        return switch (element) {
+            case String ignored -> "text";
+            case Byte ignored -> "int2";
+            case Short ignored -> "int2";
+            case Integer ignored -> "int4";
+            case Long ignored -> "int8";
+            case Float ignored -> "float4";
+            case Double ignored -> "float8";
+            case BigDecimal ignored -> "numeric";
+            case BigInteger ignored -> "numeric";
+            case Boolean ignored -> "bool";
+            case Date ignored -> "date";
+            case LocalDate ignored -> "date";
+            case Time ignored -> "time";
+            case LocalTime ignored -> "time";
+            case Timestamp ignored -> "timestamp";
+            case LocalDateTime ignored -> "timestamp";
+            case byte[] ignored -> "bytea";
+            default -> throw new UnsupportedParameterTypeException(
+                    "Unsupported array element type: " + element.getClass().getName()
+            );
+        };
+    }
+}
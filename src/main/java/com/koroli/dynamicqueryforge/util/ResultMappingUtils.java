@@ -1,13 +1,16 @@
 package com.koroli.dynamicqueryforge.util;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.type.CollectionType;
 import com.koroli.dynamicqueryforge.exception.ResultMappingException;
+import com.koroli.dynamicqueryforge.jfr.QueryEvents;
+import com.koroli.dynamicqueryforge.jfr.ResultMappingEvent;
+import com.koroli.dynamicqueryforge.mapping.RowMapper;
+import com.koroli.dynamicqueryforge.mapping.RowMappers;
 import lombok.experimental.UtilityClass;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Утилитарный класс для преобразования результатов запросов.
@@ -15,33 +18,74 @@ import java.util.Map;
 @UtilityClass
 public class ResultMappingUtils {
 
-    private static final ObjectMapper objectMapper = new ObjectMapper();
-
     /**
-     * Преобразует результат запроса в объекты указанного типа.
+     * Преобразует результат запроса в объекты указанного типа, читая строки напрямую из {@link ResultSet}.
      *
-     * @param resultSetData  список результатов запроса
+     * @param resultSet      результат запроса
      * @param resultClass    класс, в который нужно мапить результат
      * @param <T>            тип результата
      * @param isSingleResult флаг, указывающий, нужно ли вернуть единичный объект
-     * @return объект или список объектов указанного типа
-     * @throws RuntimeException если возникает ошибка при преобразовании
+     * @return объект, список объектов указанного типа или null, если результат пуст
+     * @throws SQLException если не удалось прочитать результат
      */
-    public static <T> Object mapResult(List<Map<String, Object>> resultSetData, Class<T> resultClass, boolean isSingleResult) {
-        try {
-            String json = objectMapper.writeValueAsString(resultSetData);
-
-            if (resultSetData.isEmpty()) return null;
-
-            if (isSingleResult) {
-                return objectMapper.convertValue(resultSetData.getFirst(), resultClass);
-            } else {
-                CollectionType listType = objectMapper.getTypeFactory().constructCollectionType(List.class, resultClass);
-                return objectMapper.readValue(json, listType);
-            }
-        } catch (JsonProcessingException e) {
-            throw new ResultMappingException("Ошибка при преобразовании результата запроса в объект " + resultClass.getName(), e);
+    public static <T> Object mapResult(ResultSet resultSet, Class<T> resultClass, boolean isSingleResult) throws SQLException {
+        ResultMappingEvent event = new ResultMappingEvent();
+        event.begin();
+        if (!resultSet.next()) {
+            commitMapping(event, resultClass, 0);
+            return null;
+        }
+
+        RowMapper<T> rowMapper = RowMappers.forLayout(resultClass, resultSet.getMetaData());
+
+        if (isSingleResult) {
+            T result = rowMapper.mapRow(resultSet);
+            commitMapping(event, resultClass, 1);
+            return result;
+        }
+
+        List<T> results = new ArrayList<>();
+        do {
+            results.add(rowMapper.mapRow(resultSet));
+        } while (resultSet.next());
+        commitMapping(event, resultClass, results.size());
+        return results;
+    }
+
+    /**
+     * Завершает событие JFR преобразования результата.
+     */
+    private static void commitMapping(ResultMappingEvent event, Class<?> resultClass, long rowCount) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.setRepositoryMethod(QueryEvents.repositoryMethod());
+            event.setFingerprint(QueryEvents.fingerprint());
+            event.setResultType(resultClass);
+            event.setRowCount(rowCount);
+            event.commit();
         }
     }
-}
 
+    /**
+     * Преобразует количество измененных строк в значение, возвращаемое методом репозитория.
+     *
+     * @param updateCount количество измененных строк
+     * @param resultClass тип результата метода ({@code int}, {@code long}, {@code boolean} или {@code void})
+     * @return количество измененных строк указанного типа, признак изменения или null для {@code void}
+     */
+    public static Object mapUpdateCount(long updateCount, Class<?> resultClass) {
+        if (resultClass == int.class || resultClass == Integer.class) {
+            return Math.toIntExact(updateCount);
+        }
+        if (resultClass == long.class || resultClass == Long.class) {
+            return updateCount;
+        }
+        if (resultClass == boolean.class || resultClass == Boolean.class) {
+            return updateCount > 0;
+        }
+        if (resultClass == void.class || resultClass == Void.class) {
+            return null;
+        }
+        throw new ResultMappingException("Неподдерживаемый тип результата изменяющего запроса: " + resultClass.getName());
+    }
+}
@@ -0,0 +1,115 @@
+package com.koroli.dynamicqueryforge.client.postgres;
+
+import com.koroli.dynamicqueryforge.cache.CaffeineQueryCache;
+import com.koroli.dynamicqueryforge.config.DynamicQueryProperties;
+import com.koroli.dynamicqueryforge.exception.QueryProcessingException;
+import com.koroli.dynamicqueryforge.processing.ProcessedBatch;
+import com.koroli.dynamicqueryforge.processing.QueryProcessor;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Пакетное выполнение изменяющих запросов на встроенной базе H2 в памяти.
+ */
+class BatchExecutionTest {
+
+    private static final String INSERT_SQL = "INSERT INTO item (id) VALUES (:id)";
+
+    private final DynamicQueryProperties properties = new DynamicQueryProperties();
+    private final QueryProcessor queryProcessor = new QueryProcessor(new CaffeineQueryCache(properties), properties);
+    private JdbcDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:batch;DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE item (id INT PRIMARY KEY)");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("SHUTDOWN");
+        }
+    }
+
+    @Test
+    void executesBatchInChunks() {
+        PostgresClient client = new PostgresClient(dataSource, properties);
+        int[] counts = client.executeBatch(batch(1, 2, 3), 2, Void.class).updateCounts();
+        assertArrayEquals(new int[]{1, 1, 1}, counts);
+    }
+
+    @Test
+    void rejectsNonPositiveChunkSize() {
+        PostgresClient client = new PostgresClient(dataSource, properties);
+        assertThrows(IllegalArgumentException.class, () -> client.executeBatch(batch(1), 0, Void.class));
+        assertThrows(IllegalArgumentException.class, () -> client.executeBatch(batch(1), -1, Void.class));
+    }
+
+    @Test
+    void keepsBatchFailureWhenRollbackFails() {
+        PostgresClient client = new PostgresClient(brokenRollback(dataSource), properties);
+
+        QueryProcessingException error = assertThrows(QueryProcessingException.class,
+                () -> client.executeBatch(batch(1, 1), 10, Void.class));
+
+        // Причина - нарушение первичного ключа, а не ошибка отката
+        SQLException cause = (SQLException) error.getCause();
+        assertEquals("23505", cause.getSQLState());
+        assertTrue(Arrays.stream(cause.getSuppressed())
+                .anyMatch(suppressed -> suppressed instanceof SQLException sql && "08006".equals(sql.getSQLState())));
+    }
+
+    private ProcessedBatch batch(int... ids) {
+        return queryProcessor.processBatch(INSERT_SQL,
+                Arrays.stream(ids).mapToObj(id -> Map.<String, Object>of("id", id)).toList());
+    }
+
+    /**
+     * Оборачивает источник соединений так, что откат транзакции завершается ошибкой связи.
+     */
+    private static DataSource brokenRollback(JdbcDataSource dataSource) {
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[]{DataSource.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(dataSource, method, args);
+                    if (!(result instanceof Connection connection)) {
+                        return result;
+                    }
+                    return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                            (connectionProxy, connectionMethod, connectionArgs) -> {
+                                if ("rollback".equals(connectionMethod.getName())) {
+                                    throw new SQLException("Соединение потеряно", "08006");
+                                }
+                                return invoke(connection, connectionMethod, connectionArgs);
+                            });
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
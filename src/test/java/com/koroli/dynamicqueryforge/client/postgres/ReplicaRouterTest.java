@@ -0,0 +1,251 @@
+package com.koroli.dynamicqueryforge.client.postgres;
+
+import com.koroli.dynamicqueryforge.client.ReadReplicas;
+import com.koroli.dynamicqueryforge.client.ReplicaStatus;
+import com.koroli.dynamicqueryforge.config.DynamicQueryProperties;
+import com.koroli.dynamicqueryforge.config.DynamicQueryProperties.ReplicaBalancing;
+import com.koroli.dynamicqueryforge.exception.QueryProcessingException;
+import com.koroli.dynamicqueryforge.processing.ProcessedQuery;
+import com.koroli.dynamicqueryforge.template.QueryTemplate;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Маршрутизация запросов на реплики: две реплики и основная база данных - встроенные базы H2 в памяти.
+ */
+class ReplicaRouterTest {
+
+    private static final String NODE_SQL = "SELECT name FROM node";
+
+    private ReplicaDataSource primary;
+    private ReplicaDataSource replica0;
+    private ReplicaDataSource replica1;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        primary = database("primary");
+        replica0 = database("replica0");
+        replica1 = database("replica1");
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        for (ReplicaDataSource database : List.of(primary, replica0, replica1)) {
+            database.down = false;
+            try (Connection connection = database.getConnection(); Statement statement = connection.createStatement()) {
+                statement.execute("SHUTDOWN");
+            }
+        }
+    }
+
+    @Test
+    void roundRobinAlternatesReplicas() throws SQLException {
+        ReplicaRouter router = router(ReplicaBalancing.ROUND_ROBIN, 1, Duration.ofSeconds(10));
+
+        for (int i = 0; i < 4; i++) {
+            try (Connection connection = router.acquire()) {
+                assertNotNull(connection);
+            }
+        }
+
+        List<ReplicaStatus> statuses = router.statuses();
+        assertEquals(2, statuses.get(0).acquisitions());
+        assertEquals(2, statuses.get(1).acquisitions());
+        assertEquals(0, statuses.get(0).outstanding());
+        assertEquals(0, statuses.get(1).outstanding());
+    }
+
+    @Test
+    void leastOutstandingPrefersIdleReplica() throws SQLException {
+        ReplicaRouter router = router(ReplicaBalancing.LEAST_OUTSTANDING, 1, Duration.ofSeconds(10));
+
+        try (Connection first = router.acquire(); Connection second = router.acquire()) {
+            assertNotNull(first);
+            assertNotNull(second);
+            assertEquals(1, router.statuses().get(0).outstanding());
+            assertEquals(1, router.statuses().get(1).outstanding());
+        }
+
+        try (Connection held = router.acquire()) {
+            assertEquals(1, router.statuses().get(0).outstanding());
+            try (Connection next = router.acquire()) {
+                assertEquals(1, router.statuses().get(1).outstanding());
+            }
+        }
+        assertEquals(0, router.statuses().get(0).outstanding());
+        assertEquals(0, router.statuses().get(1).outstanding());
+    }
+
+    @Test
+    void fallsBackToPrimaryWhenReplicasAreDown() {
+        PostgresClient client = client(ReplicaBalancing.ROUND_ROBIN, 1, Duration.ofSeconds(10));
+        assertEquals("replica0", client.execute(nodeQuery(), String.class, true));
+        assertEquals("replica1", client.execute(nodeQuery(), String.class, true));
+
+        replica0.down = true;
+        replica1.down = true;
+
+        assertEquals("primary", client.execute(nodeQuery(), String.class, true));
+        assertTrue(client.getReplicaStatuses().stream().noneMatch(ReplicaStatus::available));
+        assertEquals("primary", client.execute(nodeQuery(), String.class, true));
+    }
+
+    @Test
+    void recoversReplicaAfterRetryInterval() throws Exception {
+        ReplicaRouter router = router(ReplicaBalancing.ROUND_ROBIN, 1, Duration.ofMillis(100));
+        replica0.down = true;
+        replica1.down = true;
+
+        assertNull(router.acquire());
+        assertFalse(router.statuses().get(0).available());
+        assertFalse(router.statuses().get(1).available());
+
+        replica0.down = false;
+        replica1.down = false;
+        assertNull(router.acquire());
+
+        Thread.sleep(150);
+        try (Connection connection = router.acquire()) {
+            assertNotNull(connection);
+        }
+        assertTrue(router.statuses().stream().anyMatch(ReplicaStatus::available));
+    }
+
+    @Test
+    void countsConnectionFailuresRaisedByStatements() throws SQLException {
+        try (Connection connection = replica0.getConnection(); Statement statement = connection.createStatement()) {
+            // Функция, имитирующая обрыв связи во время выполнения запроса
+            statement.execute("CREATE ALIAS BREAK_LINK AS $$ int breakLink() throws java.sql.SQLException {"
+                    + " throw new java.sql.SQLException(\"Соединение с репликой потеряно\", \"08006\"); } $$");
+        }
+        PostgresClient client = client(ReplicaBalancing.ROUND_ROBIN, 1, Duration.ofSeconds(10));
+        ProcessedQuery query = new ProcessedQuery("SELECT BREAK_LINK()", List.of(),
+                QueryTemplate.compile("SELECT BREAK_LINK()"));
+
+        assertThrows(QueryProcessingException.class, () -> client.execute(query.onReplica(0), Integer.class, true));
+
+        ReplicaStatus status = client.getReplicaStatuses().get(0);
+        assertFalse(status.available());
+        assertEquals(1, status.failures());
+        assertEquals("replica1", client.execute(nodeQuery(), String.class, true));
+    }
+
+    private ReplicaRouter router(ReplicaBalancing balancing, int failureThreshold, Duration retryInterval) {
+        return new ReplicaRouter(ReadReplicas.of(replica0, replica1),
+                properties(balancing, failureThreshold, retryInterval).getReplicas());
+    }
+
+    private PostgresClient client(ReplicaBalancing balancing, int failureThreshold, Duration retryInterval) {
+        StaticListableBeanFactory beanFactory =
+                new StaticListableBeanFactory(Map.of("readReplicas", ReadReplicas.of(replica0, replica1)));
+        return new PostgresClient(primary, properties(balancing, failureThreshold, retryInterval),
+                beanFactory.getBeanProvider(ReadReplicas.class));
+    }
+
+    private static DynamicQueryProperties properties(ReplicaBalancing balancing, int failureThreshold,
+                                                     Duration retryInterval) {
+        DynamicQueryProperties properties = new DynamicQueryProperties();
+        properties.getReplicas().setBalancing(balancing);
+        properties.getReplicas().setFailureThreshold(failureThreshold);
+        properties.getReplicas().setRetryInterval(retryInterval);
+        return properties;
+    }
+
+    private static ProcessedQuery nodeQuery() {
+        return new ProcessedQuery(NODE_SQL, List.of(), QueryTemplate.compile(NODE_SQL));
+    }
+
+    /**
+     * Создает базу данных в памяти с таблицей {@code node}, хранящей имя базы.
+     */
+    private static ReplicaDataSource database(String name) throws SQLException {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE node (name VARCHAR(32))");
+            statement.execute("INSERT INTO node VALUES ('" + name + "')");
+        }
+        return new ReplicaDataSource(dataSource);
+    }
+
+    /**
+     * Источник соединений, который можно сделать недоступным: соединение не выдается с SQLSTATE 08001.
+     */
+    private static final class ReplicaDataSource implements DataSource {
+
+        private final DataSource delegate;
+        private volatile boolean down;
+
+        private ReplicaDataSource(DataSource delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (down) {
+                throw new SQLException("База данных недоступна", "08001");
+            }
+            return delegate.getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return getConnection();
+        }
+
+        @Override
+        public PrintWriter getLogWriter() throws SQLException {
+            return delegate.getLogWriter();
+        }
+
+        @Override
+        public void setLogWriter(PrintWriter out) throws SQLException {
+            delegate.setLogWriter(out);
+        }
+
+        @Override
+        public void setLoginTimeout(int seconds) throws SQLException {
+            delegate.setLoginTimeout(seconds);
+        }
+
+        @Override
+        public int getLoginTimeout() throws SQLException {
+            return delegate.getLoginTimeout();
+        }
+
+        @Override
+        public Logger getParentLogger() {
+            return Logger.getLogger("h2");
+        }
+
+        @Override
+        public <T> T unwrap(Class<T> type) throws SQLException {
+            return delegate.unwrap(type);
+        }
+
+        @Override
+        public boolean isWrapperFor(Class<?> type) throws SQLException {
+            return delegate.isWrapperFor(type);
+        }
+    }
+}
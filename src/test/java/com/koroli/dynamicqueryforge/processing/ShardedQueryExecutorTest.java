@@ -0,0 +1,129 @@
+package com.koroli.dynamicqueryforge.processing;
+
+import com.koroli.dynamicqueryforge.annotation.Query;
+import com.koroli.dynamicqueryforge.client.HashShardRouter;
+import com.koroli.dynamicqueryforge.client.Shards;
+import com.koroli.dynamicqueryforge.config.DynamicQueryProperties;
+import com.koroli.dynamicqueryforge.exception.QueryProcessingException;
+import com.koroli.dynamicqueryforge.template.QueryTemplate;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Выполнение запросов без ключа шардирования: два шарда - встроенные базы H2 в памяти.
+ */
+class ShardedQueryExecutorTest {
+
+    interface ItemRepository {
+
+        @Query("SELECT name FROM item WHERE kind = 'shared'")
+        String findShared();
+
+        @Query("SELECT name FROM item WHERE kind = 'own' AND name = 'shard1'")
+        String findOwn();
+
+        @Query("SELECT name FROM item ORDER BY name LIMIT 1")
+        String findFirst();
+
+        @Query("SELECT count(*) FROM item")
+        Long count();
+
+        @Query("SELECT name FROM item ORDER BY name")
+        List<String> findAll();
+    }
+
+    private final List<JdbcDataSource> shards = List.of(database("shard0"), database("shard1"));
+    private AsyncQueryExecutor asyncQueryExecutor;
+    private ShardedQueryExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        DynamicQueryProperties properties = new DynamicQueryProperties();
+        asyncQueryExecutor = new AsyncQueryExecutor(properties,
+                new StaticListableBeanFactory().getBeanProvider(Executor.class));
+        StaticListableBeanFactory beanFactory =
+                new StaticListableBeanFactory(Map.of("shards", new Shards(List.copyOf(shards))));
+        executor = new ShardedQueryExecutor(beanFactory.getBeanProvider(Shards.class), new HashShardRouter(),
+                asyncQueryExecutor, properties);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        asyncQueryExecutor.destroy();
+        for (JdbcDataSource shard : shards) {
+            try (Connection connection = shard.getConnection(); Statement statement = connection.createStatement()) {
+                statement.execute("SHUTDOWN");
+            }
+        }
+    }
+
+    @Test
+    void returnsSingleResultFoundOnOneShard() throws Exception {
+        assertEquals("shard1", scatter("findOwn"));
+    }
+
+    @Test
+    void rejectsSingleResultFoundOnSeveralShards() {
+        assertThrows(QueryProcessingException.class, () -> scatter("findShared"));
+    }
+
+    @Test
+    void mergesLimitedSingleResult() throws Exception {
+        assertEquals("shard0", scatter("findFirst"));
+    }
+
+    @Test
+    void rejectsAggregateInsteadOfReturningPartialCount() {
+        assertThrows(QueryProcessingException.class, () -> scatter("count"));
+    }
+
+    @Test
+    void mergesRowsOfAllShards() throws Exception {
+        assertEquals(List.of("shard0", "shard0", "shard1", "shard1"), scatter("findAll"));
+    }
+
+    @Test
+    void returnsNullWhenNoShardHasRows() throws Exception {
+        try (Connection connection = shards.get(1).getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DELETE FROM item WHERE kind = 'own'");
+        }
+        assertNull(scatter("findOwn"));
+    }
+
+    private Object scatter(String methodName) throws NoSuchMethodException {
+        MethodDescriptor descriptor = MethodDescriptor.of(ItemRepository.class.getMethod(methodName));
+        QueryTemplate template = QueryTemplate.compile(descriptor.sql());
+        ProcessedQuery query = new ProcessedQuery(template.scatterPlan().shardTemplate().getSql(), List.of(),
+                template.scatterPlan().shardTemplate());
+        return executor.scatter(descriptor, template.scatterPlan(), query, Map.of());
+    }
+
+    /**
+     * Создает базу данных шарда: строку, общую для всех шардов, и строку, принадлежащую только этому шарду.
+     */
+    private static JdbcDataSource database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE item (name VARCHAR(32), kind VARCHAR(16))");
+            statement.execute("INSERT INTO item VALUES ('" + name + "', 'shared'), ('" + name + "', 'own')");
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+        return dataSource;
+    }
+}
@@ -0,0 +1,123 @@
+package com.koroli.dynamicqueryforge.repository;
+
+import com.koroli.dynamicqueryforge.annotation.EnableDynamicQueryRepositories;
+import com.koroli.dynamicqueryforge.repository.fixture.AppRepository;
+import com.koroli.dynamicqueryforge.repository.fixture.LibRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.SimpleBeanDefinitionRegistry;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.core.type.AnnotationMetadata;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Поиск интерфейсов репозиториев по индексу и сканированием classpath.
+ */
+class DynamicQueryRepositoryRegistrarTest {
+
+    private static final String FIXTURE_PACKAGE = AppRepository.class.getPackageName();
+    private static final String FIXTURE_PATH = FIXTURE_PACKAGE.replace('.', '/');
+
+    @EnableDynamicQueryRepositories(basePackages = "com.koroli.dynamicqueryforge.repository.fixture")
+    static class Config {
+    }
+
+    @TempDir
+    Path temp;
+
+    @Test
+    void indexFromAnotherRootDoesNotHideUnindexedRepositories() throws IOException {
+        // Индекс библиотеки в отдельном корне classpath, а репозитории приложения - в каталоге тестовых классов
+        Path library = temp.resolve("library");
+        writeIndex(library, LibRepository.class);
+        ClassLoader loader = new URLClassLoader(new URL[]{library.toUri().toURL()}, getClass().getClassLoader());
+
+        assertEquals(Set.of("appRepository", "libRepository"), register(loader, new StandardEnvironment()));
+    }
+
+    @Test
+    void indexCoveringEveryRootReplacesScanning() throws IOException {
+        Path root = temp.resolve("root");
+        copyFixtureClasses(root);
+        writeIndex(root, LibRepository.class);
+
+        assertEquals(Set.of("libRepository"), register(isolated(root), new StandardEnvironment()));
+    }
+
+    @Test
+    void ignoreIndexPropertyScansEveryPackage() throws IOException {
+        Path root = temp.resolve("root");
+        copyFixtureClasses(root);
+        writeIndex(root, LibRepository.class);
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("test",
+                Map.of(DynamicQueryRepositoryRegistrar.IGNORE_INDEX_PROPERTY, "true")));
+
+        assertEquals(Set.of("appRepository", "libRepository"), register(isolated(root), environment));
+    }
+
+    private static Set<String> register(ClassLoader loader, Environment environment) {
+        DynamicQueryRepositoryRegistrar registrar = new DynamicQueryRepositoryRegistrar();
+        registrar.setBeanClassLoader(loader);
+        registrar.setResourceLoader(new DefaultResourceLoader(loader));
+        registrar.setEnvironment(environment);
+        SimpleBeanDefinitionRegistry registry = new SimpleBeanDefinitionRegistry();
+        registrar.registerBeanDefinitions(AnnotationMetadata.introspect(Config.class), registry);
+        return Set.of(registry.getBeanDefinitionNames());
+    }
+
+    private static void writeIndex(Path root, Class<?>... repositories) throws IOException {
+        Path index = root.resolve(DynamicQueryRepositoryRegistrar.INDEX_LOCATION);
+        Files.createDirectories(index.getParent());
+        Files.write(index, List.of(repositories).stream().map(Class::getName).toList());
+    }
+
+    private static void copyFixtureClasses(Path root) throws IOException {
+        Path target = Files.createDirectories(root.resolve(FIXTURE_PATH));
+        for (Class<?> repository : List.of(AppRepository.class, LibRepository.class)) {
+            String fileName = repository.getSimpleName() + ".class";
+            try (var in = repository.getResourceAsStream(fileName)) {
+                Files.copy(in, target.resolve(fileName));
+            }
+        }
+    }
+
+    /**
+     * Загрузчик, для которого пакет фикстур и индекс есть только в указанном корне classpath.
+     */
+    private static ClassLoader isolated(Path root) throws IOException {
+        return new URLClassLoader(new URL[]{root.toUri().toURL()}, DynamicQueryRepositoryRegistrarTest.class.getClassLoader()) {
+            @Override
+            public Enumeration<URL> getResources(String name) throws IOException {
+                return name.startsWith(FIXTURE_PATH) || name.equals(DynamicQueryRepositoryRegistrar.INDEX_LOCATION)
+                        ? findResources(name)
+                        : super.getResources(name);
+            }
+
+            @Override
+            protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+                if (!name.startsWith(FIXTURE_PACKAGE + ".")) {
+                    return super.loadClass(name, resolve);
+                }
+                synchronized (getClassLoadingLock(name)) {
+                    Class<?> loaded = findLoadedClass(name);
+                    return loaded != null ? loaded : findClass(name);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,9 @@
+package com.koroli.dynamicqueryforge.repository.fixture;
+
+import com.koroli.dynamicqueryforge.repository.DynamicQueryRepository;
+
+/**
+ * Репозиторий приложения, не попавший в индекс.
+ */
+public interface AppRepository extends DynamicQueryRepository<Object, Long> {
+}
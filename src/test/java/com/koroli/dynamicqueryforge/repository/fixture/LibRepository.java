@@ -0,0 +1,9 @@
+package com.koroli.dynamicqueryforge.repository.fixture;
+
+import com.koroli.dynamicqueryforge.repository.DynamicQueryRepository;
+
+/**
+ * Репозиторий, записанный в индекс.
+ */
+public interface LibRepository extends DynamicQueryRepository<Object, Long> {
+}
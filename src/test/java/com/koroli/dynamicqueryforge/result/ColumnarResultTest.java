@@ -0,0 +1,39 @@
+package com.koroli.dynamicqueryforge.result;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Чтение результата запроса в столбцы на встроенной базе H2 в памяти.
+ */
+class ColumnarResultTest {
+
+    @Test
+    void keepsNumericPrecision() throws SQLException {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:columnar");
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT * FROM (VALUES"
+                     + " (CAST(12345678901234567.89 AS NUMERIC(20, 2)), CAST(0.5 AS DOUBLE PRECISION)),"
+                     + " (CAST(NULL AS NUMERIC(20, 2)), CAST(NULL AS DOUBLE PRECISION))) AS t(amount, ratio)")) {
+            ColumnarResult result = ColumnarResult.from(resultSet);
+
+            DecimalColumn amount = result.decimalColumn("AMOUNT");
+            assertEquals(new BigDecimal("12345678901234567.89"), amount.get(0));
+            assertTrue(amount.isNull(1));
+            assertInstanceOf(DoubleColumn.class, result.column("RATIO"));
+            assertEquals(0.5, result.doubleColumn("RATIO").get(0));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.koroli.dynamicqueryforge.template;
+
+import com.koroli.dynamicqueryforge.exception.QueryProcessingException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * План выполнения запроса на всех шардах: запросы, результат которых зависит от строк всех шардов, отклоняются.
+ */
+class ScatterPlanTest {
+
+    @Test
+    void acceptsPlainRows() {
+        for (String sql : List.of(
+                "SELECT id, name FROM users WHERE active = :active ORDER BY name LIMIT 10 OFFSET 20",
+                "SELECT lower(name) AS name FROM users",
+                "SELECT id FROM users UNION ALL SELECT id FROM archived_users")) {
+            assertNull(QueryTemplate.compile(sql).scatterPlan().unsupported(), sql);
+        }
+    }
+
+    @Test
+    void rejectsResultsComputedPerShard() {
+        for (String sql : List.of(
+                "SELECT count(*) FROM users",
+                "SELECT coalesce(sum(amount), 0) FROM payments WHERE user_id = :userId",
+                "SELECT DISTINCT city FROM users",
+                "SELECT city, count(*) FROM users GROUP BY city",
+                "SELECT city FROM users GROUP BY city HAVING count(*) > 1",
+                "SELECT id, row_number() OVER (ORDER BY id) AS position FROM users",
+                "SELECT id FROM users UNION SELECT id FROM archived_users",
+                "SELECT id FROM users UNION ALL SELECT max(id) FROM archived_users")) {
+            ScatterPlan plan = QueryTemplate.compile(sql).scatterPlan();
+            assertNotNull(plan.unsupported(), sql);
+            assertThrows(QueryProcessingException.class, plan::requireSupported, sql);
+        }
+    }
+}